@@ -1,8 +1,5 @@
 package com.example.mantracount;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
 /**
  * Centralized manager for all action word detection and counting.
  * This eliminates duplication across LineAnalyzer, LineParser, and MissingFizAnalyzer.
@@ -15,16 +12,17 @@ public class ActionWordManager {
             "realizei", "terminei", "acabei", "entrego", "entreguei", "entregues"
     };
 
+    // Built once from ACTION_WORDS; each query is a single left-to-right scan of the line
+    private static final WholeWordMatcher ACTION_WORD_MATCHER = new WholeWordMatcher(ACTION_WORDS);
+    private static final WholeWordMatcher FIZ_MATCHER = new WholeWordMatcher("fiz");
+
     /**
      * Check if a line contains specifically the "fiz" word (not other action words)
      * @param line The line to check
      * @return true if "fiz" is found
      */
     public static boolean hasFizWord(String line) {
-        String lineLower = line.toLowerCase();
-        Pattern pattern = Pattern.compile("\\b(fiz)\\b", Pattern.CASE_INSENSITIVE);
-        boolean found = pattern.matcher(lineLower).find();
-        return found;
+        return FIZ_MATCHER.containsAny(line);
     }
 
     /**
@@ -33,15 +31,7 @@ public class ActionWordManager {
      * @return true if any action words are found
      */
     public static boolean hasActionWords(String line) {
-        String lineLower = line.toLowerCase();
-
-        for (String action : ACTION_WORDS) {
-            Pattern pattern = Pattern.compile("\\b" + Pattern.quote(action) + "\\b", Pattern.CASE_INSENSITIVE);
-            if (pattern.matcher(lineLower).find()) {
-                return true;
-            }
-        }
-        return false;
+        return ACTION_WORD_MATCHER.containsAny(line);
     }
 
     /**
@@ -50,18 +40,17 @@ public class ActionWordManager {
      * @return Total count of action words found
      */
     public static int countActionWords(String line) {
-        String lineLower = line.toLowerCase();
-        int totalCount = 0;
-
-        for (String action : ACTION_WORDS) {
-            Pattern pattern = Pattern.compile("\\b" + Pattern.quote(action) + "\\b", Pattern.CASE_INSENSITIVE);
-            Matcher matcher = pattern.matcher(lineLower);
-            while (matcher.find()) {
-                totalCount++;
-            }
-        }
+        return ACTION_WORD_MATCHER.count(line);
+    }
 
-        return totalCount;
+    /**
+     * Find the position of the next action word in a line
+     * @param line The line to scan
+     * @param fromIndex 0, or the end of the previous action word found
+     * @return Start index of the next action word, or -1 if there is none
+     */
+    public static int indexOfActionWord(String line, int fromIndex) {
+        return ACTION_WORD_MATCHER.indexOf(line, fromIndex);
     }
 
     /**
@@ -17,8 +17,8 @@ import javafx.stage.Stage;
 import java.io.InputStream;
 import java.time.LocalDate;
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
@@ -35,35 +35,22 @@ public class AllMantrasUI {
     private MantraData mantraData;
     private LocalDate startDate;
     private DatePicker endDatePicker;
-    private List<MantraEntry> allEntries = new ArrayList<>();
+    private MantraEntryStore allEntries = new MantraEntryStore();
+    private long endDay;
+
+    // Lines the entries were read from, and how many there were, to tell when they must be read again
+    private LineFactsIndex entriesFacts;
+    private int entriesLineCount;
     private ScrollPane scrollPane;
     private FileManagementController fileController;
     private SearchController searchController;
 
     private Label summaryLabel;
     private HBox summaryPanel;
-    private Map<String, Integer> mantraTypeCounts = new HashMap<>();
-    private Map<String, Integer> mantraTypeNumbers = new HashMap<>();
     public String[] mantraTypes = StringConstants.MANTRA_TYPES;
 
-    public static class MantraEntry {
-        private final LocalDate date;
-        private final String lineContent;
-        private final String mantraType;
-        private final int count;
-
-        public MantraEntry(LocalDate date, String lineContent, String mantraType, int count) {
-            this.date = date;
-            this.lineContent = lineContent;
-            this.mantraType = mantraType;
-            this.count = count;
-        }
-
-        public LocalDate getDate() { return date; }
-        public String getLineContent() { return lineContent; }
-        public String getMantraType() { return mantraType; }
-        public int getCount() { return count; }
-    }
+    // Node property holding the file line an editor was created for
+    private static final String LINE_INDEX_KEY = "lineIndex";
 
     public void show(Stage owner, MantraData data, LocalDate startDate) {
         this.mantraData = data;
@@ -211,97 +198,121 @@ public class AllMantrasUI {
             return;
         }
 
+        if (hasCurrentEntries()) {
+            showPeriod(endDate);
+            return;
+        }
+
         progressIndicator.setVisible(true);
         loadEntriesAsync(mantraData, endDate);
     }
 
     /**
-     * Loads entries asynchronously
+     * @return true if the entries were read from the data's current lines
+     */
+    private boolean hasCurrentEntries() {
+        LineFactsIndex facts = mantraData.getLineFacts();
+        return facts != null && entriesFacts == facts && entriesLineCount == facts.size();
+    }
+
+    /**
+     * Loads entries asynchronously. Every entry from the start date on is read, whatever the
+     * end date, so a later end date is only another slice of them.
      */
     private void loadEntriesAsync(MantraData data, LocalDate endDate) {
+        LineFactsIndex facts = data.getLineFacts();
+        int lineCount = facts.size();
         CompletableFuture.supplyAsync(() -> {
-            List<MantraEntry> entries = new ArrayList<>();
-            Map<String, Integer> typeCounts = new HashMap<>();
-            Map<String, Integer> typeNumbers = new HashMap<>();
-            int totalMantras = 0;
-
-            for (String line : data.getLines()) {
-                LocalDate lineDate = LineParser.extractDate(line);
+            MantraEntryStore entries = new MantraEntryStore();
+            long startDay = startDate.toEpochDay();
 
-                if (lineDate == null || lineDate.isBefore(startDate) || lineDate.isAfter(endDate)) {
+            for (int i = 0; i < facts.size(); i++) {
+                int lineDay = facts.getEpochDay(i);
+                if (lineDay == LineFactsIndex.NO_DATE || lineDay < startDay) {
                     continue;
                 }
 
-                if (containsMantraContent(line)) {
-                    String mantraType = extractMantraType(line);
-                    int count = extractMantraCount(line);
-
-                    entries.add(new MantraEntry(lineDate, line, mantraType, count));
-
-                    typeCounts.put(mantraType, typeCounts.getOrDefault(mantraType, 0) + 1);
-                    typeNumbers.put(mantraType, typeNumbers.getOrDefault(mantraType, 0) + count);
-
-                    totalMantras += (count > 0) ? count : 0;
-                }
+                addEntry(entries, facts, i);
             }
 
-            entries.sort(Comparator.comparing(MantraEntry::getDate));
-            allEntries = new ArrayList<>(entries);
-
-            return new Object[] { entries, totalMantras, entries.size(), typeCounts, typeNumbers };
-
-        }).thenAcceptAsync(result -> {
-            @SuppressWarnings("unchecked")
-            List<MantraEntry> entries = (List<MantraEntry>) result[0];
-            int totalMantras = (int) result[1];
-            int entryCount = (int) result[2];
-            @SuppressWarnings("unchecked")
-            Map<String, Integer> typeCounts = (Map<String, Integer>) result[3];
-            @SuppressWarnings("unchecked")
-            Map<String, Integer> typeNumbers = (Map<String, Integer>) result[4];
-
-            mantraTypeCounts = typeCounts;
-            mantraTypeNumbers = typeNumbers;
+            entries.sortByDate();
+            return entries;
 
-            updateSummaryPanel();
-            displayEntries(entries);
-
-            Label statsLabel = getStatsLabel();
-            if (statsLabel != null) {
-                statsLabel.setText(String.format(
-                        "Encontrados %d mantras em %d entradas", totalMantras, entryCount
-                ));
-            }
+        }).thenAcceptAsync(entries -> {
+            allEntries = entries;
+            entriesFacts = facts;
+            entriesLineCount = lineCount;
+            showPeriod(endDate);
             progressIndicator.setVisible(false);
 
         }, Platform::runLater);
     }
 
+    /**
+     * Shows the loaded entries up to an end date, from the running totals of the entries
+     */
+    private void showPeriod(LocalDate endDate) {
+        endDay = endDate.toEpochDay();
+        updateSummaryPanel();
+        displayEntries();
+
+        Label statsLabel = getStatsLabel();
+        if (statsLabel != null) {
+            long startDay = startDate.toEpochDay();
+            int entryCount = allEntries.endPosition(endDay) - allEntries.firstPosition(startDay);
+            statsLabel.setText(String.format(
+                    "Encontrados %d mantras em %d entradas", allEntries.totalMantras(startDay, endDay), entryCount
+            ));
+        }
+    }
+
     /**
      * Updates the summary panel with mantra type counts
      */
     private void updateSummaryPanel() {
         summaryPanel.getChildren().clear();
 
-        if (mantraTypeCounts.isEmpty()) {
+        long startDay = startDate.toEpochDay();
+        int[] lineCounts = allEntries.entriesPerType(startDay, endDay);
+        long[] totalNumbers = allEntries.countPerType(startDay, endDay);
+
+        // A handful of types, most lines first
+        List<Integer> sortedTypes = new ArrayList<>();
+        for (int typeId = 0; typeId < lineCounts.length; typeId++) {
+            if (lineCounts[typeId] > 0) {
+                sortedTypes.add(typeId);
+            }
+        }
+        if (sortedTypes.isEmpty()) {
             summaryLabel.setText(StringConstants.NO_MANTRAS_FOUND_PT);
             summaryPanel.getChildren().add(summaryLabel);
             return;
         }
+        sortedTypes.sort((a, b) -> Integer.compare(lineCounts[b], lineCounts[a]));
 
-        List<Map.Entry<String, Integer>> sortedTypes = new ArrayList<>(mantraTypeCounts.entrySet());
-        sortedTypes.sort((a, b) -> b.getValue().compareTo(a.getValue()));
+        for (int typeId : sortedTypes) {
+            String type = allEntries.getTypeNames().get(typeId);
+            VBox typeBox = createTypeBadge(type, lineCounts[typeId], totalNumbers[typeId]);
+            summaryPanel.getChildren().add(typeBox);
+        }
 
-        for (Map.Entry<String, Integer> entry : sortedTypes) {
-            String type = entry.getKey();
-            int lineCount = entry.getValue();
-            int totalNumber = mantraTypeNumbers.getOrDefault(type, 0);
+        addTotalBadge(sum(lineCounts), sum(totalNumbers));
+    }
 
-            VBox typeBox = createTypeBadge(type, lineCount, totalNumber);
-            summaryPanel.getChildren().add(typeBox);
+    private static int sum(int[] values) {
+        int total = 0;
+        for (int value : values) {
+            total += value;
         }
+        return total;
+    }
 
-        addTotalBadge();
+    private static long sum(long[] values) {
+        long total = 0;
+        for (long value : values) {
+            total += value;
+        }
+        return total;
     }
 
     /**
@@ -320,11 +331,9 @@ public class AllMantrasUI {
     private void filterByType(String type) {
         entriesContainer.getChildren().clear();
 
-        List<MantraEntry> filteredEntries = allEntries.stream()
-                .filter(entry -> entry.getMantraType().equals(type))
-                .collect(java.util.stream.Collectors.toList());
+        int[] filteredEntries = allEntries.positionsOfType(type, startDate.toEpochDay(), endDay);
 
-        if (filteredEntries.isEmpty()) {
+        if (filteredEntries.length == 0) {
             Label noResults = UIComponentFactory.createPlaceholderLabel(
                     "Nenhuma entrada para " + type,
                     "No entries found for " + type
@@ -334,11 +343,11 @@ public class AllMantrasUI {
         }
 
         Button showAllBtn = UIComponentFactory.ActionButtons.createShowAllButton();
-        showAllBtn.setOnAction(e -> displayEntries(allEntries));
+        showAllBtn.setOnAction(e -> displayEntries());
         entriesContainer.getChildren().add(showAllBtn);
 
-        for (MantraEntry entry : filteredEntries) {
-            VBox lineEditor = createSearchCompatibleLineEditor(entry);
+        for (int entry : filteredEntries) {
+            VBox lineEditor = createSearchCompatibleLineEditor(allEntries, entry);
             entriesContainer.getChildren().add(lineEditor);
         }
 
@@ -346,12 +355,14 @@ public class AllMantrasUI {
     }
 
     /**
-     * Displays all entries
+     * Displays all entries of the period
      */
-    private void displayEntries(List<MantraEntry> entries) {
+    private void displayEntries() {
         entriesContainer.getChildren().clear();
 
-        if (entries.isEmpty()) {
+        int from = allEntries.firstPosition(startDate.toEpochDay());
+        int to = allEntries.endPosition(endDay);
+        if (from >= to) {
             Label placeholder = UIComponentFactory.createPlaceholderLabel(
                     StringConstants.NO_MANTRAS_FOUND_PT,
                     StringConstants.NO_MANTRAS_FOUND_ADJUST_EN
@@ -362,8 +373,8 @@ public class AllMantrasUI {
             return;
         }
 
-        for (MantraEntry entry : entries) {
-            VBox lineEditor = createSearchCompatibleLineEditor(entry);
+        for (int entry = from; entry < to; entry++) {
+            VBox lineEditor = createSearchCompatibleLineEditor(allEntries, entry);
             entriesContainer.getChildren().add(lineEditor);
         }
 
@@ -382,21 +393,75 @@ public class AllMantrasUI {
             return;
         }
 
-        Map<String, String> updatedContentMap = extractUpdatedContentFromUI();
+        Map<Integer, String> updatedLinesByIndex = extractUpdatedContentFromUI();
 
-        if (updatedContentMap.isEmpty()) {
+        if (updatedLinesByIndex.isEmpty()) {
             UIUtils.showNoChangesInfo();
             return;
         }
 
-        boolean success = fileController.saveChanges(updatedContentMap);
+        // What the edited lines held before saving, to find their entries afterwards
+        Map<String, Integer> editedLinesByOldText = new HashMap<>();
+        for (int index : updatedLinesByIndex.keySet()) {
+            editedLinesByOldText.put(mantraData.getLines().get(index), index);
+        }
+
+        boolean success = fileController.saveLineChanges(updatedLinesByIndex);
         if (success) {
-            loadMantras();
+            refreshEditedEntries(editedLinesByOldText);
         }
     }
 
-    private Map<String, String> extractUpdatedContentFromUI() {
-        Map<String, String> updatedContent = new HashMap<>();
+    /**
+     * Re-reads just the edited entries, instead of classifying the whole period again.
+     * The other entries keep their values and only have their line found again, in case the
+     * file changed since they were read. The running totals are summed again from the entries,
+     * which is a quick loop.
+     *
+     * @param editedLinesByOldText Index of each edited line, by the text it had before the edit
+     */
+    private void refreshEditedEntries(Map<String, Integer> editedLinesByOldText) {
+        LineFactsIndex facts = mantraData.getLineFacts();
+        MantraEntryStore entries = new MantraEntryStore();
+
+        List<String> lines = mantraData.getLines();
+        for (int entry = 0; entry < allEntries.size(); entry++) {
+            String line = allEntries.getLine(entry);
+            int lineId = allEntries.getLineId(entry);
+            boolean inPlace = lineId < lines.size() && lines.get(lineId).equals(line);
+            // Each edit belongs to one entry, even if the same text appears twice
+            Integer edited = inPlace ? null : editedLinesByOldText.remove(line);
+            if (edited != null) {
+                addEntry(entries, facts, edited);
+                continue;
+            }
+            lineId = inPlace ? lineId : FileUtils.resolveLineIndex(mantraData, lineId, line);
+            if (lineId >= 0) {
+                entries.add(allEntries.getEpochDay(entry), lineId, facts.getLine(lineId), allEntries.getType(entry),
+                        allEntries.getCount(entry), allEntries.getSender(entry));
+            }
+        }
+
+        entries.sortByDate();
+        allEntries = entries;
+        updateSummaryPanel();
+        displayEntries();
+    }
+
+    /**
+     * Adds the entry for line {@code index}, unless the line has no mantra content.
+     */
+    private void addEntry(MantraEntryStore entries, LineFactsIndex facts, int index) {
+        if (!containsMantraContent(facts, index)) {
+            return;
+        }
+        String line = facts.getLine(index);
+        entries.add(facts.getEpochDay(index), index, line, extractMantraType(line), extractMantraCount(line),
+                facts.getSender(index));
+    }
+
+    private Map<Integer, String> extractUpdatedContentFromUI() {
+        Map<Integer, String> updatedContent = new LinkedHashMap<>();
 
         for (Node node : entriesContainer.getChildren()) {
             if (node instanceof VBox wrapper && wrapper.getUserData() != null) {  // Check VBox first!
@@ -411,7 +476,10 @@ public class AllMantrasUI {
                     String updatedLine = protectedLabel.getText() + editableField.getText();
 
                     if (!originalLine.equals(updatedLine)) {
-                        updatedContent.put(originalLine, updatedLine);
+                        int lineIndex = resolveLineIndex(wrapper, originalLine);
+                        if (lineIndex >= 0) {
+                            updatedContent.put(lineIndex, updatedLine);
+                        }
                     }
                 }
             }
@@ -419,14 +487,24 @@ public class AllMantrasUI {
 
         return updatedContent;
     }
+
+    /**
+     * The line an editor was created for, or wherever its text is now if the file changed since
+     */
+    private int resolveLineIndex(Node editor, String originalLine) {
+        Object index = editor.getProperties().get(LINE_INDEX_KEY);
+        return FileUtils.resolveLineIndex(mantraData, index instanceof Integer i ? i : -1, originalLine);
+    }
+
     /**
      * Helper methods for content analysis
      */
     /**
      * Helper methods for content analysis
      */
-    private boolean containsMantraContent(String line) {
-        return MantraLineClassifier.isRelevantForAllMantras(line);
+    private boolean containsMantraContent(LineFactsIndex facts, int index) {
+        return MantraLineClassifier.isRelevantForAllMantras(
+                facts.getLine(index), facts.hasDigitsInEditablePortion(index), facts.getMessageLower(index));
     }
 
     private String extractMantraType(String line) {
@@ -493,6 +571,11 @@ public class AllMantrasUI {
                     String endDateFormatted = DateFormatUtils.formatShortDate(newDate);
                     header.setText("Todos os Mantras de " + startDateFormatted + " a " + endDateFormatted);
                 }
+
+                // Already loaded: the new period is just another slice
+                if (hasCurrentEntries() && !newDate.isBefore(startDate)) {
+                    showPeriod(newDate);
+                }
             }
         });
 
@@ -516,7 +599,7 @@ public class AllMantrasUI {
         return summaryPanel;
     }
 
-    private VBox createTypeBadge(String type, int lineCount, int totalNumber) {
+    private VBox createTypeBadge(String type, int lineCount, long totalNumber) {
         VBox typeBox = new VBox(UIComponentFactory.COMPACT_SPACING);
         typeBox.setAlignment(Pos.CENTER);
         typeBox.setPadding(new Insets(5, 10, 5, 10));
@@ -545,7 +628,7 @@ public class AllMantrasUI {
         return typeBox;
     }
 
-    private void addTotalBadge() {
+    private void addTotalBadge(int totalLines, long totalNumbers) {
         Separator separator = new Separator(javafx.geometry.Orientation.VERTICAL);
         separator.setPadding(new Insets(0, 5, 0, 5));
 
@@ -557,9 +640,6 @@ public class AllMantrasUI {
         Label totalLabel = new Label(StringConstants.TOTAL_DISPLAY);
         totalLabel.setStyle(UIColorScheme.getSectionTitleStyle() + "-fx-font-size: 12px; -fx-text-fill: #2E7D32;");
 
-        int totalLines = mantraTypeCounts.values().stream().mapToInt(Integer::intValue).sum();
-        int totalNumbers = mantraTypeNumbers.values().stream().mapToInt(Integer::intValue).sum();
-
         Label totalCountLabel = new Label(String.format(StringConstants.LINES_FORMAT_PT, totalLines));
         totalCountLabel.setStyle(StringConstants.SMALL_DARK_GRAY_TEXT_STYLE);
 
@@ -571,13 +651,16 @@ public class AllMantrasUI {
         summaryPanel.getChildren().addAll(separator, totalBox);
     }
 
-    private VBox createSearchCompatibleLineEditor(MantraEntry entry) {
-        LineParser.LineSplitResult splitResult = LineParser.splitEditablePortion(entry.getLineContent());
+    private VBox createSearchCompatibleLineEditor(MantraEntryStore entries, int entry) {
+        // The file may have changed since the entry was read: show the line where it is now
+        int lineIndex = FileUtils.resolveLineIndex(mantraData, entries.getLineId(entry), entries.getLine(entry));
+        String lineContent = lineIndex >= 0 ? mantraData.getLineFacts().getLine(lineIndex) : entries.getLine(entry);
+        LineParser.LineSplitResult splitResult = LineParser.splitEditablePortion(lineContent);
         String protectedText = splitResult.getFixedPrefix();
         String editableText = splitResult.getEditableSuffix();
 
         // Create type badge
-        Label typeBadge = UIComponentFactory.createTypeBadge(entry.getMantraType());
+        Label typeBadge = UIComponentFactory.createTypeBadge(entries.getType(entry));
         
         // Create protected label with proper styling (bold, consistent with other UIs)
         Label protectedLabel = new Label(protectedText);
@@ -597,12 +680,13 @@ public class AllMantrasUI {
         // Create line container with SEARCH-COMPATIBLE structure: HBox with firstElement + editableField
         HBox lineEditor = new HBox(UIComponentFactory.STANDARD_SPACING, firstElement, editableField);
         lineEditor.setAlignment(Pos.CENTER_LEFT);  // Consistent alignment
-        lineEditor.setUserData(entry.getLineContent());
+        lineEditor.setUserData(lineContent);
 
         // Wrap in VBox with proper styling - REQUIRED for search tool compatibility
         VBox wrapper = new VBox(UIComponentFactory.NO_SPACING, lineEditor);
         wrapper.setStyle(UIColorScheme.getResultsContainerStyle());
-        wrapper.setUserData(entry.getLineContent());
+        wrapper.setUserData(lineContent);
+        wrapper.getProperties().put(LINE_INDEX_KEY, lineIndex);
 
         return wrapper;
     }
@@ -18,12 +18,20 @@ public class ContentClassificationUtils {
      * @return true if the line contains instructional content that should be excluded
      */
     public static boolean isInstructionalContent(String line) {
-        String lowerCase = line.toLowerCase();
-
         // Extract only the message content (editable portion) for analysis
         LineParser.LineSplitResult splitResult = LineParser.splitEditablePortion(line);
-        String messageContent = splitResult.getEditableSuffix();
+        return isInstructionalContent(line, splitResult.getEditableSuffix());
+    }
 
+    /**
+     * Same as {@link #isInstructionalContent(String)} with the editable portion already split
+     * (e.g. from {@link LineFactsIndex#getEditableSuffix(int)}).
+     *
+     * @param line The complete line to analyze
+     * @param messageContent The editable portion of the line
+     * @return true if the line contains instructional content that should be excluded
+     */
+    public static boolean isInstructionalContent(String line, String messageContent) {
         if (messageContent == null || messageContent.trim().isEmpty()) {
             return false;
         }
@@ -62,6 +70,23 @@ public class ContentClassificationUtils {
                 containsPhilosophicalTerms(messageLower);
     }
 
+    private static final PhraseMatcher PHILOSOPHICAL_TERMS = new PhraseMatcher(
+            "praticou meditação",
+            "completo despertar",
+            "amizade que os",
+            "meios habilidosos",
+            "se tornaram alunos",
+            "ensinamentos",
+            "sabedoria",
+            "compaixão",
+            "iluminação",
+            "dharma",
+            "sangha",
+            "bodhisattva",
+            "samsara",
+            "nirvana"
+    );
+
     /**
      * Helper method to detect philosophical/educational content based on presence
      * of multiple Buddhist/philosophical terms.
@@ -70,32 +95,8 @@ public class ContentClassificationUtils {
      * @return true if the text contains multiple philosophical terms indicating educational content
      */
     public static boolean containsPhilosophicalTerms(String text) {
-        String[] philosophicalTerms = {
-                "praticou meditação",
-                "completo despertar",
-                "amizade que os",
-                "meios habilidosos",
-                "se tornaram alunos",
-                "ensinamentos",
-                "sabedoria",
-                "compaixão",
-                "iluminação",
-                "dharma",
-                "sangha",
-                "bodhisattva",
-                "samsara",
-                "nirvana"
-        };
-
-        int matches = 0;
-        for (String term : philosophicalTerms) {
-            if (text.contains(term)) {
-                matches++;
-            }
-        }
-
         // If it contains multiple philosophical terms, it's likely educational content
-        return matches >= 2;
+        return PHILOSOPHICAL_TERMS.countDistinct(text, 2) >= 2;
     }
 
     /**
@@ -108,4 +109,11 @@ public class ContentClassificationUtils {
     public static boolean shouldExcludeFromCounting(String line) {
         return isInstructionalContent(line);
     }
+
+    /**
+     * Same as {@link #shouldExcludeFromCounting(String)} with the editable portion already split.
+     */
+    public static boolean shouldExcludeFromCounting(String line, String editableSuffix) {
+        return isInstructionalContent(line, editableSuffix);
+    }
 }
\ No newline at end of file
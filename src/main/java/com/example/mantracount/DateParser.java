@@ -27,6 +27,9 @@ public class DateParser {
     // Pattern to extract date components
     private static final Pattern DATE_PATTERN = Pattern.compile("(\\d{1,2})/(\\d{1,2})/(\\d{2,4})");
 
+    /** Number of date tokens the format detection looks at before deciding. */
+    static final int FORMAT_DETECTION_SAMPLE = 100;
+
     // Track the detected file format
     private static DateFormat detectedFileFormat = null;
 
@@ -34,6 +37,29 @@ public class DateParser {
     // Default to system locale rather than inferring from input
     private static DateFormat userInputFormat = null;
 
+    // Chat lines come in runs sharing the same date token, so each thread remembers the last
+    // token it converted. Bumping the generation drops every thread's entry at once whenever
+    // the date interpretation changes.
+    private static final ThreadLocal<ParsedToken> lastParsedToken = new ThreadLocal<>();
+    private static volatile int tokenCacheGeneration = 0;
+
+    /** Returned by {@link #lookupEpochDay} when the token isn't the last one seen. */
+    static final int UNCACHED_DAY = Integer.MAX_VALUE;
+
+    private static final class ParsedToken {
+        final String token;
+        final DateFormat format;
+        final int epochDay;        // LineParser.NO_DATE when the token isn't a valid date
+        final int generation;
+
+        ParsedToken(String token, DateFormat format, int epochDay, int generation) {
+            this.token = token;
+            this.format = format;
+            this.epochDay = epochDay;
+            this.generation = generation;
+        }
+    }
+
     public enum DateFormat {
         US_FORMAT,    // MM/DD/YY
         BR_FORMAT     // DD/MM/YY
@@ -53,27 +79,92 @@ public class DateParser {
             return setDefaultDetectedFormat();
         }
 
+        return useDetectedFormat(analyzeLines(lines));
+    }
+
+    /**
+     * Detects one date format for chats that are read together, like the exports bundled in
+     * a zip. Each chat's first dates are sampled on its own and the votes added up, so every
+     * chat has its say rather than only the first one.
+     *
+     * @param chats The lines of each chat
+     * @return The detected date format
+     */
+    public static DateFormat detectDateFormatOfChats(List<List<String>> chats) {
+        if (detectedFileFormat != null) {
+            return detectedFileFormat;
+        }
+        return useDetectedFormat(analyzeChats(chats));
+    }
+
+    /**
+     * Works out the date format of chats read together like {@link #detectDateFormatOfChats},
+     * without making it the detected file format: for a run that reads its lines with its own
+     * format, leaving the loaded file's alone.
+     *
+     * @param chats The first lines of each chat
+     * @return The chats' format, the system locale's if their dates don't tell
+     */
+    public static DateFormat inferFormatOfChats(List<List<String>> chats) {
+        return determineFormatFromVotes(analyzeChats(chats));
+    }
+
+    /**
+     * Detects a single chat's date format on its own, leaving the detected file format alone.
+     *
+     * @return The chat's format, or null if none of its sampled dates tells the day from the month
+     */
+    public static DateFormat detectChatFormat(List<String> lines) {
         VotingResult votes = analyzeLines(lines);
+        return votes.decisiveVotes > 0 ? determineFormatFromVotes(votes) : null;
+    }
+
+    private static DateFormat useDetectedFormat(VotingResult votes) {
         detectedFileFormat = determineFormatFromVotes(votes);
-        
+        clearDateTokenCache();
+
         logDetectionResult(votes);
         initializeUserInputFormat();
-        
+
         return detectedFileFormat;
     }
 
     private static DateFormat setDefaultDetectedFormat() {
         detectedFileFormat = getDefaultDateFormat();
+        clearDateTokenCache();
         System.out.println("No lines to analyze. Using system locale default: " + detectedFileFormat);
         return detectedFileFormat;
     }
 
+    private static VotingResult analyzeChats(List<List<String>> chats) {
+        VotingResult votes = new VotingResult();
+        for (List<String> chat : chats) {
+            VotingResult chatVotes = analyzeLines(chat);
+            votes.usFormatVotes += chatVotes.usFormatVotes;
+            votes.brFormatVotes += chatVotes.brFormatVotes;
+            votes.decisiveVotes += chatVotes.decisiveVotes;
+        }
+        return votes;
+    }
+
+    /**
+     * @return How many date tokens of the line the format detection would look at
+     */
+    static int countDateTokens(String line) {
+        int count = 0;
+        Matcher matcher = DATE_PATTERN.matcher(line);
+        while (matcher.find()) {
+            count++;
+        }
+        return count;
+    }
+
     private static VotingResult analyzeLines(List<String> lines) {
         VotingResult result = new VotingResult();
         int analyzedLines = 0;
 
         for (String line : lines) {
-            if (analyzedLines >= 100) break;
+            if (analyzedLines >= FORMAT_DETECTION_SAMPLE) break;
 
             Matcher matcher = DATE_PATTERN.matcher(line);
             while (matcher.find()) {
@@ -188,6 +279,7 @@ public class DateParser {
      */
     public static void resetDetectedFormat() {
         detectedFileFormat = null;
+        clearDateTokenCache();
         // Do not reset userInputFormat - it should persist between file loads
     }
 
@@ -284,51 +376,29 @@ public class DateParser {
     }
 
     /**
-     * Parse a date from a line text (for WhatsApp and similar formats)
+     * Epoch day of {@code line[start, end)} if that is the last date token parsed with this format.
+     * Lets the line scanner answer repeated dates with a single region comparison.
+     *
+     * @return The cached epoch day (possibly {@link LineParser#NO_DATE}), or {@link #UNCACHED_DAY}
      */
-    public static LocalDate parseLineDate(String datePart) {
-        try {
-            return parseWithFormat(datePart, getCurrentDateFormat());
-        } catch (NumberFormatException | DateTimeParseException e) {
-            // Try the opposite format as fallback
-            try {
-                DateFormat oppositeFormat = getCurrentDateFormat() == DateFormat.BR_FORMAT 
-                    ? DateFormat.US_FORMAT : DateFormat.BR_FORMAT;
-                return parseWithFormat(datePart, oppositeFormat);
-            } catch (Exception ignored) {
-                // Both approaches failed
-            }
-        } catch (Exception ignored) {
-            // Any other exception
+    static int lookupEpochDay(String line, int start, int end, DateFormat format) {
+        ParsedToken last = lastParsedToken.get();
+        if (last != null && last.generation == tokenCacheGeneration && last.format == format
+                && last.token.length() == end - start && line.regionMatches(start, last.token, 0, end - start)) {
+            return last.epochDay;
         }
-        return null;
+        return UNCACHED_DAY;
     }
 
     /**
-     * Helper method to parse date string with a specific format
+     * Records the epoch day the line scanner computed for {@code line[start, end)}.
      */
-    private static LocalDate parseWithFormat(String datePart, DateFormat format) {
-        String[] parts = datePart.split("/");
-        if (parts.length == 3) {
-            int first = Integer.parseInt(parts[0]);
-            int second = Integer.parseInt(parts[1]);
-            int year = Integer.parseInt(parts[2]);
-
-            // Adjust year if it's 2 digits
-            if (year < 100) {
-                year += 2000;
-            }
+    static void rememberEpochDay(String line, int start, int end, DateFormat format, int epochDay) {
+        lastParsedToken.set(new ParsedToken(line.substring(start, end), format, epochDay, tokenCacheGeneration));
+    }
 
-            // Apply the specified format
-            if (format == DateFormat.BR_FORMAT) {
-                // Brazilian format: day/month/year
-                return LocalDate.of(year, second, first);
-            } else {
-                // US format: month/day/year
-                return LocalDate.of(year, first, second);
-            }
-        }
-        throw new NumberFormatException("Invalid date parts");
+    private static synchronized void clearDateTokenCache() {
+        tokenCacheGeneration++;
     }
 
     /**
@@ -377,6 +447,7 @@ public class DateParser {
      */
     public static void setUserInputFormat(DateFormat format) {
         userInputFormat = format;
+        clearDateTokenCache();
         System.out.println("User input date format set to: " + userInputFormat);
     }
 }
\ No newline at end of file
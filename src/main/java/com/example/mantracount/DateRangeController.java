@@ -148,7 +148,7 @@ public class DateRangeController {
 
         // Handle missing start date - find earliest date in file
         if (startDate == null) {
-            LocalDate earliestDate = findEarliestDate(data.getLines());
+            LocalDate earliestDate = data.getLineFacts().getEarliestDate();
 
             if (earliestDate != null) {
                 startDate = earliestDate;
@@ -169,20 +169,4 @@ public class DateRangeController {
 
         return new LocalDate[] { startDate, endDate };
     }
-
-    /**
-     * Finds the earliest date in a list of lines.
-     * @param lines The lines to scan for dates
-     * @return The earliest date found or null if none found
-     */
-    private LocalDate findEarliestDate(List<String> lines) {
-        LocalDate earliestDate = null;
-        for (String line : lines) {
-            LocalDate lineDate = LineParser.extractDate(line);
-            if (lineDate != null && (earliestDate == null || lineDate.isBefore(earliestDate))) {
-                earliestDate = lineDate;
-            }
-        }
-        return earliestDate;
-    }
 }
\ No newline at end of file
@@ -0,0 +1,423 @@
+package com.example.mantracount;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Append-only journal of line edits kept beside an export ("chat.txt.mcjournal").
+ *
+ * Saving an edit appends one record (line number, old text, new text, time) and forces it
+ * to disk, so a save costs as much as the edit instead of a rewrite of the whole file.
+ * The journal is replayed over the file when it is loaded, and a background compactor
+ * folds it into the file some time after the last save: the file is rebuilt from disk
+ * (file + journal), replaced atomically, and only then are the folded records dropped.
+ *
+ * Records carry a checksum, so a save cut short by a crash leaves a torn last record that
+ * replay ignores; every record before it is kept. A record is only replayed where a line
+ * still holds its old text: at its own line, or wherever that text moved to when lines were
+ * added above it or a newer export was put in place. Records whose old text is gone are
+ * kept in the journal by compaction and reported on load, never dropped silently.
+ */
+public final class EditJournal {
+
+    private static final String SUFFIX = ".mcjournal";
+    private static final int MAGIC = 0x4D434A31; // "MCJ1"
+
+    // Compaction runs this long after the last save, so bursts of saves are folded together
+    private static final long COMPACT_DELAY_SECONDS = 30;
+
+    // Held briefly by appends, replays and the compactor's snapshot/trim of the journal
+    private static final Object JOURNAL_LOCK = new Object();
+    // Held while the base file is rewritten, by the compactor or a full save
+    private static final Object BASE_LOCK = new Object();
+
+    private static final ScheduledExecutorService COMPACTOR = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "edit-journal-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final Map<Path, Boolean> scheduled = new ConcurrentHashMap<>();
+
+    private EditJournal() {
+        // Utility class - prevent instantiation
+    }
+
+    /**
+     * One edited line.
+     */
+    public static final class Edit {
+        private final int line;
+        private final String oldText;
+        private final String newText;
+        private final long timestamp;
+
+        public Edit(int line, String oldText, String newText, long timestamp) {
+            this.line = line;
+            this.oldText = oldText;
+            this.newText = newText;
+            this.timestamp = timestamp;
+        }
+
+        public int getLine() { return line; }
+        public String getOldText() { return oldText; }
+        public String getNewText() { return newText; }
+        public long getTimestamp() { return timestamp; }
+    }
+
+    /**
+     * @param basePath The export the edits belong to (the .zip for zipped chats)
+     * @return Where that export's journal lives
+     */
+    public static Path journalFor(String basePath) {
+        return Paths.get(basePath + SUFFIX);
+    }
+
+    /**
+     * Appends the edits to the journal and forces them to disk.
+     *
+     * @param journal The journal file, created if missing
+     * @param edits The edits, in the order they were made
+     * @throws IOException If the records cannot be written
+     */
+    public static void append(Path journal, List<Edit> edits) throws IOException {
+        if (edits.isEmpty()) {
+            return;
+        }
+        synchronized (JOURNAL_LOCK) {
+            try (FileChannel channel = FileChannel.open(journal, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                ByteBuffer records = encode(edits, channel.size() == 0);
+                while (records.hasRemaining()) {
+                    channel.write(records);
+                }
+                channel.force(true);
+            }
+        }
+    }
+
+    /**
+     * Replays a journal over freshly loaded lines.
+     *
+     * @param journal The journal file; nothing happens if it doesn't exist
+     * @param lines The lines to update in place
+     * @return Number of edits applied
+     * @throws IOException If the journal cannot be read
+     */
+    public static int replay(Path journal, List<String> lines) throws IOException {
+        return replay(journal, lines, null);
+    }
+
+    /**
+     * Replays a journal over freshly loaded lines, collecting the edits that no line matches.
+     *
+     * @param journal The journal file; nothing happens if it doesn't exist
+     * @param lines The lines to update in place
+     * @param skipped Receives the edits whose old text is in none of the lines, or null
+     * @return Number of edits applied
+     * @throws IOException If the journal cannot be read
+     */
+    public static int replay(Path journal, List<String> lines, List<Edit> skipped) throws IOException {
+        byte[] content;
+        synchronized (JOURNAL_LOCK) {
+            if (!Files.exists(journal)) {
+                return 0;
+            }
+            content = Files.readAllBytes(journal);
+            int intact = foldedLength(content);
+            if (intact < content.length) {
+                // A save was cut short: drop the torn record (or the torn header of a new journal)
+                // so later appends stay readable
+                try (FileChannel channel = FileChannel.open(journal, StandardOpenOption.WRITE)) {
+                    channel.truncate(intact);
+                    channel.force(true);
+                }
+            }
+        }
+        return apply(decode(content, content.length), lines, skipped);
+    }
+
+    /**
+     * Folds the journal into its export some time from now, unless a compaction is already waiting.
+     */
+    public static void scheduleCompaction(Path base) {
+        if (scheduled.putIfAbsent(base, Boolean.TRUE) == null) {
+            COMPACTOR.schedule(() -> {
+                scheduled.remove(base);
+                try {
+                    compact(base);
+                } catch (Exception e) {
+                    // The journal is still there and replays on load; try again after the next save
+                    System.err.println("Journal compaction failed for " + base + ": " + e.getMessage());
+                }
+            }, COMPACT_DELAY_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Folds the journal into its export: the export is rebuilt from disk with the journaled
+     * edits applied and atomically replaced, then the folded records are dropped from the journal.
+     * Records appended while this runs stay in the journal for the next compaction, and so do
+     * records that matched no line, to be reported when the file is loaded.
+     *
+     * @param base The export (.txt, or .zip of chats)
+     * @throws IOException If the export or journal cannot be read or written
+     */
+    public static void compact(Path base) throws IOException {
+        Path journal = journalFor(base.toString());
+        synchronized (BASE_LOCK) {
+            byte[] content;
+            synchronized (JOURNAL_LOCK) {
+                if (!Files.exists(journal)) {
+                    return;
+                }
+                content = Files.readAllBytes(journal);
+            }
+            int folded = foldedLength(content);
+
+            List<Edit> edits = decode(content, folded);
+            List<Edit> unapplied = new ArrayList<>();
+            if (!edits.isEmpty()) {
+                writeBase(base, edits, unapplied);
+            }
+
+            synchronized (JOURNAL_LOCK) {
+                byte[] current = Files.readAllBytes(journal);
+                if (current.length <= folded && unapplied.isEmpty()) {
+                    Files.delete(journal);
+                } else {
+                    // Keep the edits that matched no line and what was appended meanwhile, under a fresh header
+                    Path tail = journal.resolveSibling(journal.getFileName() + ".tmp");
+                    ByteBuffer kept = encode(unapplied, true);
+                    int appended = Math.max(current.length - folded, 0);
+                    ByteBuffer rest = ByteBuffer.allocate(kept.remaining() + appended);
+                    rest.put(kept).put(current, folded, appended).flip();
+                    try (FileChannel channel = FileChannel.open(tail, StandardOpenOption.CREATE,
+                            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                        while (rest.hasRemaining()) {
+                            channel.write(rest);
+                        }
+                        channel.force(true);
+                    }
+                    moveAtomically(tail, journal);
+                }
+            }
+            if (!unapplied.isEmpty()) {
+                System.err.println(unapplied.size() + " journaled edits match no line of " + base.getFileName()
+                        + " any more, kept in the journal");
+            }
+        }
+    }
+
+    /**
+     * Runs a full rewrite of the export, which then holds every edit, and drops the journal.
+     * Serialized with the compactor so the two never write the export at the same time.
+     */
+    public static void replaceBase(Path base, BaseWriter writer) throws IOException {
+        synchronized (BASE_LOCK) {
+            writer.write();
+            synchronized (JOURNAL_LOCK) {
+                Files.deleteIfExists(journalFor(base.toString()));
+            }
+        }
+    }
+
+    /**
+     * A full rewrite of the export.
+     */
+    @FunctionalInterface
+    public interface BaseWriter {
+        void write() throws IOException;
+    }
+
+    /**
+     * Replaces {@code target} with {@code source}, atomically where the file system allows it.
+     */
+    static void moveAtomically(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void writeBase(Path base, List<Edit> edits, List<Edit> unapplied) throws IOException {
+        boolean isZipFile = base.getFileName().toString().toLowerCase().endsWith(StringConstants.ZIP_EXTENSION);
+        if (isZipFile) {
+            List<String> lines = new ArrayList<>();
+            List<ZipChatArchive.ChatEntry> chats = new ArrayList<>();
+            try (ZipFile zip = new ZipFile(base.toFile())) {
+                for (ZipEntry entry : ZipChatArchive.findTxtEntries(zip)) {
+                    try (MappedLineFile chat = MappedLineFile.wrap(ZipChatArchive.readEntry(zip, entry))) {
+                        List<String> chatLines = chat.readAllLines();
+                        chats.add(new ZipChatArchive.ChatEntry(entry.getName(), chat.getDetectedCharset(),
+                                lines.size(), chatLines.size()));
+                        lines.addAll(chatLines);
+                    }
+                }
+            }
+            apply(edits, lines, unapplied);
+            FileEditSaver.updateZipEntries(base.toString(), lines, chats);
+        } else {
+            List<String> lines;
+            Charset charset;
+            try (MappedLineFile file = MappedLineFile.open(base)) {
+                lines = file.readAllLines();
+                charset = file.getDetectedCharset();
+            }
+            apply(edits, lines, unapplied);
+            FileEditSaver.saveToFileAtomically(lines, base.toString(), charset);
+        }
+    }
+
+    /**
+     * Applies the edits in order, each at its own line or, if that line moved, wherever its old
+     * text is now. An edit already in the lines (folded before the journal was trimmed) is passed over.
+     *
+     * @param skipped Receives the edits whose old text is in none of the lines, or null
+     * @return Number of edits applied
+     */
+    private static int apply(List<Edit> edits, List<String> lines, List<Edit> skipped) {
+        int applied = 0;
+        for (Edit edit : edits) {
+            int line = edit.line;
+            boolean inRange = line >= 0 && line < lines.size();
+            if (!inRange || !lines.get(line).equals(edit.oldText)) {
+                if (inRange && lines.get(line).equals(edit.newText)) {
+                    continue;
+                }
+                line = lines.indexOf(edit.oldText);
+            }
+            if (line == -1) {
+                if (skipped != null) {
+                    skipped.add(edit);
+                }
+                continue;
+            }
+            lines.set(line, edit.newText);
+            applied++;
+        }
+        return applied;
+    }
+
+    // Record: length, CRC32 of the body, then the body: time, line, old text, new text
+    private static ByteBuffer encode(List<Edit> edits, boolean withHeader) {
+        List<byte[]> bodies = new ArrayList<>(edits.size());
+        int size = withHeader ? Integer.BYTES : 0;
+        for (Edit edit : edits) {
+            byte[] oldBytes = edit.oldText.getBytes(StandardCharsets.UTF_8);
+            byte[] newBytes = edit.newText.getBytes(StandardCharsets.UTF_8);
+            ByteBuffer body = ByteBuffer.allocate(Long.BYTES + 3 * Integer.BYTES + oldBytes.length + newBytes.length);
+            body.putLong(edit.timestamp).putInt(edit.line)
+                    .putInt(oldBytes.length).put(oldBytes)
+                    .putInt(newBytes.length).put(newBytes);
+            bodies.add(body.array());
+            size += 2 * Integer.BYTES + body.capacity();
+        }
+
+        ByteBuffer records = ByteBuffer.allocate(size);
+        if (withHeader) {
+            records.putInt(MAGIC);
+        }
+        CRC32 crc = new CRC32();
+        for (byte[] body : bodies) {
+            crc.reset();
+            crc.update(body);
+            records.putInt(body.length).putInt((int) crc.getValue()).put(body);
+        }
+        return records.flip();
+    }
+
+    /**
+     * Decodes the records in the first {@code length} bytes, stopping at the first torn or corrupt one.
+     */
+    private static List<Edit> decode(byte[] content, int length) {
+        List<Edit> edits = new ArrayList<>();
+        ByteBuffer in = ByteBuffer.wrap(content, 0, length);
+        if (in.remaining() < Integer.BYTES || in.getInt() != MAGIC) {
+            return edits;
+        }
+        CRC32 crc = new CRC32();
+        while (in.remaining() >= 2 * Integer.BYTES) {
+            int bodyLength = in.getInt();
+            int checksum = in.getInt();
+            if (bodyLength < Long.BYTES + 3 * Integer.BYTES || bodyLength > in.remaining()) {
+                break;
+            }
+            crc.reset();
+            crc.update(content, in.position(), bodyLength);
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            ByteBuffer body = in.slice(in.position(), bodyLength);
+            in.position(in.position() + bodyLength);
+
+            long timestamp = body.getLong();
+            int line = body.getInt();
+            String oldText = readText(body);
+            String newText = readText(body);
+            if (oldText == null || newText == null) {
+                break;
+            }
+            edits.add(new Edit(line, oldText, newText, timestamp));
+        }
+        return edits;
+    }
+
+    /**
+     * @return Length of the header plus every whole, intact record
+     */
+    private static int foldedLength(byte[] content) {
+        ByteBuffer in = ByteBuffer.wrap(content);
+        if (in.remaining() < Integer.BYTES || in.getInt() != MAGIC) {
+            return 0;
+        }
+        CRC32 crc = new CRC32();
+        while (in.remaining() >= 2 * Integer.BYTES) {
+            int start = in.position();
+            int bodyLength = in.getInt();
+            int checksum = in.getInt();
+            if (bodyLength < 0 || bodyLength > in.remaining()) {
+                return start;
+            }
+            crc.reset();
+            crc.update(content, in.position(), bodyLength);
+            if ((int) crc.getValue() != checksum) {
+                return start;
+            }
+            in.position(in.position() + bodyLength);
+        }
+        return in.position();
+    }
+
+    private static String readText(ByteBuffer body) {
+        if (body.remaining() < Integer.BYTES) {
+            return null;
+        }
+        int length = body.getInt();
+        if (length < 0 || length > body.remaining()) {
+            return null;
+        }
+        String text = new String(body.array(), body.arrayOffset() + body.position(), length, StandardCharsets.UTF_8);
+        body.position(body.position() + length);
+        return text;
+    }
+}
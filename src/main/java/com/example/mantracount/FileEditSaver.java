@@ -1,30 +1,92 @@
 package com.example.mantracount;
 
 import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.List;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
-import java.util.zip.ZipOutputStream;
+import java.util.Map;
 
 public class FileEditSaver {
 
+    private static final int ZIP_WRITE_BUFFER = 64 * 1024;
+
     public static void saveToFile(List<String> lines, String filePath) throws IOException {
+        saveToFile(lines, filePath, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Saves the lines in the encoding the file was read in.
+     *
+     * @param lines The lines to write
+     * @param filePath The file to overwrite (a .bak copy is kept)
+     * @param charset The file's original encoding
+     * @throws IOException If the file cannot be written
+     */
+    public static void saveToFile(List<String> lines, String filePath, Charset charset) throws IOException {
         try {
             // Create backup first
             createBackup(filePath);
 
             // Write the updated content
-            Files.write(Paths.get(filePath), lines, StandardCharsets.UTF_8);
+            Files.write(Paths.get(filePath), lines, writableCharset(lines, charset));
+        } catch (IOException e) {
+            throw new IOException("Failed to save changes: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Saves the lines to a temp file beside the original, forces it to disk and moves it over
+     * the original, so a crash leaves either the old file or the new one, never half of one.
+     *
+     * @param lines The lines to write
+     * @param filePath The file to replace (the old one is kept as .bak)
+     * @param charset The file's original encoding
+     * @throws IOException If the file cannot be written
+     */
+    public static void saveToFileAtomically(List<String> lines, String filePath, Charset charset) throws IOException {
+        Path path = Paths.get(filePath);
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            Files.write(temp, lines, writableCharset(lines, charset));
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                channel.force(true);
+            }
+            createLinkedBackup(path);
+            EditJournal.moveAtomically(temp, path);
         } catch (IOException e) {
+            Files.deleteIfExists(temp);
             throw new IOException("Failed to save changes: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * An edit may bring in characters a single-byte encoding can't hold (emoji, for
+     * instance); rather than failing the save, such files are written as UTF-8.
+     */
+    private static Charset writableCharset(List<String> lines, Charset charset) {
+        if (charset.equals(StandardCharsets.UTF_8) || !charset.canEncode()) {
+            return StandardCharsets.UTF_8;
+        }
+        CharsetEncoder encoder = charset.newEncoder();
+        for (String line : lines) {
+            if (!encoder.canEncode(line)) {
+                return StandardCharsets.UTF_8;
+            }
+        }
+        return charset;
+    }
+
     private static void createBackup(String filePath) throws IOException {
         Path path = Paths.get(filePath);
         if (Files.exists(path)) {
@@ -34,55 +96,116 @@ public class FileEditSaver {
     }
 
 
-    public static void updateZipFile(String zipFilePath, String extractedFilePath, List<String> updatedLines, String originalEntryName) throws IOException {
-        // Create a temporary file for the new ZIP
-        Path tempZipPath = Files.createTempFile("updated_", ".zip");
-
-        try (ZipInputStream zis = new ZipInputStream(new FileInputStream(zipFilePath));
-             ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(tempZipPath.toFile()))) {
-
-            ZipEntry entry;
-            byte[] buffer = new byte[1024];
-            boolean fileFound = false;
-
-            while ((entry = zis.getNextEntry()) != null) {
-                // Create a new entry for the output ZIP
-                ZipEntry newEntry = new ZipEntry(entry.getName());
-                zos.putNextEntry(newEntry);
-
-                // If this is the file we're updating - use exact entry name match
-                if (originalEntryName != null && entry.getName().equals(originalEntryName)) {
-                    // Write the updated content
-                    String content = String.join(System.lineSeparator(), updatedLines);
-                    zos.write(content.getBytes(StandardCharsets.UTF_8));
-                    fileFound = true;
-                } else {
-                    // Copy the existing content for other files
-                    int len;
-                    while ((len = zis.read(buffer)) > 0) {
-                        zos.write(buffer, 0, len);
-                    }
-                }
+    public static void updateZipFile(String zipFilePath, List<String> updatedLines, String originalEntryName) throws IOException {
+        updateZipFile(zipFilePath, updatedLines, originalEntryName, StandardCharsets.UTF_8);
+    }
 
-                zos.closeEntry();
-                zis.closeEntry();
-            }
+    /**
+     * Rewrites the zip with the updated entry, in the encoding the entry was read in.
+     *
+     * The archive is opened as a zip file system, which on close copies every untouched
+     * entry's compressed bytes as they are (keeping their timestamps and compression
+     * methods); only the chat entry is compressed again, streamed straight from the lines.
+     */
+    public static void updateZipFile(String zipFilePath, List<String> updatedLines,
+                                     String originalEntryName, Charset charset) throws IOException {
+        if (originalEntryName == null) {
+            return;
+        }
+        Charset entryCharset = writableCharset(updatedLines, charset);
+        Path zipPath = Paths.get(zipFilePath);
 
-            // If we didn't find the file in the ZIP, add it with its original path
-            if (!fileFound && originalEntryName != null) {
-                ZipEntry newEntry = new ZipEntry(originalEntryName);
-                zos.putNextEntry(newEntry);
-                String content = String.join(System.lineSeparator(), updatedLines);
-                zos.write(content.getBytes(StandardCharsets.UTF_8));
-                zos.closeEntry();
-            }
+        // Create backup of original ZIP
+        createLinkedBackup(zipPath);
+
+        try (FileSystem zipFs = FileSystems.newFileSystem(zipPath, Map.of())) {
+            writeEntry(zipFs.getPath(originalEntryName), updatedLines, entryCharset);
+        } catch (IOException e) {
+            throw new IOException("Failed to update zip file: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Saves the lines of a zip bundling several chats back into their own entries, each in
+     * the encoding it was read in. Chats whose lines didn't change are left untouched.
+     *
+     * @param zipFilePath The zip archive
+     * @param lines All chats' lines, joined in archive order
+     * @param chats Where each chat sits in the lines
+     * @throws IOException If the archive cannot be updated
+     */
+    public static void updateZipEntries(String zipFilePath, List<String> lines,
+                                        List<ZipChatArchive.ChatEntry> chats) throws IOException {
+        if (chats.isEmpty() || chats.get(chats.size() - 1).getEndLine() != lines.size()) {
+            throw new IOException("The lines no longer match the chats of " + zipFilePath + ", reload the file");
         }
+        Path zipPath = Paths.get(zipFilePath);
 
         // Create backup of original ZIP
-        createBackup(zipFilePath);
+        createLinkedBackup(zipPath);
+
+        try (FileSystem zipFs = FileSystems.newFileSystem(zipPath, Map.of())) {
+            for (ZipChatArchive.ChatEntry chat : chats) {
+                List<String> chatLines = lines.subList(chat.getFirstLine(), chat.getEndLine());
+                Path entry = zipFs.getPath(chat.getName());
+                if (Files.exists(entry) && hasLines(Files.readAllBytes(entry), chatLines, chat.getCharset())) {
+                    continue;
+                }
+                writeEntry(entry, chatLines, writableCharset(chatLines, chat.getCharset()));
+            }
+        } catch (IOException e) {
+            throw new IOException("Failed to update zip file: " + e.getMessage(), e);
+        }
+    }
+
+    private static boolean hasLines(byte[] content, List<String> lines, Charset charset) {
+        try (MappedLineFile current = MappedLineFile.wrap(content)) {
+            return current.readAllLines(charset).equals(lines);
+        } catch (CharacterCodingException e) {
+            return false;
+        }
+    }
 
-        // Replace the original ZIP with our updated one
-        Files.move(tempZipPath, Paths.get(zipFilePath), StandardCopyOption.REPLACE_EXISTING);
+    /**
+     * Streams the lines into a zip entry, creating it (and its folders) if it isn't there.
+     */
+    private static void writeEntry(Path entry, List<String> lines, Charset charset) throws IOException {
+        // If the file isn't in the ZIP any more, add it with its original path
+        if (entry.getParent() != null) {
+            Files.createDirectories(entry.getParent());
+        }
+        // Replace what can't be encoded, like getBytes did: throwing mid-stream would still close
+        // the entry and the zip file system, committing a truncated chat into the archive
+        CharsetEncoder encoder = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(
+                Files.newOutputStream(entry), encoder), ZIP_WRITE_BUFFER)) {
+            for (int i = 0; i < lines.size(); i++) {
+                if (i > 0) {
+                    writer.write(System.lineSeparator());
+                }
+                writer.write(lines.get(i));
+            }
+        }
+    }
+
+    /**
+     * For files that are replaced by moving a new file over them (the zip file system does
+     * that too): a hard link keeps the old file as the backup without copying a media export.
+     * Falls back to a copy where links aren't supported.
+     */
+    private static void createLinkedBackup(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        Path backup = path.resolveSibling(path.getFileName() + ".bak");
+        Files.deleteIfExists(backup);
+        try {
+            Files.createLink(backup, path);
+        } catch (IOException | UnsupportedOperationException e) {
+            Files.copy(path, backup, StandardCopyOption.REPLACE_EXISTING);
+        }
     }
 
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.example.mantracount;
 
+import javafx.application.Platform;
 import javafx.scene.control.Label;
 import javafx.scene.control.TextArea;
 import javafx.scene.control.TextField;
@@ -8,16 +9,18 @@ import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
+import java.nio.charset.Charset;
 import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
+import java.util.zip.ZipFile;
 
 public class FileLoader {
 
@@ -56,28 +59,11 @@ public class FileLoader {
                 mantraData.setOriginalZipPath(isZipFile ? selectedFile.getAbsolutePath() : null);
 
                 if (isZipFile) {
-                    // If zip file, extract first txt and read lines
-                    ExtractedFileInfo extractInfo = extractFirstTxtFromZip(selectedFile);
-                    File extractedFile = extractInfo.getExtractedFile();
-
-                    // Store the original ZIP entry name
-                    mantraData.setOriginalZipEntryName(extractInfo.getOriginalEntryName());
-
-                    List<String> fileLines = robustReadLines(extractedFile.toPath());
-                    mantraData.setLines(fileLines);
-
-                    // Detect date format
-                    DateParser.detectDateFormat(fileLines);
-
-                    // Keep original zip path but set file path to extracted file
-                    mantraData.setFilePath(extractedFile.getAbsolutePath());
+                    // If zip file, read the first txt entry straight from the archive
+                    warnIfMixedDateFormats(loadZipInto(selectedFile, mantraData));
                 } else {
                     // If regular txt file, read lines directly
-                    List<String> fileLines = robustReadLines(selectedFile.toPath());
-                    mantraData.setLines(fileLines);
-
-                    // Detect date format
-                    DateParser.detectDateFormat(fileLines);
+                    loadInto(selectedFile.toPath(), mantraData);
                 }
 
 
@@ -100,63 +86,255 @@ public class FileLoader {
 
     // Read file lines with robust handling for different encodings
     public static List<String> robustReadLines(Path filePath) throws IOException {
-        try {
-            return Files.readAllLines(filePath, StandardCharsets.UTF_8);
+        return loadText(filePath).getLines();
+    }
+
+    /**
+     * Reads a file's lines along with the encoding they were decoded from.
+     * The encoding (BOM, valid UTF-8, Windows-1252 or ISO-8859-1) is found while the
+     * memory-mapped file is indexed, so the bytes are decoded only once.
+     *
+     * @param filePath The file to read
+     * @return The lines and their encoding
+     * @throws IOException If the file cannot be read
+     */
+    public static LoadedText loadText(Path filePath) throws IOException {
+        try (MappedLineFile mapped = MappedLineFile.open(filePath)) {
+            return new LoadedText(mapped.readAllLines(), mapped.getDetectedCharset());
         } catch (IOException e) {
-            // Try with different encoding if UTF-8 fails
+            throw new IOException("Failed to read file " + filePath.getFileName() + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Decodes a file's content already in memory, detecting its encoding like {@link #loadText}.
+     */
+    public static LoadedText decode(byte[] bytes) throws IOException {
+        try (MappedLineFile content = MappedLineFile.wrap(bytes)) {
+            return new LoadedText(content.readAllLines(), content.getDetectedCharset());
+        }
+    }
+
+    /**
+     * Loads a file into the mantra data: detects the date format, indexes the lines and
+     * remembers the encoding so edits are saved back in it.
+     *
+     * @return The loaded lines
+     */
+    public static List<String> loadInto(Path filePath, MantraData mantraData) throws IOException {
+        LoadedText text = loadText(filePath);
+        int replayed = replayJournal(filePath.toString(), text.getLines(), mantraData);
+        // Detect date format before the line facts are indexed
+        DateParser.detectDateFormat(text.getLines());
+
+        // Opened before and unchanged since: reuse what parsing and counting found then
+        ParseSnapshot snapshot = replayed == 0 ? ParseSnapshot.open(filePath, text.getLines()) : null;
+
+        mantraData.setZipChatEntries(null);
+        mantraData.setCorpus(null);
+        mantraData.setFileCharset(text.getCharset());
+        mantraData.setLines(text.getLines(), snapshot != null ? snapshot.getFacts() : null);
+        mantraData.setParseSnapshot(snapshot);
+        return text.getLines();
+    }
+
+    /**
+     * Reads every .txt entry of a zip into memory, without extracting anything to disk.
+     * Archives bundling several exports have their chats decompressed and decoded concurrently
+     * on a pool no larger than the number of cores.
+     *
+     * @param zipFile The zip archive
+     * @return The entries' names and decoded lines, in archive order
+     * @throws IOException If the archive cannot be read or has no .txt entry
+     */
+    public static List<ZipTextEntry> readTxtEntriesFromZip(File zipFile) throws IOException {
+        try (ZipFile zip = new ZipFile(zipFile)) {
+            List<ZipEntry> entries = ZipChatArchive.findTxtEntries(zip);
+            if (entries.size() == 1) {
+                return List.of(readEntry(zip, entries.get(0)));
+            }
+
+            int threads = Math.min(entries.size(), Runtime.getRuntime().availableProcessors());
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
             try {
-                return Files.readAllLines(filePath, StandardCharsets.ISO_8859_1);
-            } catch (IOException e2) {
-                throw new IOException("Failed to read file with UTF-8 and ISO-8859-1 encodings", e);
+                List<Future<ZipTextEntry>> pending = new ArrayList<>();
+                for (ZipEntry entry : entries) {
+                    pending.add(executor.submit(() -> readEntry(zip, entry)));
+                }
+                List<ZipTextEntry> chats = new ArrayList<>();
+                for (Future<ZipTextEntry> future : pending) {
+                    chats.add(future.get());
+                }
+                return chats;
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                throw cause instanceof IOException ? (IOException) cause : new IOException(cause.getMessage(), cause);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while reading the zip archive", e);
+            } finally {
+                executor.shutdownNow();
             }
         }
     }
 
-    // Extract text from .zip files
-    public static ExtractedFileInfo extractFirstTxtFromZip(File zipFile) throws Exception {
-        Path tempDir = Files.createTempDirectory("mantracount_temp");
-        try (ZipInputStream zis = new ZipInputStream(new FileInputStream(zipFile))) {
-            ZipEntry entry;
-            while ((entry = zis.getNextEntry()) != null) {
-                String entryName = entry.getName().toLowerCase();
-                if (!entry.isDirectory() && entryName.endsWith(StringConstants.TXT_EXTENSION)) {
-                    // Save the original entry name with original case
-                    String originalEntryName = entry.getName();
-
-                    // Get just the filename part
-                    String fileName = Paths.get(entry.getName()).getFileName().toString();
-                    Path extractedFilePath = tempDir.resolve(fileName);
-
-                    // Copy the file content
-                    Files.copy(zis, extractedFilePath);
-
-                    // Add shutdown hook to clean up temp files
-                    Runtime.getRuntime().addShutdownHook(new Thread(() -> {
-                        try {
-                            Files.deleteIfExists(extractedFilePath);
-                            Files.deleteIfExists(tempDir);
-                        } catch (IOException e) {
-                            // Silent cleanup
-                        }
-                    }));
-
-                    return new ExtractedFileInfo(extractedFilePath.toFile(), originalEntryName);
+    private static ZipTextEntry readEntry(ZipFile zip, ZipEntry entry) throws IOException {
+        return new ZipTextEntry(entry.getName(), decode(ZipChatArchive.readEntry(zip, entry)));
+    }
+
+    /**
+     * Joins the chats of a zip into one list of lines, recording where each chat sits so
+     * edits can be saved back into the right entry.
+     *
+     * @return All lines, in archive order, with the first chat's encoding
+     */
+    public static LoadedText joinZipEntries(List<ZipTextEntry> entries, MantraData mantraData) {
+        List<String> lines = new ArrayList<>();
+        List<ZipChatArchive.ChatEntry> chats = new ArrayList<>();
+        for (ZipTextEntry entry : entries) {
+            List<String> entryLines = entry.getText().getLines();
+            chats.add(new ZipChatArchive.ChatEntry(entry.getEntryName(), entry.getText().getCharset(),
+                    lines.size(), entryLines.size()));
+            lines.addAll(entryLines);
+        }
+        mantraData.setZipChatEntries(chats);
+        mantraData.setOriginalZipEntryName(entries.get(0).getEntryName());
+        return new LoadedText(lines, entries.get(0).getText().getCharset());
+    }
+
+    /**
+     * Applies the edits saved to the file's journal since it was last compacted, so the lines
+     * are what the user last saved. Saved edits whose line can't be found any more (the file
+     * was replaced by an export without it) stay in the journal and the user is told about them.
+     *
+     * @param basePath The loaded file (the .zip for zipped chats)
+     * @param lines The freshly loaded lines, updated in place
+     * @return Number of edits applied
+     */
+    public static int replayJournal(String basePath, List<String> lines, MantraData mantraData) throws IOException {
+        mantraData.getUnsavedEdits().clear();
+        List<EditJournal.Edit> skipped = new ArrayList<>();
+        int applied = EditJournal.replay(EditJournal.journalFor(basePath), lines, skipped);
+        if (!skipped.isEmpty()) {
+            StringBuilder edits = new StringBuilder();
+            for (EditJournal.Edit edit : skipped) {
+                System.err.println("Saved edit matches no line: " + edit.getOldText() + " -> " + edit.getNewText());
+                if (edits.length() < 2_000) {
+                    edits.append("\n").append(edit.getNewText());
                 }
             }
+            String english = String.format(StringConstants.JOURNAL_EDITS_SKIPPED_EN, skipped.size()) + edits;
+            String portuguese = String.format(StringConstants.JOURNAL_EDITS_SKIPPED_PT, skipped.size()) + edits;
+            // Loading may run off the FX thread (watched file, missing days)
+            Platform.runLater(() -> UIUtils.showWarning(english, portuguese));
+        }
+        return applied;
+    }
+
+    /**
+     * Loads every chat of a zip into the mantra data. Edits are saved back into the archive,
+     * so the data's file path is the zip itself.
+     *
+     * @return The loaded entries
+     */
+    public static List<ZipTextEntry> loadZipInto(File zipFile, MantraData mantraData) throws IOException {
+        List<ZipTextEntry> entries = readTxtEntriesFromZip(zipFile);
+        // Detect the date format per chat before they are joined, see hasMixedDateFormats
+        List<List<String>> chats = new ArrayList<>();
+        for (ZipTextEntry entry : entries) {
+            chats.add(entry.getText().getLines());
+        }
+        DateParser.detectDateFormatOfChats(chats);
+
+        LoadedText text = joinZipEntries(entries, mantraData);
+        replayJournal(zipFile.getAbsolutePath(), text.getLines(), mantraData);
+        mantraData.setFromZip(true);
+        mantraData.setCorpus(null);
+        mantraData.setOriginalZipPath(zipFile.getAbsolutePath());
+        mantraData.setFilePath(zipFile.getAbsolutePath());
+        mantraData.setFileCharset(text.getCharset());
+        mantraData.setLines(text.getLines());
+        return entries;
+    }
+
+    /**
+     * Tells whether some chat of a zip writes its dates in another order than the one detected
+     * for the whole archive. The joined lines are all read with that one format, so the dates
+     * of such a chat may be read with day and month swapped.
+     */
+    public static boolean hasMixedDateFormats(List<ZipTextEntry> entries) {
+        DateParser.DateFormat format = DateParser.getCurrentDateFormat();
+        for (ZipTextEntry entry : entries) {
+            DateParser.DateFormat chatFormat = DateParser.detectChatFormat(entry.getText().getLines());
+            if (chatFormat != null && chatFormat != format) {
+                return true;
+            }
         }
-        throw new FileNotFoundException("No .txt file found in the zip archive.\n(Não há arquivo .txt no arquivo zip.)");
+        return false;
     }
-    public static class ExtractedFileInfo {
-        private final File extractedFile;
-        private final String originalEntryName;
 
-        public ExtractedFileInfo(File extractedFile, String originalEntryName) {
-            this.extractedFile = extractedFile;
-            this.originalEntryName = originalEntryName;
+    /**
+     * Warns that the chats of a zip don't agree on the date format, see {@link #hasMixedDateFormats}.
+     */
+    public static void warnIfMixedDateFormats(List<ZipTextEntry> entries) {
+        if (hasMixedDateFormats(entries)) {
+            UIUtils.showWarning(StringConstants.MIXED_DATE_FORMATS_EN, StringConstants.MIXED_DATE_FORMATS_PT);
+        }
+    }
+
+    /**
+     * Loads a folder of monthly files (and exports) as one timeline. Monthly files outside
+     * the dates are skipped; see {@link ShardCorpus}. Edits are saved back into each line's own file.
+     *
+     * @param directory The folder
+     * @param from First date wanted, or null for every month
+     * @param to Last date wanted, or null for no limit
+     * @return The folder's files, as read
+     * @throws IOException If no file could be read
+     */
+    public static ShardCorpus loadCorpusInto(Path directory, MantraData mantraData, LocalDate from, LocalDate to) throws IOException {
+        List<String> lines = new ArrayList<>();
+        ShardCorpus corpus = ShardCorpus.read(directory, from, to, lines);
+        if (corpus.getShards().isEmpty()) {
+            throw new IOException("No .txt file found in the folder.\n(Não há arquivo .txt na pasta.)");
+        }
+        mantraData.getUnsavedEdits().clear();
+
+        DateParser.detectDateFormat(lines);
+        mantraData.setFromZip(false);
+        mantraData.setOriginalZipPath(null);
+        mantraData.setZipChatEntries(null);
+        mantraData.setFilePath(directory.toAbsolutePath().toString());
+        mantraData.setFileCharset(corpus.getShards().get(0).getCharset());
+        mantraData.setCorpus(corpus);
+        mantraData.setLines(lines);
+        return corpus;
+    }
+
+    public static class LoadedText {
+        private final List<String> lines;
+        private final Charset charset;
+
+        public LoadedText(List<String> lines, Charset charset) {
+            this.lines = lines;
+            this.charset = charset;
+        }
+
+        public List<String> getLines() { return lines; }
+        public Charset getCharset() { return charset; }
+    }
+
+    public static class ZipTextEntry {
+        private final String entryName;
+        private final LoadedText text;
+
+        public ZipTextEntry(String entryName, LoadedText text) {
+            this.entryName = entryName;
+            this.text = text;
         }
 
-        public File getExtractedFile() { return extractedFile; }
-        public String getOriginalEntryName() { return originalEntryName; }
+        public String getEntryName() { return entryName; }
+        public LoadedText getText() { return text; }
     }
 
 
@@ -1,16 +1,21 @@
 package com.example.mantracount;
 
+import javafx.application.Platform;
 import javafx.geometry.Pos;
 import javafx.scene.control.Button;
+import javafx.scene.control.CheckBox;
 import javafx.scene.control.Label;
 import javafx.scene.control.TextArea;
 import javafx.scene.control.TextField;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.Priority;
 import javafx.scene.layout.VBox;
+import javafx.stage.DirectoryChooser;
 import javafx.stage.Stage;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
 import java.util.ArrayList;
@@ -24,6 +29,10 @@ public class FileManagementController {
     private final VBox mismatchesContainer;
     private final Label placeholder;
     private final TextArea resultsArea;
+    private final CheckBox watchFileCheckBox;
+    private final CheckBox lowMemoryCheckBox;
+    private LiveFileWatcher fileWatcher;
+    private Runnable onFileChanged = () -> {};
 
     public FileManagementController(Stage primaryStage, MantraData mantraData,
                                     VBox mismatchesContainer, Label placeholder, TextArea resultsArea) {
@@ -41,7 +50,16 @@ public class FileManagementController {
         Button openFileButton = UIComponentFactory.ActionButtons.createOpenFileButton();
         openFileButton.setOnAction(event -> openFile());
 
-        this.fileControlContainer = new HBox(UIComponentFactory.BUTTON_SPACING, pathField, openFileButton);
+        this.watchFileCheckBox = UIComponentFactory.createWatchFileCheckBox();
+        this.watchFileCheckBox.selectedProperty().addListener((obs, was, watching) -> updateFileWatch());
+
+        this.lowMemoryCheckBox = UIComponentFactory.createLowMemoryCheckBox();
+
+        Button openFolderButton = UIComponentFactory.ActionButtons.createOpenFolderButton();
+        openFolderButton.setOnAction(event -> openFolder());
+
+        this.fileControlContainer = new HBox(UIComponentFactory.BUTTON_SPACING, pathField, openFileButton, openFolderButton,
+                watchFileCheckBox, lowMemoryCheckBox);
         this.fileControlContainer.setAlignment(Pos.CENTER);
         HBox.setHgrow(pathField, Priority.ALWAYS);
     }
@@ -54,7 +72,15 @@ public class FileManagementController {
         return pathField;
     }
 
+    /**
+     * @param onFileChanged Run on the FX thread after the watched file changed and the data followed it
+     */
+    public void setOnFileChanged(Runnable onFileChanged) {
+        this.onFileChanged = onFileChanged;
+    }
+
     public boolean openFile() {
+        stopFileWatch();
         try {
             File selectedFile = FileLoader.openFile(
                     primaryStage,
@@ -89,6 +115,36 @@ public class FileManagementController {
         }
     }
 
+    /**
+     * Picks a folder of monthly files to read as one timeline. It is read when processed, so
+     * only the months from the start date on are read.
+     */
+    public boolean openFolder() {
+        stopFileWatch();
+        DirectoryChooser chooser = new DirectoryChooser();
+        File mantrasFolder = new File(System.getProperty("user.home") + File.separator + "Documents"
+                + File.separator + "MantraCount" + File.separator + "Mantras");
+        chooser.setInitialDirectory(mantrasFolder.isDirectory() ? mantrasFolder : new File(System.getProperty("user.home")));
+
+        File selectedFolder = chooser.showDialog(primaryStage);
+        if (selectedFolder == null) {
+            return false;
+        }
+
+        pathField.setText(selectedFolder.getAbsolutePath());
+        pathField.setStyle(UIColorScheme.getInputFieldStyle());
+        mantraData.setFilePath(selectedFolder.getAbsolutePath());
+        mantraData.setFromZip(false);
+        mantraData.setOriginalZipPath(null);
+        mantraData.setCorpus(null);
+        mantraData.setLines(new ArrayList<>());
+
+        resultsArea.clear();
+        mismatchesContainer.getChildren().clear();
+        mismatchesContainer.getChildren().add(placeholder);
+        return true;
+    }
+
     public boolean validateFilePath() {
         String text = pathField.getText();
         if (text == null || text.trim().isEmpty()) {
@@ -100,6 +156,11 @@ public class FileManagementController {
     }
 
     public boolean ensureFileLoaded() {
+        String path = pathField.getText();
+        if (path != null && !path.trim().isEmpty() && new File(path.trim()).isDirectory()) {
+            return ensureCorpusLoaded(new File(path.trim()).getAbsoluteFile());
+        }
+
         if ((mantraData.getLines() == null || mantraData.getLines().isEmpty()) &&
                 pathField.getText() != null && !pathField.getText().trim().isEmpty()) {
             try {
@@ -117,25 +178,8 @@ public class FileManagementController {
                     mantraData.setFromZip(isZipFile);
 
                     if (isZipFile) {
-                        mantraData.setOriginalZipPath(file.getAbsolutePath());
                         try {
-                            FileLoader.ExtractedFileInfo extractInfo = FileLoader.extractFirstTxtFromZip(file);
-                            File extractedFile = extractInfo.getExtractedFile();
-                            String originalEntryName = extractInfo.getOriginalEntryName();
-
-                            mantraData.setOriginalZipEntryName(originalEntryName);
-
-                            System.out.println("Extracted file: " + extractedFile.getAbsolutePath());
-                            System.out.println("Original ZIP entry: " + originalEntryName);
-
-                            List<String> lines = FileLoader.robustReadLines(extractedFile.toPath());
-                            mantraData.setLines(lines);
-                            mantraData.setFilePath(extractedFile.getAbsolutePath());
-
-                            DateParser.detectDateFormat(lines);
-
-                            System.out.println("Loaded " + lines.size() + " lines from extracted file");
-
+                            FileLoader.warnIfMixedDateFormats(FileLoader.loadZipInto(file, mantraData));
                         } catch (Exception ex) {
                             System.err.println("Error extracting from ZIP: " + ex.getMessage());
                             ex.printStackTrace();
@@ -144,14 +188,12 @@ public class FileManagementController {
                             return false;
                         }
                     } else {
-                        List<String> lines = FileLoader.robustReadLines(file.toPath());
-                        mantraData.setLines(lines);
+                        List<String> lines = FileLoader.loadInto(file.toPath(), mantraData);
                         mantraData.setFilePath(file.getAbsolutePath());
 
-                        DateParser.detectDateFormat(lines);
-
                         System.out.println("Loaded " + lines.size() + " lines from text file");
                     }
+                    updateFileWatch();
                     return true;
                 } else {
                     System.err.println("File does not exist or is not a file: " + file.getAbsolutePath());
@@ -169,6 +211,51 @@ public class FileManagementController {
         return mantraData.getLines() != null && !mantraData.getLines().isEmpty();
     }
 
+    /**
+     * @return true if "save memory" is checked and the path is a file: folders are already read month by month
+     */
+    public boolean isLowMemoryMode() {
+        String path = pathField.getText();
+        return lowMemoryCheckBox.isSelected() && path != null && new File(path.trim()).isFile();
+    }
+
+    /**
+     * Counts the file while reading it, without loading it; see {@link StreamingAnalyzer}.
+     * Any loaded lines are dropped, so the next normal run loads the file again.
+     *
+     * @return The streamed results, already copied into the mantra data
+     */
+    public StreamingAnalyzer.Result streamFile() throws IOException {
+        stopFileWatch();
+        File file = new File(pathField.getText().trim()).getAbsoluteFile();
+        StreamingAnalyzer.Result result = StreamingAnalyzer.analyze(file.toPath(),
+                mantraData.getTargetDate(), mantraData.getNameToCount());
+        result.applyTo(mantraData);
+        return result;
+    }
+
+    /**
+     * Reads the folder unless the months already read cover the dates to count.
+     */
+    private boolean ensureCorpusLoaded(File directory) {
+        ShardCorpus corpus = mantraData.getCorpus();
+        if (corpus != null && corpus.getDirectory().equals(directory.toPath()) && !mantraData.getLines().isEmpty()
+                && corpus.covers(mantraData.getTargetDate(), mantraData.getEndDate())) {
+            return true;
+        }
+        try {
+            DateParser.resetDetectedFormat();
+            corpus = FileLoader.loadCorpusInto(directory.toPath(), mantraData,
+                    mantraData.getTargetDate(), mantraData.getEndDate());
+            return true;
+        } catch (Exception ex) {
+            System.err.println("Error loading folder: " + ex.getMessage());
+            ex.printStackTrace();
+            UIUtils.showError("❌ Erro ao carregar pasta: " + ex.getMessage() + " / ❌ Error loading folder: " + ex.getMessage());
+            return false;
+        }
+    }
+
     public boolean saveChanges(Map<String, String> updatedMismatchMap) {
         try {
             if (mantraData.getLines() == null) {
@@ -190,4 +277,102 @@ public class FileManagementController {
         }
     }
 
-}
\ No newline at end of file
+    /**
+     * Saves edits of known lines, replacing only those lines (no search for identical lines).
+     *
+     * @param updatedLinesByIndex Map of line index (0 based) to the line's new text
+     * @return true if the changes were saved
+     */
+    public boolean saveLineChanges(Map<Integer, String> updatedLinesByIndex) {
+        try {
+            if (mantraData.getLines() == null) {
+                UIUtils.showError("No data. / Sem dados.",
+                        "No file loaded or processed. \nNenhum arquivo carregado ou processado.");
+                return false;
+            }
+
+            int updateCount = FileUtils.updateLines(mantraData, updatedLinesByIndex);
+            FileUtils.saveToFileWithZipHandling(mantraData);
+            UIUtils.showInfo("✔ Changes saved successfully. \n✔ Alterações salvas com sucesso.\n" +
+                    "✔ " + updateCount + " line(s) updated. \n✔ " + updateCount + " linha(s) atualizada(s).");
+            return true;
+
+        } catch (Exception ex) {
+            ex.printStackTrace();
+            UIUtils.showError("❌ Failed to save changes. \n❌ Falha ao salvar alterações.");
+            return false;
+        }
+    }
+
+    /**
+     * Starts following the loaded file if "watch file" is checked, and stops otherwise.
+     * New lines are counted on their own; see {@link LiveFileWatcher}.
+     */
+    public void updateFileWatch() {
+        stopFileWatch();
+        if (!watchFileCheckBox.isSelected() || mantraData.getLines() == null || mantraData.getLines().isEmpty()) {
+            return;
+        }
+        if (mantraData.isCorpus()) {
+            return; // Folders aren't watched, only single files
+        }
+
+        String basePath = mantraData.isFromZip() ? mantraData.getOriginalZipPath() : mantraData.getFilePath();
+        try {
+            fileWatcher = LiveFileWatcher.start(Path.of(basePath), mantraData.getFileCharset(),
+                    change -> Platform.runLater(() -> followChange(change)));
+        } catch (IOException e) {
+            System.err.println("Could not watch file: " + e.getMessage());
+            watchFileCheckBox.setSelected(false);
+        }
+    }
+
+    private void followChange(LiveFileWatcher.Change change) {
+        if (fileWatcher == null || mantraData.getLines() == null) {
+            return; // Stopped while the change was on its way
+        }
+        try {
+            if (!change.applyTo(mantraData)) {
+                if (!mantraData.getUnsavedEdits().isEmpty()) {
+                    // Reading the whole file again would throw the unsaved edits away: stop following instead
+                    watchFileCheckBox.setSelected(false);
+                    UIUtils.showWarning(StringConstants.WATCH_STOPPED_UNSAVED_EN, StringConstants.WATCH_STOPPED_UNSAVED_PT);
+                    return;
+                }
+                reloadWatchedFile();
+            }
+            onFileChanged.run();
+        } catch (Exception ex) {
+            ex.printStackTrace();
+            System.err.println("Error following file change: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Reads the whole file again, and counts it again if it was counted.
+     */
+    private void reloadWatchedFile() throws Exception {
+        boolean processed = FileProcessorService.hasCurrentCounts(mantraData);
+        DateParser.resetDetectedFormat();
+        if (mantraData.isFromZip()) {
+            FileLoader.loadZipInto(new File(mantraData.getOriginalZipPath()), mantraData);
+        } else {
+            FileLoader.loadInto(Path.of(mantraData.getFilePath()), mantraData);
+        }
+        if (processed) {
+            mantraData.resetCounts();
+            FileProcessorService.processFile(mantraData);
+        }
+    }
+
+    private void stopFileWatch() {
+        if (fileWatcher != null) {
+            fileWatcher.close();
+            fileWatcher = null;
+        }
+    }
+
+    public void shutdown() {
+        stopFileWatch();
+    }
+}
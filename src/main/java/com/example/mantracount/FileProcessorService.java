@@ -3,7 +3,14 @@ package com.example.mantracount;
 import java.io.IOException;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveTask;
 
 /**
  * Processes file contents to count mantras and identify mismatches.
@@ -11,87 +18,381 @@ import java.util.List;
  */
 public class FileProcessorService {
 
+    // Files with at least this many lines are processed in parallel by processFile(data)
+    private static final int PARALLEL_THRESHOLD = 50_000;
+
+    // Lines per fork-join leaf task
+    private static final int CHUNK_SIZE = 4_096;
+
     /**
      * Process the file and update the mantra data with the results.
      * This method performs the actual counting of mantras.
+     * Large files are split across cores; the results are the same either way.
      *
      * @param data The mantra data model to update with results
      * @throws Exception If processing fails
      */
     public static void processFile(MantraData data) throws Exception {
+        boolean parallel = data.getLineFacts().size() >= PARALLEL_THRESHOLD
+                && Runtime.getRuntime().availableProcessors() > 1;
+        processFile(data, parallel);
+    }
+
+    /**
+     * Process the file and update the mantra data with the results.
+     *
+     * @param data The mantra data model to update with results
+     * @param parallel true to classify chunks of lines on the fork-join pool and merge the partial
+     *                 results in line order, false to walk the lines on the calling thread
+     * @throws Exception If processing fails
+     */
+    public static void processFile(MantraData data, boolean parallel) throws Exception {
         try {
-            // Read all lines from the file using FileLoader
-            List<String> lines = data.getLines();
-            if (lines == null || lines.isEmpty()) {
+            // Lines and their per-line facts were parsed once when the file was loaded
+            LineFactsIndex facts = data.getLineFacts();
+            if (facts.size() == 0) {
                 throw new IOException("No lines loaded from file");
             }
 
             LocalDate targetDate = data.getTargetDate();
+            long targetDay = targetDate.toEpochDay();
             String mantraKeyword = data.getNameToCount();
 
             // Reset all counters before processing
             data.resetCounts();
 
-            // Create result object to hold processing results
-            ProcessResult result = new ProcessResult();
-
-            // Track statistics
-            int processedLines = 0;
-            int skippedDueToDate = 0;
-            int skippedEmptyLines = 0;
-            int skippedNoDate = 0;
-
-            // Process each line in the file
-            for (String line : lines) {
-                // Skip empty lines
-                if (line.trim().isEmpty()) {
-                    skippedEmptyLines++;
-                    continue;
+            // The file was counted for this keyword before and hasn't changed since
+            ParseSnapshot snapshot = data.getParseSnapshot();
+            LineContributions restored = snapshot != null
+                    ? snapshot.restoreCounts(facts, targetDay, mantraKeyword) : null;
+            if (restored != null) {
+                applyRestoredCounts(data, facts, restored);
+                return;
+            }
+
+            // Counted from this day or earlier since the last change: the totals are in the running totals by day
+            LineContributions counted = data.getLineContributions();
+            if (counted != null && counted.covers(data, targetDay) && data.getZipChatEntries().size() <= 1) {
+                applyStartDate(data, facts, counted, targetDay);
+                return;
+            }
+
+            List<ZipChatArchive.ChatEntry> chats = data.getZipChatEntries();
+            LineContributions contributions;
+            if (chats.size() > 1) {
+                contributions = new LineContributions(facts, targetDay, mantraKeyword);
+                List<ProcessResult> chatResults = processChats(facts, chats, targetDay, mantraKeyword, contributions, parallel);
+
+                // Combined counts first (applyTo resets the data), then each chat's own
+                ProcessResult combined = new ProcessResult();
+                for (ProcessResult chatResult : chatResults) {
+                    combined.merge(chatResult);
+                }
+                combined.applyTo(data);
+                for (int i = 0; i < chats.size(); i++) {
+                    data.putEntryResult(chats.get(i).getName(), chatResults.get(i));
                 }
+                contributions.recordMismatches(combined.getMismatchedIndices());
+            } else {
+                // Every dated line is counted once, so any other start date is a lookup in the running totals
+                contributions = new LineContributions(facts, Long.MIN_VALUE, mantraKeyword);
+                ProcessResult result = processLines(facts, 0, facts.size(), Long.MIN_VALUE, mantraKeyword, contributions, parallel);
+                contributions.recordMismatches(result.getMismatchedIndices());
+                applyStartDate(data, facts, contributions, targetDay);
+            }
+            data.setLineContributions(contributions);
+            if (snapshot != null) {
+                snapshot.save(facts, contributions);
+            }
+        } catch (Exception e) {
+            System.err.println("Error processing file: " + e.getMessage());
+            e.printStackTrace();
+            throw new IOException("Error processing file: / Erro ao processar o arquivo: " + e.getMessage(), e);
+        }
+    }
 
-                // Parse line data using LineParser
-                LineParser.LineData parsed = LineParser.parseLine(line, mantraKeyword);
+    /**
+     * Sums counts read back from a snapshot instead of classifying the lines again.
+     */
+    private static void applyRestoredCounts(MantraData data, LineFactsIndex facts, LineContributions restored) {
+        applyStartDate(data, facts, restored, data.getTargetDate().toEpochDay());
+        data.setLineContributions(restored);
+    }
+
+    /**
+     * Totals for a start date on or after the day the lines were counted from (for a single file,
+     * any date), looked up in the running totals by day instead of counting the lines again.
+     * Per-chat results of a zip would need totals per chat, so zips with several chats are always counted.
+     */
+    private static void applyStartDate(MantraData data, LineFactsIndex facts, LineContributions counted, long targetDay) {
+        counted.startAt(targetDay);
+        ProcessResult result = new ProcessResult();
+        counted.addDaysTo(result, targetDay, Long.MAX_VALUE);
+        counted.collectMismatches(0, facts.size(), result.getMismatchedLines(), result.getMismatchedIndices());
+        result.applyTo(data);
+    }
 
-                // Skip lines with no date
-                if (parsed.getDate() == null) {
-                    skippedNoDate++;
-                    continue;
+    /**
+     * Counts edited lines again from the counts the last {@link #processFile} run kept per line,
+     * updating the totals, mismatched lines and per-chat results of the data without going over
+     * the other lines. Call it after the lines were replaced with {@link MantraData#setLine}.
+     *
+     * @param data The processed mantra data
+     * @param lineIndexes The lines that changed (0 based)
+     * @return false if the data has no counts for its current lines, start date and keyword,
+     *         so only a full {@link #processFile} can bring them up to date
+     */
+    public static boolean reprocessLines(MantraData data, Collection<Integer> lineIndexes) {
+        LineContributions contributions = data.getLineContributions();
+        if (contributions == null || !contributions.isCurrent(data)) {
+            // Whatever they were counted for, they no longer match the edited lines
+            data.setLineContributions(null);
+            return false;
+        }
+
+        LineFactsIndex facts = data.getLineFacts();
+        long countedFromDay = contributions.getCountedFromDay();
+        String mantraKeyword = data.getNameToCount();
+        List<ZipChatArchive.ChatEntry> chats = data.getZipChatEntries();
+        boolean perChat = chats.size() > 1;
+
+        ProcessResult delta = new ProcessResult();
+        for (int index : lineIndexes) {
+            LineParser.LineData parsed = countLine(facts, index, countedFromDay, mantraKeyword);
+
+            // Out with the old line's counts, in with the new one's
+            ProcessResult lineDelta = new ProcessResult();
+            contributions.addTo(lineDelta, index, -1);
+            contributions.recount(index, parsed);
+            contributions.addTo(lineDelta, index, 1);
+            contributions.setMismatch(index, parsed != null && parsed.hasMismatch());
+            contributions.lineChanged(index);
+
+            delta.merge(lineDelta);
+            if (perChat) {
+                ZipChatArchive.ChatEntry chat = chatOf(chats, index);
+                ProcessResult chatResult = data.getEntryResults().get(chat.getName());
+                if (chatResult != null) {
+                    chatResult.merge(lineDelta);
                 }
+            }
+        }
+
+        delta.addTotalsTo(data);
 
-                // Skip lines before target date
-                if (parsed.getDate().isBefore(targetDate)) {
-                    skippedDueToDate++;
-                    continue;
+        relistMismatches(data, contributions);
+        if (perChat) {
+            for (ZipChatArchive.ChatEntry chat : chats) {
+                ProcessResult chatResult = data.getEntryResults().get(chat.getName());
+                if (chatResult != null) {
+                    chatResult.mismatchedLines.clear();
+                    chatResult.mismatchedIndices.clear();
+                    contributions.collectMismatches(chat.getFirstLine(), chat.getEndLine(),
+                            chatResult.mismatchedLines, chatResult.mismatchedIndices);
                 }
+            }
+        }
+        return true;
+    }
 
-                // Line passed all filters, process it
-                processedLines++;
+    /**
+     * Replaces a run of lines, such as the part of a watched text file that changed, counting
+     * only the new lines if the data was processed: the removed lines' counts are taken out of
+     * the totals and the new lines' put in. Not for zips or folders, whose file ranges would move.
+     *
+     * @param data The mantra data
+     * @param from First line to replace (0 based)
+     * @param removedCount Number of lines to take out
+     * @param newLines Lines to put in their place
+     */
+    public static void replaceLines(MantraData data, int from, int removedCount, List<String> newLines) {
+        if (!data.getZipChatEntries().isEmpty() || data.isCorpus()) {
+            throw new IllegalArgumentException("Lines of a zip or folder can only be replaced one for one");
+        }
 
-                // Update counts in the data object
-                data.setTotalNameCount(data.getTotalNameCount() + parsed.getMantraKeywordCount());
-                data.setTotalMantrasCount(data.getTotalMantrasCount() + parsed.getMantraWordsCount());
-                data.setTotalRitosCount(data.getTotalRitosCount() + parsed.getRitosWordsCount()); // Add ritos count
-                data.setTotalFizCount(data.getTotalFizCount() + parsed.getFizCount());
-                data.setTotalFizNumbersSum(data.getTotalFizNumbersSum() + parsed.getFizNumber());
+        LineContributions contributions = hasCurrentCounts(data) ? data.getLineContributions() : null;
+        if (contributions == null) {
+            data.setLineContributions(null);
+        }
+        ProcessResult delta = new ProcessResult();
+        if (contributions != null) {
+            for (int i = from; i < from + removedCount; i++) {
+                contributions.addTo(delta, i, -1);
+            }
+        }
 
+        data.replaceLines(from, removedCount, newLines);
+        if (contributions == null) {
+            return;
+        }
 
-                // Update counts in the result object
-                result.setTotalMantraKeywordCount(result.getTotalMantraKeywordCount() + parsed.getMantraKeywordCount());
-                result.setTotalMantraWordsCount(result.getTotalMantraWordsCount() + parsed.getMantraWordsCount());
-                result.setTotalRitosWordsCount(result.getTotalRitosWordsCount() + parsed.getRitosWordsCount()); // Add ritos count
-                result.setTotalFizCount(result.getTotalFizCount() + parsed.getFizCount());
-                result.setTotalFizNumbersSum(result.getTotalFizNumbersSum() + parsed.getFizNumber());
-
-                // Check for mismatches and add to debug if found
-                if (parsed.hasMismatch()) {
-                    data.addDebugLine(line);
-                    result.addMismatchedLine(line);
+        contributions.splice(from, removedCount, newLines.size());
+        LineFactsIndex facts = data.getLineFacts();
+        for (int i = from; i < from + newLines.size(); i++) {
+            LineParser.LineData parsed = countLine(facts, i, contributions.getCountedFromDay(), data.getNameToCount());
+            contributions.record(i, parsed);
+            contributions.addTo(delta, i, 1);
+            contributions.setMismatch(i, parsed != null && parsed.hasMismatch());
+        }
+        delta.addTotalsTo(data);
+        relistMismatches(data, contributions);
+    }
+
+    /**
+     * Lists the mismatched lines again from the flags, which is as long as the list, not the file.
+     */
+    private static void relistMismatches(MantraData data, LineContributions contributions) {
+        List<String> mismatchedLines = new ArrayList<>();
+        contributions.collectMismatches(0, data.getLineFacts().size(), mismatchedLines, new ArrayList<>());
+        data.getDebugLines().clear();
+        data.getDebugLines().addAll(mismatchedLines);
+    }
+
+    /**
+     * @return true if the data's counts are for its current lines, start date and keyword
+     */
+    public static boolean hasCurrentCounts(MantraData data) {
+        LineContributions contributions = data.getLineContributions();
+        return contributions != null && contributions.isCurrent(data);
+    }
+
+    private static ZipChatArchive.ChatEntry chatOf(List<ZipChatArchive.ChatEntry> chats, int lineIndex) {
+        int low = 0;
+        int high = chats.size() - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (chats.get(middle).getFirstLine() <= lineIndex) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return chats.get(low);
+    }
+
+    private static ProcessResult processLines(LineFactsIndex facts, int from, int to, long targetDay,
+                                              String mantraKeyword, LineContributions contributions,
+                                              boolean parallel) {
+        return parallel
+                ? ForkJoinPool.commonPool().invoke(new ProcessTask(facts, from, to, targetDay, mantraKeyword, contributions))
+                : processRange(facts, from, to, targetDay, mantraKeyword, contributions);
+    }
+
+    /**
+     * Counts each chat of a multi-chat zip as its own task on a pool no larger than the number
+     * of cores.
+     *
+     * @return One result per chat, in archive order
+     */
+    private static List<ProcessResult> processChats(LineFactsIndex facts, List<ZipChatArchive.ChatEntry> chats,
+                                                    long targetDay, String mantraKeyword,
+                                                    LineContributions contributions,
+                                                    boolean parallel) throws Exception {
+        int threads = Math.min(chats.size(), Runtime.getRuntime().availableProcessors());
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<ProcessResult>> pending = new ArrayList<>();
+            for (ZipChatArchive.ChatEntry chat : chats) {
+                // A big chat still splits across the fork-join pool on its own
+                boolean splitChat = parallel && chat.getLineCount() >= PARALLEL_THRESHOLD;
+                pending.add(executor.submit(() -> processLines(facts, chat.getFirstLine(), chat.getEndLine(),
+                        targetDay, mantraKeyword, contributions, splitChat)));
+            }
+
+            List<ProcessResult> results = new ArrayList<>();
+            for (Future<ProcessResult> future : pending) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException e) {
+                    throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
                 }
             }
-        } catch (Exception e) {
-            System.err.println("Error processing file: " + e.getMessage());
-            e.printStackTrace();
-            throw new IOException("Error processing file: / Erro ao processar o arquivo: " + e.getMessage(), e);
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Counts the lines in {@code [from, to)} dated on or after the target day.
+     */
+    private static ProcessResult processRange(LineFactsIndex facts, int from, int to,
+                                              long targetDay, String mantraKeyword,
+                                              LineContributions contributions) {
+        // Create result object to hold processing results
+        ProcessResult result = new ProcessResult();
+
+        // Process each line in the range
+        for (int i = from; i < to; i++) {
+            LineParser.LineData parsed = countLine(facts, i, targetDay, mantraKeyword);
+            if (parsed != null) {
+                // Update counts in the result object
+                result.add(parsed, facts.getLine(i), i);
+                contributions.record(i, parsed);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Parses one line if it counts: not empty and dated on or after the target day.
+     *
+     * @return The parsed line, or null if the line doesn't count
+     */
+    private static LineParser.LineData countLine(LineFactsIndex facts, int index, long targetDay, String mantraKeyword) {
+        // Skip empty lines
+        if (facts.getLine(index).trim().isEmpty()) {
+            return null;
+        }
+
+        // Filter by date before classifying, the date is already in the index
+        int lineDay = LineParser.extractEpochDay(facts, index);
+
+        // Skip lines with no date or before target date
+        if (lineDay == LineParser.NO_DATE || lineDay < targetDay) {
+            return null;
+        }
+
+        // Parse line data using LineParser
+        return LineParser.parseLine(facts, index, mantraKeyword);
+    }
+
+    /**
+     * Splits a line range in halves until it is small enough to count directly,
+     * then merges the halves left to right so mismatched lines keep their file order.
+     */
+    @SuppressWarnings("serial") // Never serialized, ForkJoinTask just happens to be Serializable
+    private static class ProcessTask extends RecursiveTask<ProcessResult> {
+        private final LineFactsIndex facts;
+        private final int from;
+        private final int to;
+        private final long targetDay;
+        private final String mantraKeyword;
+        private final LineContributions contributions;
+
+        ProcessTask(LineFactsIndex facts, int from, int to, long targetDay, String mantraKeyword,
+                    LineContributions contributions) {
+            this.facts = facts;
+            this.from = from;
+            this.to = to;
+            this.targetDay = targetDay;
+            this.mantraKeyword = mantraKeyword;
+            this.contributions = contributions;
+        }
+
+        @Override
+        protected ProcessResult compute() {
+            if (to - from <= CHUNK_SIZE) {
+                return processRange(facts, from, to, targetDay, mantraKeyword, contributions);
+            }
+
+            int middle = (from + to) >>> 1;
+            ProcessTask left = new ProcessTask(facts, from, middle, targetDay, mantraKeyword, contributions);
+            ProcessTask right = new ProcessTask(facts, middle, to, targetDay, mantraKeyword, contributions);
+            left.fork();
+            ProcessResult rightResult = right.compute();
+            return left.join().merge(rightResult);
         }
     }
 
@@ -99,31 +400,103 @@ public class FileProcessorService {
      * Container for the results of processing a file.
      */
     public static class ProcessResult {
-        private int totalMantraKeywordCount; // Total count of the target mantra keyword
-        private int totalMantraWordsCount;   // Total count of "mantra" words
-        private int totalRitosWordsCount;    // Total count of "rito" words
-        private int totalFizCount;           // Total count of "fiz" words
-        private int totalFizNumbersSum;      // Sum of numbers following "fiz"
+        private long totalMantraKeywordCount; // Total count of the target mantra keyword
+        private long totalMantraWordsCount;   // Total count of "mantra" words
+        private long totalRitosWordsCount;    // Total count of "rito" words
+        private long totalFizCount;           // Total count of "fiz" words
+        private long totalFizNumbersSum;      // Sum of numbers following "fiz"
         private final List<String> mismatchedLines = new ArrayList<>(); // Lines with mismatches
+        private final List<Integer> mismatchedIndices = new ArrayList<>(); // Their line numbers, when known
 
-        public int getTotalMantraKeywordCount() { return totalMantraKeywordCount; }
-        public void setTotalMantraKeywordCount(int count) { this.totalMantraKeywordCount = count; }
+        public long getTotalMantraKeywordCount() { return totalMantraKeywordCount; }
+        public void setTotalMantraKeywordCount(long count) { this.totalMantraKeywordCount = count; }
 
-        public int getTotalMantraWordsCount() { return totalMantraWordsCount; }
-        public void setTotalMantraWordsCount(int count) { this.totalMantraWordsCount = count; }
+        public long getTotalMantraWordsCount() { return totalMantraWordsCount; }
+        public void setTotalMantraWordsCount(long count) { this.totalMantraWordsCount = count; }
 
-        public int getTotalRitosWordsCount() { return totalRitosWordsCount; }
-        public void setTotalRitosWordsCount(int count) { this.totalRitosWordsCount = count; }
+        public long getTotalRitosWordsCount() { return totalRitosWordsCount; }
+        public void setTotalRitosWordsCount(long count) { this.totalRitosWordsCount = count; }
 
-        public int getTotalGenericCount() { return totalMantraWordsCount + totalRitosWordsCount; }
+        public long getTotalGenericCount() { return totalMantraWordsCount + totalRitosWordsCount; }
 
-        public int getTotalFizCount() { return totalFizCount; }
-        public void setTotalFizCount(int count) { this.totalFizCount = count; }
+        public long getTotalFizCount() { return totalFizCount; }
+        public void setTotalFizCount(long count) { this.totalFizCount = count; }
 
-        public int getTotalFizNumbersSum() { return totalFizNumbersSum; }
-        public void setTotalFizNumbersSum(int sum) { this.totalFizNumbersSum = sum; }
+        public long getTotalFizNumbersSum() { return totalFizNumbersSum; }
+        public void setTotalFizNumbersSum(long sum) { this.totalFizNumbersSum = sum; }
 
         public List<String> getMismatchedLines() { return mismatchedLines; }
         public void addMismatchedLine(String line) { this.mismatchedLines.add(line); }
+
+        public List<Integer> getMismatchedIndices() { return mismatchedIndices; }
+
+        /**
+         * Adds the counts of one processed line, keeping the line if it has a mismatch.
+         */
+        public void add(LineParser.LineData parsed, String line) {
+            totalMantraKeywordCount += parsed.getMantraKeywordCount();
+            totalMantraWordsCount += parsed.getMantraWordsCount();
+            totalRitosWordsCount += parsed.getRitosWordsCount(); // Add ritos count
+            totalFizCount += parsed.getFizCount();
+            totalFizNumbersSum += parsed.getFizNumber();
+
+            // Check for mismatches and add to debug if found
+            if (parsed.hasMismatch()) {
+                mismatchedLines.add(line);
+            }
+        }
+
+        /**
+         * Adds the counts of line {@code index}, keeping the line and its index if it has a mismatch.
+         */
+        public void add(LineParser.LineData parsed, String line, int index) {
+            add(parsed, line);
+            if (parsed.hasMismatch()) {
+                mismatchedIndices.add(index);
+            }
+        }
+
+        /**
+         * Copies the totals and mismatched lines into the mantra data, replacing its counts.
+         */
+        public void applyTo(MantraData data) {
+            data.resetCounts();
+            data.setTotalNameCount(totalMantraKeywordCount);
+            data.setTotalMantrasCount(totalMantraWordsCount);
+            data.setTotalRitosCount(totalRitosWordsCount); // Add ritos count
+            data.setTotalFizCount(totalFizCount);
+            data.setTotalFizNumbersSum(totalFizNumbersSum);
+            for (String line : mismatchedLines) {
+                data.addDebugLine(line);
+            }
+        }
+
+        /**
+         * Adds the totals to the mantra data's counts, leaving its mismatched lines alone.
+         */
+        public void addTotalsTo(MantraData data) {
+            data.setTotalNameCount(data.getTotalNameCount() + totalMantraKeywordCount);
+            data.setTotalMantrasCount(data.getTotalMantrasCount() + totalMantraWordsCount);
+            data.setTotalRitosCount(data.getTotalRitosCount() + totalRitosWordsCount);
+            data.setTotalFizCount(data.getTotalFizCount() + totalFizCount);
+            data.setTotalFizNumbersSum(data.getTotalFizNumbersSum() + totalFizNumbersSum);
+        }
+
+        /**
+         * Adds another result covering the lines right after this one's.
+         *
+         * @param next The result for the following lines
+         * @return This result, now covering both ranges
+         */
+        public ProcessResult merge(ProcessResult next) {
+            totalMantraKeywordCount += next.totalMantraKeywordCount;
+            totalMantraWordsCount += next.totalMantraWordsCount;
+            totalRitosWordsCount += next.totalRitosWordsCount;
+            totalFizCount += next.totalFizCount;
+            totalFizNumbersSum += next.totalFizNumbersSum;
+            mismatchedLines.addAll(next.mismatchedLines);
+            mismatchedIndices.addAll(next.mismatchedIndices);
+            return this;
+        }
     }
 }
\ No newline at end of file
@@ -1,6 +1,9 @@
 package com.example.mantracount;
 
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -16,55 +19,154 @@ public final class FileUtils {
 
     /**
      * Updates lines in MantraData based on a map of original to updated lines.
+     * Every line identical to an original is updated.
      * 
      * @param mantraData The MantraData to update
      * @param originalToUpdated Map of original lines to their updated versions
      * @return Number of lines updated
      */
     public static int updateFileContent(MantraData mantraData, Map<String, String> originalToUpdated) {
-        List<String> originalLines = mantraData.getLines();
-        List<String> updatedLines = new ArrayList<>(originalLines);
-        int updateCount = 0;
+        return updateFileContent(mantraData, originalToUpdated, true);
+    }
 
+    /**
+     * Updates lines in MantraData based on a map of original to updated lines.
+     * Lines are found through {@link MantraData#getLinePositions()}, so the cost grows with
+     * the number of edits rather than with the size of the file.
+     *
+     * @param mantraData The MantraData to update
+     * @param originalToUpdated Map of original lines to their updated versions
+     * @param replaceAllIdentical true to update every line identical to an original,
+     *                            false to update only the first one
+     * @return Number of lines updated
+     */
+    public static int updateFileContent(MantraData mantraData, Map<String, String> originalToUpdated,
+                                        boolean replaceAllIdentical) {
+        LinePositions positions = mantraData.getLinePositions();
+
+        // Find every target before changing anything, so one edit's new text is never taken for another's original
+        Map<Integer, String> updatesByIndex = new LinkedHashMap<>();
         for (Map.Entry<String, String> entry : originalToUpdated.entrySet()) {
-            String originalLine = entry.getKey();
-            String updatedLine = entry.getValue();
-            for (int i = 0; i < originalLines.size(); i++) {
-                if (originalLines.get(i).equals(originalLine)) {
-                    updatedLines.set(i, updatedLine);
-                    updateCount++;
+            for (int i = positions.first(entry.getKey()); i >= 0; i = positions.next(i)) {
+                updatesByIndex.put(i, entry.getValue());
+                if (!replaceAllIdentical) {
+                    break;
                 }
             }
         }
 
-        mantraData.setLines(updatedLines);
-        return updateCount;
+        updateLines(mantraData, updatesByIndex);
+        return updatesByIndex.size();
+    }
+
+    /**
+     * Finds a line that was read at a known index. Lines inserted or removed since, for example
+     * by {@link LiveFileWatcher}, move it; then it is found by its text.
+     *
+     * @param expectedIndex Where the line was when it was read
+     * @param originalLine The line's text when it was read
+     * @return The line's index now, or -1 if no line has that text any more
+     */
+    public static int resolveLineIndex(MantraData mantraData, int expectedIndex, String originalLine) {
+        List<String> lines = mantraData.getLines();
+        if (expectedIndex >= 0 && expectedIndex < lines.size() && lines.get(expectedIndex).equals(originalLine)) {
+            return expectedIndex;
+        }
+        return mantraData.getLinePositions().first(originalLine);
+    }
+
+    /**
+     * Replaces lines by their index, recording each change for the next save.
+     * If the data was processed, only the changed lines are counted again.
+     *
+     * @param mantraData The MantraData to update
+     * @param updatesByIndex Map of line index (0 based) to the line's new text
+     * @return Number of lines whose text changed
+     */
+    public static int updateLines(MantraData mantraData, Map<Integer, String> updatesByIndex) {
+        List<Integer> changedIndexes = new ArrayList<>();
+        long now = System.currentTimeMillis();
+
+        for (Map.Entry<Integer, String> entry : updatesByIndex.entrySet()) {
+            int index = entry.getKey();
+            String updatedLine = entry.getValue();
+            String originalLine = mantraData.getLines().get(index);
+            if (!originalLine.equals(updatedLine)) {
+                mantraData.setLine(index, updatedLine);
+                mantraData.getUnsavedEdits().add(new EditJournal.Edit(index, originalLine, updatedLine, now));
+                changedIndexes.add(index);
+            }
+        }
+
+        if (!changedIndexes.isEmpty()) {
+            FileProcessorService.reprocessLines(mantraData, changedIndexes);
+        }
+        return changedIndexes.size();
     }
 
     /**
      * Saves MantraData to file, handling both regular files and zip files.
+     * Recorded edits are only appended to the file's {@link EditJournal}, which is folded into
+     * the file in the background; the whole file is rewritten when there are none to journal.
      * 
      * @param mantraData The MantraData to save
      * @return true if save was successful, false otherwise
      */
     public static boolean saveToFileWithZipHandling(MantraData mantraData) {
         try {
-            // Save to file
-            FileEditSaver.saveToFile(mantraData.getLines(), mantraData.getFilePath());
-
-            // Handle zip files
-            if (mantraData.isFromZip()) {
-                FileEditSaver.updateZipFile(
-                        mantraData.getOriginalZipPath(),
-                        mantraData.getFilePath(),
-                        mantraData.getLines(),
-                        mantraData.getOriginalZipEntryName()
-                );
+            List<EditJournal.Edit> edits = mantraData.getUnsavedEdits();
+            if (mantraData.isCorpus()) {
+                // Monthly files are small: rewrite just the ones holding edits, no journal
+                mantraData.getCorpus().saveShards(edits);
+                edits.clear();
+                return true;
             }
+
+            if (mantraData.getLines() == null || mantraData.getLines().isEmpty()) {
+                // Nothing loaded (e.g. a streamed count): writing would empty the file
+                System.err.println("No lines loaded, not saving over the file");
+                return false;
+            }
+
+            String basePath = mantraData.isFromZip() ? mantraData.getOriginalZipPath() : mantraData.getFilePath();
+            if (!edits.isEmpty()) {
+                try {
+                    EditJournal.append(EditJournal.journalFor(basePath), edits);
+                    edits.clear();
+                    EditJournal.scheduleCompaction(Paths.get(basePath));
+                    return true;
+                } catch (IOException e) {
+                    System.err.println("Could not journal the edits, saving the whole file: " + e.getMessage());
+                }
+            }
+
+            EditJournal.replaceBase(Paths.get(basePath), () -> writeWholeFile(mantraData));
+            edits.clear();
             return true;
         } catch (Exception e) {
             e.printStackTrace();
             return false;
         }
     }
+
+    private static void writeWholeFile(MantraData mantraData) throws IOException {
+        // Zip chats are read in memory, so the archive itself is what gets updated
+        if (mantraData.isFromZip() && !mantraData.getZipChatEntries().isEmpty()) {
+            // Each chat goes back into its own entry
+            FileEditSaver.updateZipEntries(
+                    mantraData.getOriginalZipPath(),
+                    mantraData.getLines(),
+                    mantraData.getZipChatEntries()
+            );
+        } else if (mantraData.isFromZip()) {
+            FileEditSaver.updateZipFile(
+                    mantraData.getOriginalZipPath(),
+                    mantraData.getLines(),
+                    mantraData.getOriginalZipEntryName(),
+                    mantraData.getFileCharset()
+            );
+        } else {
+            FileEditSaver.saveToFileAtomically(mantraData.getLines(), mantraData.getFilePath(), mantraData.getFileCharset());
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,187 @@
+package com.example.mantracount;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Bounded, thread-safe memo of fuzzy match decisions keyed by (rule, target, token).
+ * Chat groups repeat a small vocabulary ("fiz", "108", "mantras", "de", "tare") on
+ * thousands of lines, so most lenient/approximate checks become a hash lookup.
+ *
+ * The decisions are split in segments by key hash, each locked on its own and dropping its
+ * least recently used decision when full, so the frequent words stay cached. Decisions are
+ * pure functions of the key, so dropping one only costs a recomputation.
+ */
+public final class FuzzyMatchCache {
+
+    /**
+     * The predicate a cached decision came from.
+     */
+    public enum Rule {
+        LENIENT_MANTRA,
+        LENIENT_PREPOSITION,
+        APPROXIMATE_KEYWORD,
+        ANALYZER_APPROXIMATE_KEYWORD
+    }
+
+    private static final int DEFAULT_MAX_ENTRIES = 20_000;
+    private static final int MAX_SEGMENTS = 16;
+    private static final FuzzyMatchCache SHARED = new FuzzyMatchCache(DEFAULT_MAX_ENTRIES);
+
+    private final Segment[] segments;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param maxEntries Number of decisions kept at most
+     */
+    public FuzzyMatchCache(int maxEntries) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be positive");
+        }
+        // A power of two no larger than the limit, so every segment holds at least one decision
+        int count = Math.min(MAX_SEGMENTS, Integer.highestOneBit(maxEntries));
+        this.segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment(maxEntries / count);
+        }
+    }
+
+    /**
+     * @return The cache shared by {@link MantraLineClassifier} and {@link LineAnalyzer}
+     */
+    public static FuzzyMatchCache shared() {
+        return SHARED;
+    }
+
+    /**
+     * Returns the cached decision for the key, computing and remembering it on a miss.
+     *
+     * @param rule The predicate being memoized
+     * @param target What the token is compared against (term list, keyword...)
+     * @param token The cleaned word from the line
+     * @param decision Computes the answer on a miss
+     * @return The decision
+     */
+    public boolean decide(Rule rule, Object target, String token, BooleanSupplier decision) {
+        Key key = new Key(rule, target, token);
+        Segment segment = segments[(key.hash ^ (key.hash >>> 16)) & (segments.length - 1)];
+        Boolean cached;
+        synchronized (segment) {
+            cached = segment.get(key);
+        }
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+
+        misses.increment();
+        boolean result = decision.getAsBoolean();
+        synchronized (segment) {
+            segment.put(key, result);
+        }
+        return result;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return Fraction of lookups answered from the cache, 0 when nothing was looked up yet
+     */
+    public double getHitRate() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Forgets every decision and zeroes the statistics.
+     */
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+        hits.reset();
+        misses.reset();
+        evictions.reset();
+    }
+
+    /**
+     * @return One-line summary of the cache statistics for logging
+     */
+    public String getStatistics() {
+        return String.format("Fuzzy match cache: %d hits, %d misses (%.1f%% hit rate), %d entries, %d evicted",
+                getHits(), getMisses(), getHitRate() * 100, size(), evictions.sum());
+    }
+
+    /**
+     * Part of the decisions, in access order so the least recently used one goes first.
+     */
+    @SuppressWarnings("serial") // Never serialized, LinkedHashMap just happens to be Serializable
+    private final class Segment extends LinkedHashMap<Key, Boolean> {
+        private final int capacity;
+
+        Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Boolean> eldest) {
+            if (size() > capacity) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+
+    private static final class Key {
+        private final Rule rule;
+        private final Object target;
+        private final String token;
+        private final int hash;
+
+        Key(Rule rule, Object target, String token) {
+            this.rule = rule;
+            this.target = target;
+            this.token = token;
+            this.hash = (rule.ordinal() * 31 + target.hashCode()) * 31 + token.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return rule == other.rule && token.equals(other.token) && Objects.equals(target, other.target);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.mantracount;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A small fixed list of target terms prepared once for approximate (Levenshtein) lookups.
+ * Each term keeps a precomputed character table, so checking a token against a term is a
+ * single pass over the token ({@link StringUtils#bitParallelDistance}) with no allocation,
+ * and terms whose length is too far from the token's are skipped without scanning at all.
+ *
+ * Answers are identical to {@link StringUtils#boundedLevenshteinDistance(String, String, int)}.
+ */
+public final class FuzzyVocabulary {
+
+    // Vocabularies of the last few keywords, least recently used dropped first
+    private static final int KEYWORD_CACHE_SIZE = 16;
+    private static final Map<String, FuzzyVocabulary> KEYWORDS = Collections.synchronizedMap(
+            new LinkedHashMap<>(KEYWORD_CACHE_SIZE, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, FuzzyVocabulary> eldest) {
+                    return size() > KEYWORD_CACHE_SIZE;
+                }
+            });
+
+    private final String[] terms;
+    // Per term its character table, null for terms StringUtils handles directly
+    private final StringUtils.PatternMasks[] termMasks;
+
+    /**
+     * @param terms The target terms; a term's id is its position in this list
+     */
+    public FuzzyVocabulary(String... terms) {
+        this.terms = terms.clone();
+        this.termMasks = new StringUtils.PatternMasks[terms.length];
+
+        for (int id = 0; id < terms.length; id++) {
+            String term = terms[id];
+            if (!term.isEmpty() && term.length() <= Long.SIZE) {
+                termMasks[id] = StringUtils.PatternMasks.of(term);
+            }
+        }
+    }
+
+    /**
+     * Returns a vocabulary holding just the given keyword, reusing the one built for
+     * that keyword when it is asked for again (a few keywords are kept).
+     */
+    public static FuzzyVocabulary forKeyword(String keyword) {
+        return KEYWORDS.computeIfAbsent(keyword, FuzzyVocabulary::new);
+    }
+
+    public int size() {
+        return terms.length;
+    }
+
+    public String getTerm(int id) {
+        return terms[id];
+    }
+
+    /**
+     * @return true if the token is within edit distance k of any term
+     */
+    public boolean anyWithin(String token, int k) {
+        return firstWithin(token, k) >= 0;
+    }
+
+    /**
+     * @return Id of the first term (in list order) within edit distance k of the token, or -1
+     */
+    public int firstWithin(String token, int k) {
+        for (int id = 0; id < terms.length; id++) {
+            if (boundedDistance(token, id, k) <= k) {
+                return id;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return true if the token is within edit distance k of the given term
+     */
+    public boolean isWithin(String token, int id, int k) {
+        return boundedDistance(token, id, k) <= k;
+    }
+
+    /**
+     * @return The edit distance between the token and the term if it is at most k, otherwise k + 1
+     */
+    public int boundedDistance(String token, int id, int k) {
+        String term = terms[id];
+        if (Math.abs(token.length() - term.length()) > k) {
+            return k + 1;
+        }
+        if (termMasks[id] == null || token.isEmpty()) {
+            return StringUtils.boundedLevenshteinDistance(token, term, k);
+        }
+        return Math.min(StringUtils.bitParallelDistance(termMasks[id], token, k), k + 1);
+    }
+}
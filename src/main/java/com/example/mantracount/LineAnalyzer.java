@@ -9,6 +9,10 @@ public class LineAnalyzer {
     private static final Pattern FIZ_NUMBER_PATTERN =
             Pattern.compile("\\b(fiz|fez|recitei|faz)\\s+([0-9]+)\\b", Pattern.CASE_INSENSITIVE);
 
+    private static final Pattern ACTION_NUMBER_PATTERN =
+            Pattern.compile("\\b(" + String.join("|", ActionWordManager.getActionWords()) + ")\\s+([0-9]+)\\b",
+                    Pattern.CASE_INSENSITIVE);
+
     /**
      * Enhanced version using centralized action word detection
      */
@@ -140,11 +144,7 @@ public class LineAnalyzer {
     }
 
     public static int extractNumberAfterThirdColon(String line) {
-        String[] actionWords = ActionWordManager.getActionWords();
-        String actionPattern = String.join("|", actionWords);
-        Pattern FIZ_NUMBER_PATTERN = Pattern.compile("\\b(" + actionPattern + ")\\s+([0-9]+)\\b", Pattern.CASE_INSENSITIVE);
-
-        Matcher matcher = FIZ_NUMBER_PATTERN.matcher(line.toLowerCase());
+        Matcher matcher = ACTION_NUMBER_PATTERN.matcher(line.toLowerCase());
         if (matcher.find()) {
             try {
                 return Integer.parseInt(matcher.group(2));
@@ -203,6 +203,11 @@ public class LineAnalyzer {
     }
 
     private static boolean isApproximateWordMatch(String word, String keyword) {
+        return FuzzyMatchCache.shared().decide(FuzzyMatchCache.Rule.ANALYZER_APPROXIMATE_KEYWORD, keyword, word,
+                () -> computeApproximateWordMatch(word, keyword));
+    }
+
+    private static boolean computeApproximateWordMatch(String word, String keyword) {
         int threshold;
         int keywordLength = keyword.length();
 
@@ -218,7 +223,7 @@ public class LineAnalyzer {
             return false;
         }
 
-        return StringUtils.levenshteinDistance(word, keyword) <= threshold;
+        return FuzzyVocabulary.forKeyword(keyword).isWithin(word, 0, threshold);
     }
 
 
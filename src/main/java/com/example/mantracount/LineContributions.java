@@ -0,0 +1,360 @@
+package com.example.mantracount;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * What each line added to the totals of the last {@link FileProcessorService#processFile} run,
+ * so edited lines can be counted again on their own: the old line's counts are taken out of the
+ * totals and the new line's put in, instead of processing the whole file again.
+ *
+ * Also keeps how many relevant lines each day has, which is all missing-day detection needs.
+ * That part is built the first time missing days are asked for.
+ *
+ * Only valid for the line facts and keyword it was counted with. Lines are counted from a first
+ * day on (every dated line, for a single file), and running totals of the counts by day answer
+ * any start date from that day on without counting again: {@link #startAt} only moves the day the
+ * totals and mismatched lines are reported from, see {@link #isCurrent}.
+ * Kept in a {@link ParseSnapshot} so the same file can be counted again without classifying its lines.
+ */
+public final class LineContributions {
+
+    private final LineFactsIndex facts;
+    private final long countedFromDay;
+    private final String mantraKeyword;
+    // Lines dated before this day are left out of the totals and mismatches reported
+    private long targetDay;
+
+    // Written by index from the processing threads, each line by exactly one of them
+    private int[] countedDays;     // Day of each line with counts, NO_DATE for the others
+    private int[] keywordCounts;
+    private int[] mantraWordsCounts;
+    private int[] ritosWordsCounts;
+    private int[] fizCounts;
+    private int[] fizNumbers;
+    private BitSet mismatches = new BitSet();
+
+    // Running totals by day, one row per count above (index d: lines dated before countsFirstDay + d),
+    // built on the first range query and dropped when a line's counts change
+    private int countsFirstDay;
+    private long[][] countsBeforeDay;
+
+    // Day of each line that counts for missing days (NO_DATE if it doesn't), and lines per such day
+    private int[] relevantDays;
+    private TreeMap<LocalDate, Integer> relevantLinesPerDay;
+
+    /**
+     * @param countedFromDay Day the lines are counted from; they are reported from it too until {@link #startAt}
+     */
+    LineContributions(LineFactsIndex facts, long countedFromDay, String mantraKeyword) {
+        int size = facts.size();
+        this.facts = facts;
+        this.countedFromDay = countedFromDay;
+        this.targetDay = countedFromDay;
+        this.mantraKeyword = mantraKeyword;
+        this.countedDays = new int[size];
+        Arrays.fill(countedDays, LineFactsIndex.NO_DATE);
+        this.keywordCounts = new int[size];
+        this.mantraWordsCounts = new int[size];
+        this.ritosWordsCounts = new int[size];
+        this.fizCounts = new int[size];
+        this.fizNumbers = new int[size];
+    }
+
+    /**
+     * @return true if the data still has the lines, start date and keyword these counts report
+     */
+    public boolean isCurrent(MantraData data) {
+        return data.getLineFacts() == facts
+                && data.getTargetDate() != null && data.getTargetDate().toEpochDay() == targetDay
+                && mantraKeyword.equals(data.getNameToCount());
+    }
+
+    long getCountedFromDay() { return countedFromDay; }
+    String getMantraKeyword() { return mantraKeyword; }
+
+    /**
+     * @return true if these counts hold every line of the data from {@code day} on: same lines
+     *         and keyword, counted from that day or earlier
+     */
+    boolean covers(MantraData data, long day) {
+        return data.getLineFacts() == facts && day >= countedFromDay && mantraKeyword.equals(data.getNameToCount());
+    }
+
+    /**
+     * Reports the totals and mismatched lines from another start date, on or after the day the
+     * lines were counted from. Nothing is counted or copied; the running totals answer it.
+     */
+    synchronized void startAt(long day) {
+        if (day < countedFromDay) {
+            throw new IllegalArgumentException("Lines were only counted from day " + countedFromDay);
+        }
+        targetDay = day;
+    }
+
+    /**
+     * Adds the counts of the lines dated between two days (inclusive) to a result: a few lookups
+     * in the running totals by day, which are summed up on first use.
+     */
+    synchronized void addDaysTo(FileProcessorService.ProcessResult result, long fromDay, long toDay) {
+        if (countsBeforeDay == null) {
+            sumUpDays();
+        }
+        int last = countsBeforeDay[0].length - 1;
+        // Clamped to the counted days first, so open ends like Long.MIN_VALUE don't overflow
+        long lastDay = countsFirstDay + last - 1;
+        int from = (int) (Math.min(Math.max(fromDay, countsFirstDay), lastDay + 1) - countsFirstDay);
+        int to = (int) Math.max(from, Math.min(Math.max(toDay, countsFirstDay - 1), lastDay) - countsFirstDay + 1);
+        long[] sums = new long[countsBeforeDay.length];
+        for (int column = 0; column < sums.length; column++) {
+            sums[column] = countsBeforeDay[column][to] - countsBeforeDay[column][from];
+        }
+        result.setTotalMantraKeywordCount(result.getTotalMantraKeywordCount() + sums[0]);
+        result.setTotalMantraWordsCount(result.getTotalMantraWordsCount() + sums[1]);
+        result.setTotalRitosWordsCount(result.getTotalRitosWordsCount() + sums[2]);
+        result.setTotalFizCount(result.getTotalFizCount() + sums[3]);
+        result.setTotalFizNumbersSum(result.getTotalFizNumbersSum() + sums[4]);
+    }
+
+    private void sumUpDays() {
+        // Only lines with counts have a day that matters, and they are few
+        int firstDay = Integer.MAX_VALUE;
+        int lastDay = Integer.MIN_VALUE;
+        for (int i = 0; i < keywordCounts.length; i++) {
+            if (hasCounts(i)) {
+                firstDay = Math.min(firstDay, countedDays[i]);
+                lastDay = Math.max(lastDay, countedDays[i]);
+            }
+        }
+        if (firstDay > lastDay) {
+            firstDay = 0;
+            lastDay = -1;
+        }
+
+        long[][] before = new long[5][lastDay - firstDay + 2];
+        for (int i = 0; i < keywordCounts.length; i++) {
+            if (hasCounts(i)) {
+                int next = countedDays[i] - firstDay + 1;
+                before[0][next] += keywordCounts[i];
+                before[1][next] += mantraWordsCounts[i];
+                before[2][next] += ritosWordsCounts[i];
+                before[3][next] += fizCounts[i];
+                before[4][next] += fizNumbers[i];
+            }
+        }
+        for (long[] column : before) {
+            for (int d = 1; d < column.length; d++) {
+                column[d] += column[d - 1];
+            }
+        }
+        countsFirstDay = firstDay;
+        countsBeforeDay = before;
+    }
+
+    /**
+     * Remembers the counts of one line, or no counts if {@code parsed} is null.
+     */
+    void record(int index, LineParser.LineData parsed) {
+        countedDays[index] = parsed != null ? LineParser.extractEpochDay(facts, index) : LineFactsIndex.NO_DATE;
+        keywordCounts[index] = parsed != null ? parsed.getMantraKeywordCount() : 0;
+        mantraWordsCounts[index] = parsed != null ? parsed.getMantraWordsCount() : 0;
+        ritosWordsCounts[index] = parsed != null ? parsed.getRitosWordsCount() : 0;
+        fizCounts[index] = parsed != null ? parsed.getFizCount() : 0;
+        fizNumbers[index] = parsed != null ? parsed.getFizNumber() : 0;
+    }
+
+    /**
+     * Remembers the new counts of an edited line; the running totals by day are summed up again on next use.
+     */
+    synchronized void recount(int index, LineParser.LineData parsed) {
+        record(index, parsed);
+        countsBeforeDay = null;
+    }
+
+    /**
+     * Marks the mismatched lines found by the processing (a bit set can't be shared by its threads).
+     */
+    void recordMismatches(List<Integer> mismatchedIndices) {
+        for (int index : mismatchedIndices) {
+            mismatches.set(index);
+        }
+    }
+
+    void setMismatch(int index, boolean mismatch) {
+        mismatches.set(index, mismatch);
+    }
+
+    /**
+     * Moves the recorded counts after {@code removed} lines at {@code from} were replaced by
+     * {@code added} lines (already in the line facts). The added lines start with no counts
+     * and no mismatch; missing-day relevance is worked out for them here.
+     */
+    synchronized void splice(int from, int removed, int added) {
+        countsBeforeDay = null;
+        if (relevantLinesPerDay != null) {
+            for (int i = from; i < from + removed; i++) {
+                if (relevantDays[i] != LineFactsIndex.NO_DATE) {
+                    relevantLinesPerDay.computeIfPresent(LocalDate.ofEpochDay(relevantDays[i]),
+                            (day, count) -> count > 1 ? count - 1 : null);
+                    relevantDays[i] = LineFactsIndex.NO_DATE;
+                }
+            }
+            relevantDays = LineFactsIndex.spliceArray(relevantDays, from, removed, added);
+            Arrays.fill(relevantDays, from, from + added, LineFactsIndex.NO_DATE);
+            for (int i = from; i < from + added; i++) {
+                updateRelevance(i);
+            }
+        }
+
+        countedDays = LineFactsIndex.spliceArray(countedDays, from, removed, added);
+        keywordCounts = LineFactsIndex.spliceArray(keywordCounts, from, removed, added);
+        mantraWordsCounts = LineFactsIndex.spliceArray(mantraWordsCounts, from, removed, added);
+        ritosWordsCounts = LineFactsIndex.spliceArray(ritosWordsCounts, from, removed, added);
+        fizCounts = LineFactsIndex.spliceArray(fizCounts, from, removed, added);
+        fizNumbers = LineFactsIndex.spliceArray(fizNumbers, from, removed, added);
+        mismatches = LineFactsIndex.spliceBits(mismatches, from, removed, added);
+        for (int i = from; i < from + added; i++) {
+            record(i, null);
+            mismatches.clear(i);
+        }
+    }
+
+    /**
+     * @return Bytes {@link #writeTo} needs
+     */
+    int snapshotSize() {
+        return Integer.BYTES + countedLines() * 6 * Integer.BYTES + ParseSnapshot.bitsSize(mismatches);
+    }
+
+    /**
+     * Writes the counts of the lines that have any (most lines have none), and the mismatches.
+     */
+    void writeTo(ByteBuffer out) {
+        out.putInt(countedLines());
+        for (int i = 0; i < keywordCounts.length; i++) {
+            if (hasCounts(i)) {
+                out.putInt(i).putInt(keywordCounts[i]).putInt(mantraWordsCounts[i]).putInt(ritosWordsCounts[i])
+                        .putInt(fizCounts[i]).putInt(fizNumbers[i]);
+            }
+        }
+        ParseSnapshot.putBits(out, mismatches);
+    }
+
+    /**
+     * Reads back counts written by {@link #writeTo}, reporting them from {@code targetDay} on.
+     *
+     * @param countedFromDay Day the written counts were counted from, at most {@code targetDay}
+     * @return The counts
+     */
+    static LineContributions restore(LineFactsIndex facts, long countedFromDay, long targetDay, String mantraKeyword,
+                                     ByteBuffer in) {
+        LineContributions contributions = new LineContributions(facts, countedFromDay, mantraKeyword);
+        contributions.targetDay = targetDay;
+        int counted = in.getInt();
+        for (int n = 0; n < counted; n++) {
+            int i = in.getInt();
+            int keyword = in.getInt();
+            int mantraWords = in.getInt();
+            int ritosWords = in.getInt();
+            int fiz = in.getInt();
+            int fizNumber = in.getInt();
+            contributions.countedDays[i] = LineParser.extractEpochDay(facts, i);
+            contributions.keywordCounts[i] = keyword;
+            contributions.mantraWordsCounts[i] = mantraWords;
+            contributions.ritosWordsCounts[i] = ritosWords;
+            contributions.fizCounts[i] = fiz;
+            contributions.fizNumbers[i] = fizNumber;
+        }
+        contributions.mismatches = ParseSnapshot.getBits(in);
+        return contributions;
+    }
+
+    private boolean hasCounts(int index) {
+        return (keywordCounts[index] | mantraWordsCounts[index] | ritosWordsCounts[index]
+                | fizCounts[index] | fizNumbers[index]) != 0;
+    }
+
+    private int countedLines() {
+        int counted = 0;
+        for (int i = 0; i < keywordCounts.length; i++) {
+            if (hasCounts(i)) {
+                counted++;
+            }
+        }
+        return counted;
+    }
+
+    /**
+     * Adds the recorded counts of one line to a result, or takes them out when {@code sign} is -1.
+     * Lines dated before the start date add nothing.
+     */
+    void addTo(FileProcessorService.ProcessResult result, int index, int sign) {
+        if (countedDays[index] < targetDay) {
+            return;
+        }
+        result.setTotalMantraKeywordCount(result.getTotalMantraKeywordCount() + sign * keywordCounts[index]);
+        result.setTotalMantraWordsCount(result.getTotalMantraWordsCount() + sign * mantraWordsCounts[index]);
+        result.setTotalRitosWordsCount(result.getTotalRitosWordsCount() + sign * ritosWordsCounts[index]);
+        result.setTotalFizCount(result.getTotalFizCount() + sign * fizCounts[index]);
+        result.setTotalFizNumbersSum(result.getTotalFizNumbersSum() + (long) sign * fizNumbers[index]);
+    }
+
+    /**
+     * Adds the mismatched lines in {@code [from, to)} dated on or after the start date and their
+     * indices, in file order.
+     */
+    void collectMismatches(int from, int to, List<String> lines, List<Integer> indices) {
+        for (int i = mismatches.nextSetBit(from); i >= 0 && i < to; i = mismatches.nextSetBit(i + 1)) {
+            if (LineParser.extractEpochDay(facts, i) >= targetDay) {
+                lines.add(facts.getLine(i));
+                indices.add(i);
+            }
+        }
+    }
+
+    /**
+     * @return The days that have at least one line with an approximate keyword match
+     */
+    public synchronized SortedSet<LocalDate> getRelevantDates() {
+        if (relevantLinesPerDay == null) {
+            relevantDays = new int[facts.size()];
+            Arrays.fill(relevantDays, LineFactsIndex.NO_DATE);
+            relevantLinesPerDay = new TreeMap<>();
+            for (int i = 0; i < facts.size(); i++) {
+                updateRelevance(i);
+            }
+        }
+        return new TreeSet<>(relevantLinesPerDay.navigableKeySet());
+    }
+
+    /**
+     * Re-checks whether an edited line counts for missing days, if that was worked out already.
+     */
+    synchronized void lineChanged(int index) {
+        if (relevantLinesPerDay != null) {
+            updateRelevance(index);
+        }
+    }
+
+    private void updateRelevance(int index) {
+        int oldDay = relevantDays[index];
+        int newDay = facts.hasDate(index) && LineAnalyzer.hasApproximateMatch(facts.getLine(index), mantraKeyword)
+                ? facts.getEpochDay(index) : LineFactsIndex.NO_DATE;
+        if (oldDay == newDay) {
+            return;
+        }
+        if (oldDay != LineFactsIndex.NO_DATE) {
+            relevantLinesPerDay.computeIfPresent(LocalDate.ofEpochDay(oldDay), (day, count) -> count > 1 ? count - 1 : null);
+        }
+        if (newDay != LineFactsIndex.NO_DATE) {
+            relevantLinesPerDay.merge(LocalDate.ofEpochDay(newDay), 1, Integer::sum);
+        }
+        relevantDays[index] = newDay;
+    }
+}
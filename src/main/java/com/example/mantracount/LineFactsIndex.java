@@ -0,0 +1,421 @@
+package com.example.mantracount;
+
+import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Per-line facts parsed once when the lines are loaded into {@link MantraData}.
+ * Holds each line's date (as epoch day), the prefix/suffix split offsets, the sender span
+ * and the lower-cased message content, so that counting, missing days, "Sem Fiz" and
+ * "Todos os Mantras" all read them instead of re-parsing every line on every click.
+ *
+ * Dates depend on the detected file date format, so {@link MantraData#getLineFacts()}
+ * re-dates the index when that format changes. The only other changes are an edited line,
+ * which {@link MantraData#setLine} re-parses through {@link #update(int)}, and a run of lines
+ * replaced from a watched file, which {@link MantraData#replaceLines} splices in with {@link #splice}.
+ *
+ * The parsed facts can be written to and read back from a {@link ParseSnapshot}, so a file
+ * opened again unchanged isn't parsed again.
+ */
+public final class LineFactsIndex {
+
+    /** Epoch day stored for lines that have no WhatsApp date. */
+    public static final int NO_DATE = LineParser.NO_DATE;
+
+    private static final byte TAIL_NONE = 0;
+    private static final byte TAIL_SPACE = 1;
+    private static final byte TAIL_COLON = 2;
+
+    private final List<String> lines;
+    private final DateParser.DateFormat dateFormat;
+    private int[] epochDays;
+    private int minEpochDay;
+    private int maxEpochDay;
+
+    // Split offsets are relative to splitSources[i] when the line needed cleaning, else to the line itself
+    private String[] splitSources;
+    private int[] prefixEnds;
+    private byte[] prefixTails;
+    private int[] suffixStarts;
+    private int[] suffixEnds;
+    private int[] senderStarts;
+    private int[] senderEnds;
+    private BitSet editableDigits;
+
+    private String[] messagesLower;
+
+    private LineFactsIndex(List<String> lines, DateParser.DateFormat dateFormat, int[] epochDays,
+                           String[] splitSources, int[] prefixEnds, byte[] prefixTails,
+                           int[] suffixStarts, int[] suffixEnds, int[] senderStarts, int[] senderEnds,
+                           BitSet editableDigits, String[] messagesLower) {
+        this.lines = lines;
+        this.dateFormat = dateFormat;
+        this.epochDays = epochDays;
+        this.splitSources = splitSources;
+        this.prefixEnds = prefixEnds;
+        this.prefixTails = prefixTails;
+        this.suffixStarts = suffixStarts;
+        this.suffixEnds = suffixEnds;
+        this.senderStarts = senderStarts;
+        this.senderEnds = senderEnds;
+        this.editableDigits = editableDigits;
+        this.messagesLower = messagesLower;
+        computeDateRange();
+    }
+
+    private void computeDateRange() {
+        int min = Integer.MAX_VALUE;
+        int max = NO_DATE;
+        for (int day : epochDays) {
+            if (day == NO_DATE) continue;
+            if (day < min) min = day;
+            if (day > max) max = day;
+        }
+        this.minEpochDay = max == NO_DATE ? NO_DATE : min;
+        this.maxEpochDay = max;
+    }
+
+    /**
+     * Parses every line once. Dates are read with the currently detected file date format.
+     *
+     * @param lines The loaded file lines (kept by reference, not copied)
+     * @return The index over those lines
+     */
+    public static LineFactsIndex build(List<String> lines) {
+        int size = lines.size();
+        DateParser.DateFormat format = DateParser.getCurrentDateFormat();
+        LineFactsIndex index = new LineFactsIndex(lines, format, parseEpochDays(lines, format),
+                new String[size], new int[size], new byte[size], new int[size], new int[size],
+                new int[size], new int[size], new BitSet(size), new String[size]);
+
+        LineParser.SplitOffsets offsets = new LineParser.SplitOffsets();
+        for (int i = 0; i < size; i++) {
+            index.parseFacts(i, offsets);
+        }
+        return index;
+    }
+
+    /**
+     * @return Bytes {@link #writeTo} needs
+     */
+    int snapshotSize() {
+        return Integer.BYTES + lines.size() * (6 * Integer.BYTES + 1)
+                + ParseSnapshot.bitsSize(editableDigits) + ParseSnapshot.bitsSize(cleanedLines());
+    }
+
+    /**
+     * Writes the parsed facts, without the lines themselves, for {@link #restore}.
+     */
+    void writeTo(ByteBuffer out) {
+        out.putInt(lines.size());
+        ParseSnapshot.putInts(out, epochDays);
+        ParseSnapshot.putInts(out, prefixEnds);
+        out.put(prefixTails);
+        ParseSnapshot.putInts(out, suffixStarts);
+        ParseSnapshot.putInts(out, suffixEnds);
+        ParseSnapshot.putInts(out, senderStarts);
+        ParseSnapshot.putInts(out, senderEnds);
+        ParseSnapshot.putBits(out, editableDigits);
+        ParseSnapshot.putBits(out, cleanedLines());
+    }
+
+    private BitSet cleanedLines() {
+        BitSet cleaned = new BitSet(splitSources.length);
+        for (int i = 0; i < splitSources.length; i++) {
+            if (splitSources[i] != null) {
+                cleaned.set(i);
+            }
+        }
+        return cleaned;
+    }
+
+    /**
+     * Reads back facts written by {@link #writeTo} for the same lines. Only the few lines that
+     * needed cleaning are touched again; lower-cased messages are worked out when first asked for.
+     *
+     * @param lines The lines the facts were parsed from
+     * @param dateFormat The date format the dates were read with
+     * @return The index, or null if the facts are for a different number of lines
+     */
+    static LineFactsIndex restore(List<String> lines, DateParser.DateFormat dateFormat, ByteBuffer in) {
+        int size = in.getInt();
+        if (size != lines.size()) {
+            return null;
+        }
+        int[] epochDays = ParseSnapshot.getInts(in, size);
+        int[] prefixEnds = ParseSnapshot.getInts(in, size);
+        byte[] prefixTails = new byte[size];
+        in.get(prefixTails);
+        int[] suffixStarts = ParseSnapshot.getInts(in, size);
+        int[] suffixEnds = ParseSnapshot.getInts(in, size);
+        int[] senderStarts = ParseSnapshot.getInts(in, size);
+        int[] senderEnds = ParseSnapshot.getInts(in, size);
+        BitSet editableDigits = ParseSnapshot.getBits(in);
+        BitSet cleaned = ParseSnapshot.getBits(in);
+
+        String[] splitSources = new String[size];
+        for (int i = cleaned.nextSetBit(0); i >= 0 && i < size; i = cleaned.nextSetBit(i + 1)) {
+            splitSources[i] = LineParser.normalizeForSplit(lines.get(i));
+        }
+        return new LineFactsIndex(lines, dateFormat, epochDays, splitSources, prefixEnds, prefixTails,
+                suffixStarts, suffixEnds, senderStarts, senderEnds, editableDigits, new String[size]);
+    }
+
+    /**
+     * Re-parses one line after it was replaced in the line list this index was built on.
+     *
+     * @param index The line number (0 based)
+     */
+    public void update(int index) {
+        parseFacts(index, new LineParser.SplitOffsets());
+
+        String line = lines.get(index);
+        int oldDay = epochDays[index];
+        int newDay = LineParser.extractEpochDay(line, 0, line.length(), dateFormat);
+        epochDays[index] = newDay;
+        if (oldDay != newDay) {
+            if (oldDay != NO_DATE && (oldDay == minEpochDay || oldDay == maxEpochDay)) {
+                computeDateRange(); // the line may have been the only one on that day
+            } else if (newDay != NO_DATE) {
+                minEpochDay = minEpochDay == NO_DATE ? newDay : Math.min(minEpochDay, newDay);
+                maxEpochDay = Math.max(maxEpochDay, newDay);
+            }
+        }
+    }
+
+    /**
+     * Updates the index after {@code removed} lines at {@code from} were replaced by {@code added}
+     * lines in the line list it was built on. The lines after them keep their facts, moved by
+     * the difference; only the added lines are parsed.
+     *
+     * @param from First replaced line (0 based)
+     * @param removed Number of lines taken out
+     * @param added Number of lines put in their place
+     */
+    public void splice(int from, int removed, int added) {
+        epochDays = spliceArray(epochDays, from, removed, added);
+        splitSources = spliceArray(splitSources, from, removed, added);
+        prefixEnds = spliceArray(prefixEnds, from, removed, added);
+        prefixTails = spliceArray(prefixTails, from, removed, added);
+        suffixStarts = spliceArray(suffixStarts, from, removed, added);
+        suffixEnds = spliceArray(suffixEnds, from, removed, added);
+        senderStarts = spliceArray(senderStarts, from, removed, added);
+        senderEnds = spliceArray(senderEnds, from, removed, added);
+        editableDigits = spliceBits(editableDigits, from, removed, added);
+        messagesLower = spliceArray(messagesLower, from, removed, added);
+
+        LineParser.SplitOffsets offsets = new LineParser.SplitOffsets();
+        for (int i = from; i < from + added; i++) {
+            parseFacts(i, offsets);
+            String line = lines.get(i);
+            epochDays[i] = LineParser.extractEpochDay(line, 0, line.length(), dateFormat);
+        }
+        computeDateRange();
+    }
+
+    /**
+     * Copies an array with {@code removed} elements at {@code from} replaced by {@code added}
+     * unset ones, or returns it as is when the counts are the same.
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T spliceArray(T array, int from, int removed, int added) {
+        if (removed == added) {
+            return array;
+        }
+        int length = Array.getLength(array);
+        T spliced = (T) Array.newInstance(array.getClass().getComponentType(), length - removed + added);
+        System.arraycopy(array, 0, spliced, 0, from);
+        System.arraycopy(array, from + removed, spliced, from + added, length - from - removed);
+        return spliced;
+    }
+
+    /**
+     * {@link #spliceArray} for a bit set; costs as much as the number of set bits after {@code from}.
+     */
+    static BitSet spliceBits(BitSet bits, int from, int removed, int added) {
+        if (removed == added) {
+            return bits;
+        }
+        BitSet spliced = bits.get(0, from);
+        int shift = added - removed;
+        for (int i = bits.nextSetBit(from + removed); i >= 0; i = bits.nextSetBit(i + 1)) {
+            spliced.set(i + shift);
+        }
+        return spliced;
+    }
+
+    private void parseFacts(int i, LineParser.SplitOffsets offsets) {
+        String line = lines.get(i);
+
+        String normalized = LineParser.normalizeForSplit(line);
+        splitSources[i] = normalized != line ? normalized : null;
+
+        if (normalized.isEmpty()) {
+            prefixEnds[i] = 0;
+            prefixTails[i] = TAIL_NONE;
+            suffixStarts[i] = 0;
+            suffixEnds[i] = 0;
+            senderStarts[i] = -1;
+            senderEnds[i] = -1;
+            editableDigits.clear(i);
+        } else {
+            LineParser.computeSplitOffsets(normalized, offsets);
+            prefixEnds[i] = offsets.prefixEnd;
+            prefixTails[i] = toTailCode(offsets.prefixTail);
+            suffixStarts[i] = offsets.suffixStart;
+            suffixEnds[i] = offsets.suffixEnd;
+            senderStarts[i] = offsets.senderStart;
+            senderEnds[i] = offsets.senderEnd;
+            editableDigits.set(i, containsDigit(normalized, offsets.suffixStart, offsets.suffixEnd));
+        }
+
+        String message = ParsingUtils.extractMessageContent(line);
+        messagesLower[i] = message == null ? "" : message.toLowerCase();
+    }
+
+    /**
+     * Returns an index with the dates re-read using the current file date format,
+     * sharing every other (format independent) fact with this one.
+     */
+    public LineFactsIndex redate() {
+        DateParser.DateFormat format = DateParser.getCurrentDateFormat();
+        return new LineFactsIndex(lines, format, parseEpochDays(lines, format),
+                splitSources, prefixEnds, prefixTails, suffixStarts, suffixEnds,
+                senderStarts, senderEnds, editableDigits, messagesLower);
+    }
+
+    /**
+     * @return true if the dates were read with the date format currently in effect
+     */
+    public boolean isDatedWith(DateParser.DateFormat format) {
+        return dateFormat == format;
+    }
+
+    private static int[] parseEpochDays(List<String> lines, DateParser.DateFormat format) {
+        int[] epochDays = new int[lines.size()];
+        for (int i = 0; i < epochDays.length; i++) {
+            String line = lines.get(i);
+            epochDays[i] = LineParser.extractEpochDay(line, 0, line.length(), format);
+        }
+        return epochDays;
+    }
+
+    private static byte toTailCode(String tail) {
+        if (LineParser.SplitOffsets.SPACE_TAIL.equals(tail)) return TAIL_SPACE;
+        if (LineParser.SplitOffsets.COLON_TAIL.equals(tail)) return TAIL_COLON;
+        return TAIL_NONE;
+    }
+
+    private static boolean containsDigit(String text, int from, int to) {
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int size() { return lines.size(); }
+
+    public List<String> getLines() { return lines; }
+
+    public String getLine(int index) { return lines.get(index); }
+
+    /**
+     * @return The line's date as epoch day, or {@link #NO_DATE}
+     */
+    public int getEpochDay(int index) { return epochDays[index]; }
+
+    public boolean hasDate(int index) { return epochDays[index] != NO_DATE; }
+
+    /**
+     * @return The line's date, or null when the line has no WhatsApp date
+     */
+    public LocalDate getDate(int index) {
+        int day = epochDays[index];
+        return day == NO_DATE ? null : LocalDate.ofEpochDay(day);
+    }
+
+    /**
+     * @return The earliest dated line's date, or null if no line has a date
+     */
+    public LocalDate getEarliestDate() {
+        return minEpochDay == NO_DATE ? null : LocalDate.ofEpochDay(minEpochDay);
+    }
+
+    /**
+     * @return The latest dated line's date, or null if no line has a date
+     */
+    public LocalDate getLatestDate() {
+        return maxEpochDay == NO_DATE ? null : LocalDate.ofEpochDay(maxEpochDay);
+    }
+
+    /**
+     * Same result as {@link LineParser#splitEditablePortion(String)} for the line.
+     */
+    public LineParser.LineSplitResult getSplit(int index) {
+        String source = splitSource(index);
+        if (source.isEmpty()) {
+            return new LineParser.LineSplitResult("", "");
+        }
+        return new LineParser.LineSplitResult(
+                source.substring(0, prefixEnds[index]) + tailText(prefixTails[index]),
+                source.substring(suffixStarts[index], suffixEnds[index]));
+    }
+
+    /**
+     * Same as {@code getSplit(index).getEditableSuffix()} without building the prefix.
+     */
+    public String getEditableSuffix(int index) {
+        String source = splitSource(index);
+        return source.isEmpty() ? "" : source.substring(suffixStarts[index], suffixEnds[index]);
+    }
+
+    /**
+     * @return true if the editable (message) portion of the line contains a digit
+     */
+    public boolean hasDigitsInEditablePortion(int index) {
+        return editableDigits.get(index);
+    }
+
+    /**
+     * @return The sender name for iPhone/Android formatted lines, or null when it cannot be told
+     */
+    public String getSender(int index) {
+        if (senderStarts[index] < 0) {
+            return null;
+        }
+        return splitSource(index).substring(senderStarts[index], senderEnds[index]);
+    }
+
+    /**
+     * @return Lower-cased {@link ParsingUtils#extractMessageContent(String)} of the line
+     */
+    public String getMessageLower(int index) {
+        String message = messagesLower[index];
+        if (message == null) {
+            // Not kept in snapshots; the same string whichever thread gets here first
+            String content = ParsingUtils.extractMessageContent(lines.get(index));
+            message = content == null ? "" : content.toLowerCase();
+            messagesLower[index] = message;
+        }
+        return message;
+    }
+
+    private String splitSource(int index) {
+        String source = splitSources[index];
+        return source != null ? source : lines.get(index);
+    }
+
+    private static String tailText(byte code) {
+        switch (code) {
+            case TAIL_SPACE: return LineParser.SplitOffsets.SPACE_TAIL;
+            case TAIL_COLON: return LineParser.SplitOffsets.COLON_TAIL;
+            default: return LineParser.SplitOffsets.NO_TAIL;
+        }
+    }
+}
@@ -34,7 +34,8 @@ public class LineParser {
         public void setHasMismatch(boolean mismatch) { this.hasMismatch = mismatch; }
     }
 
-    private static final Pattern ANDROID_DATE_PATTERN = Pattern.compile("^(\\d{1,2}/\\d{1,2}/\\d{2,4})\\s+\\d{1,2}:\\d{1,2}\\s+-\\s+");
+    /** Epoch day returned by {@link #extractEpochDay(String)} for lines without a WhatsApp date. */
+    public static final int NO_DATE = Integer.MIN_VALUE;
 
     private static final Pattern FIZ_NUMBER_PATTERN =
             Pattern.compile("\\b(fiz|fez|recitei|faz)\\s+([0-9]+)\\b", Pattern.CASE_INSENSITIVE);
@@ -53,30 +54,72 @@ public class LineParser {
         }
 
         if (MantraLineClassifier.isRelevantMantraEntry(line, mantraKeyword)) {
-            int mantraKeywordCount = LineAnalyzer.countOccurrencesWithWordBoundary(line, mantraKeyword);
-            int mantraWordsCount = LineAnalyzer.countMantraOrMantras(line);
-            int ritosWordsCount = LineAnalyzer.countRitoOrRitos(line);
+            fillCounts(data, line, mantraKeyword);
+        }
 
-            int fizCount = ActionWordManager.countActionWords(line);
+        return data;
+    }
 
-            data.setMantraKeywordCount(mantraKeywordCount);
-            data.setMantraWordsCount(mantraWordsCount);
-            data.setRitosWordsCount(ritosWordsCount);
-            data.setFizCount(fizCount);
+    /**
+     * Same as {@link #parseLine(String, String)} for a line whose date the caller already read,
+     * possibly in another format than the detected file format.
+     *
+     * @param epochDay The trimmed line's date, or {@link #NO_DATE}
+     */
+    static LineData parseLine(String line, int epochDay, String mantraKeyword) {
+        LineData data = new LineData();
+        line = line.trim();
 
-            int fizNumber = extractFizNumber(line);
-            if (fizNumber > 0) {
-                data.setFizNumber(fizNumber);
-            }
+        if (epochDay != NO_DATE) {
+            data.setDate(LocalDate.ofEpochDay(epochDay));
+        }
+        if (MantraLineClassifier.isRelevantMantraEntry(line, mantraKeyword)) {
+            fillCounts(data, line, mantraKeyword);
+        }
 
-            boolean mismatch = MantraLineClassifier.hasMismatchIssues(line, mantraKeyword,
-                    fizCount, mantraWordsCount + ritosWordsCount, mantraKeywordCount);
-            data.setHasMismatch(mismatch);
+        return data;
+    }
+
+    /**
+     * Same as {@link #parseLine(String, String)} but reads the date and the editable-portion
+     * facts from an already built {@link LineFactsIndex} instead of re-parsing them.
+     */
+    public static LineData parseLine(LineFactsIndex facts, int index, String mantraKeyword) {
+        LineData data = new LineData();
+        String rawLine = facts.getLine(index);
+        String line = rawLine.trim();
+
+        data.setDate(extractDate(facts, index));
+
+        if (MantraLineClassifier.isRelevantMantraEntry(line, mantraKeyword, facts.hasDigitsInEditablePortion(index))) {
+            fillCounts(data, line, mantraKeyword);
         }
 
         return data;
     }
 
+    private static void fillCounts(LineData data, String line, String mantraKeyword) {
+        int mantraKeywordCount = LineAnalyzer.countOccurrencesWithWordBoundary(line, mantraKeyword);
+        int mantraWordsCount = LineAnalyzer.countMantraOrMantras(line);
+        int ritosWordsCount = LineAnalyzer.countRitoOrRitos(line);
+
+        int fizCount = ActionWordManager.countActionWords(line);
+
+        data.setMantraKeywordCount(mantraKeywordCount);
+        data.setMantraWordsCount(mantraWordsCount);
+        data.setRitosWordsCount(ritosWordsCount);
+        data.setFizCount(fizCount);
+
+        int fizNumber = extractFizNumber(line);
+        if (fizNumber > 0) {
+            data.setFizNumber(fizNumber);
+        }
+
+        boolean mismatch = MantraLineClassifier.hasMismatchIssues(line, mantraKeyword,
+                fizCount, mantraWordsCount + ritosWordsCount, mantraKeywordCount);
+        data.setHasMismatch(mismatch);
+    }
+
     /**
      * Helper method to check if text contains numbers
      */
@@ -85,40 +128,218 @@ public class LineParser {
         return text.matches(".*\\d+.*");
     }
 
+    /**
+     * Date of the trimmed line as {@link #parseLine} sees it, served from the index.
+     */
+    public static LocalDate extractDate(LineFactsIndex facts, int index) {
+        int day = extractEpochDay(facts, index);
+        return day == NO_DATE ? null : LocalDate.ofEpochDay(day);
+    }
+
+    /**
+     * Epoch day of the trimmed line as {@link #parseLine} sees it, served from the index.
+     *
+     * @return The epoch day, or {@link #NO_DATE}
+     */
+    public static int extractEpochDay(LineFactsIndex facts, int index) {
+        String rawLine = facts.getLine(index);
+        // The index dates the raw line; leading/trailing blanks can change whether the Android prefix matches
+        if (rawLine.isEmpty() || (rawLine.charAt(0) > ' ' && rawLine.charAt(rawLine.length() - 1) > ' ')) {
+            return facts.getEpochDay(index);
+        }
+
+        int start = 0;
+        int end = rawLine.length();
+        while (start < end && rawLine.charAt(start) <= ' ') start++;
+        while (end > start && rawLine.charAt(end - 1) <= ' ') end--;
+        return extractEpochDay(rawLine, start, end, DateParser.getCurrentDateFormat());
+    }
+
     public static LocalDate extractDate(String line) {
-        if (line == null || line.isEmpty()) {
-            return null;
+        int day = extractEpochDay(line);
+        return day == NO_DATE ? null : LocalDate.ofEpochDay(day);
+    }
+
+    /**
+     * Same as {@link #extractDate(String)} without creating a LocalDate.
+     *
+     * @return The line's date as epoch day, or {@link #NO_DATE}
+     */
+    public static int extractEpochDay(String line) {
+        if (line == null) {
+            return NO_DATE;
         }
+        return extractEpochDay(line, 0, line.length(), DateParser.getCurrentDateFormat());
+    }
 
-        try {
-            int startBracket = line.indexOf('[');
-            int comma = line.indexOf(',');
-            if (startBracket != -1 && comma != -1 && comma > startBracket + 1) {
-                String datePart = line.substring(startBracket + 1, comma).trim();
-                if (datePart.matches("\\d{1,2}/\\d{1,2}/\\d{2,4}")) {
-                    return extractDateParts(datePart);
-                }
-            }
+    /**
+     * Reads the iPhone "[date, time]" or Android "date time - " prefix of {@code line[start, end)}
+     * straight from the characters, reading day/month order from {@code format}.
+     *
+     * @return The date as epoch day, or {@link #NO_DATE} if there is no (valid) date
+     */
+    static int extractEpochDay(String line, int start, int end, DateParser.DateFormat format) {
+        if (start >= end) {
+            return NO_DATE;
+        }
 
-            Matcher androidMatcher = ANDROID_DATE_PATTERN.matcher(line);
-            if (androidMatcher.find()) {
-                String datePart = androidMatcher.group(1).trim();
-                if (datePart.matches("\\d{1,2}/\\d{1,2}/\\d{2,4}")) {
-                    return extractDateParts(datePart);
-                }
+        // iPhone: the date sits between the first '[' and the first ','
+        int startBracket = indexOf(line, '[', start, end);
+        int comma = indexOf(line, ',', start, end);
+        if (startBracket != -1 && comma != -1 && comma > startBracket + 1) {
+            int from = startBracket + 1;
+            int to = comma;
+            while (from < to && line.charAt(from) <= ' ') from++;
+            while (to > from && line.charAt(to - 1) <= ' ') to--;
+            if (scanDate(line, from, to) == to) {
+                return toEpochDay(line, from, to, format);
             }
-        } catch (Exception ex) {
-            // Date parsing failed, return null
         }
 
-        return null;
+        // Android: "dd/mm/yy hh:mm - " at the very start
+        if (androidPrefixEnd(line, start, end) != -1) {
+            return toEpochDay(line, start, scanDate(line, start, end), format);
+        }
+        return NO_DATE;
     }
 
     /**
-     * Extracts date parts and creates a LocalDate, handling both formats
+     * Matches "d{1,2}/d{1,2}/d{2,4} d{1,2}:d{1,2} - " at {@code start}.
+     *
+     * @return Index just past the prefix (and the blanks after the dash), or -1
      */
-    private static LocalDate extractDateParts(String datePart) {
-        return DateParser.parseLineDate(datePart);
+    private static int androidPrefixEnd(String line, int start, int end) {
+        int pos = scanDate(line, start, end);
+        if (pos == -1) return -1;
+
+        int afterSpace = skipWhitespace(line, pos, end);
+        if (afterSpace == pos) return -1;
+
+        int hourEnd = skipDigits(line, afterSpace, end);
+        int hourDigits = hourEnd - afterSpace;
+        if (hourDigits < 1 || hourDigits > 2 || hourEnd >= end || line.charAt(hourEnd) != ':') return -1;
+
+        int minuteStart = hourEnd + 1;
+        int minuteEnd = skipDigits(line, minuteStart, end);
+        int minuteDigits = minuteEnd - minuteStart;
+        if (minuteDigits < 1 || minuteDigits > 2) return -1;
+
+        pos = skipWhitespace(line, minuteEnd, end);
+        if (pos == minuteEnd || pos >= end || line.charAt(pos) != '-') return -1;
+
+        int afterDash = skipWhitespace(line, pos + 1, end);
+        return afterDash == pos + 1 ? -1 : afterDash;
+    }
+
+    /**
+     * Matches "d{1,2}/d{1,2}/d{2,4}" at {@code start}, digit runs taken whole.
+     *
+     * @return Index just past the year, or -1
+     */
+    private static int scanDate(String line, int start, int end) {
+        int firstEnd = skipDigits(line, start, end);
+        if (firstEnd - start < 1 || firstEnd - start > 2 || firstEnd >= end || line.charAt(firstEnd) != '/') return -1;
+
+        int secondStart = firstEnd + 1;
+        int secondEnd = skipDigits(line, secondStart, end);
+        if (secondEnd - secondStart < 1 || secondEnd - secondStart > 2 || secondEnd >= end || line.charAt(secondEnd) != '/') return -1;
+
+        int yearStart = secondEnd + 1;
+        int yearEnd = skipDigits(line, yearStart, end);
+        int yearDigits = yearEnd - yearStart;
+        return yearDigits >= 2 && yearDigits <= 4 ? yearEnd : -1;
+    }
+
+    /**
+     * Converts the date token {@code line[start, end)} already matched by {@link #scanDate},
+     * reusing the previous answer when it repeats the last token seen.
+     */
+    private static int toEpochDay(String line, int start, int end, DateParser.DateFormat format) {
+        int cached = DateParser.lookupEpochDay(line, start, end, format);
+        if (cached != DateParser.UNCACHED_DAY) {
+            return cached;
+        }
+
+        int epochDay = computeEpochDay(line, start, end, format);
+        DateParser.rememberEpochDay(line, start, end, format, epochDay);
+        return epochDay;
+    }
+
+    /**
+     * Converts a matched date token, the one rule for dates at the start of chat lines:
+     * two-digit years are 20xx and a date impossible in {@code format} gives no date, like the
+     * {@code LocalDate.of} call the old parser made, whose exception left the line undated.
+     */
+    private static int computeEpochDay(String line, int start, int end, DateParser.DateFormat format) {
+        int pos = start;
+        int first = 0;
+        while (line.charAt(pos) != '/') first = first * 10 + (line.charAt(pos++) - '0');
+        pos++;
+        int second = 0;
+        while (line.charAt(pos) != '/') second = second * 10 + (line.charAt(pos++) - '0');
+        pos++;
+        int year = 0;
+        while (pos < end && isAsciiDigit(line.charAt(pos))) year = year * 10 + (line.charAt(pos++) - '0');
+
+        if (year < 100) {
+            year += 2000;
+        }
+
+        int month = format == DateParser.DateFormat.BR_FORMAT ? second : first;
+        int day = format == DateParser.DateFormat.BR_FORMAT ? first : second;
+        if (!isValidDate(year, month, day)) {
+            return NO_DATE;
+        }
+
+        // Days from civil date (proleptic Gregorian), same value as LocalDate.toEpochDay()
+        int y = month <= 2 ? year - 1 : year;
+        int era = Math.floorDiv(y, 400);
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    private static boolean isValidDate(int year, int month, int day) {
+        return month >= 1 && month <= 12 && day >= 1 && day <= daysInMonth(year, month);
+    }
+
+    private static int daysInMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                boolean leap = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+                return leap ? 29 : 28;
+            case 4: case 6: case 9: case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    private static int indexOf(String line, char c, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (line.charAt(i) == c) return i;
+        }
+        return -1;
+    }
+
+    private static int skipDigits(String line, int pos, int end) {
+        while (pos < end && isAsciiDigit(line.charAt(pos))) pos++;
+        return pos;
+    }
+
+    // Same characters as regex \s
+    private static int skipWhitespace(String line, int pos, int end) {
+        while (pos < end) {
+            char c = line.charAt(pos);
+            if (c != ' ' && c != '\t' && c != '\n' && c != '\u000B' && c != '\f' && c != '\r') break;
+            pos++;
+        }
+        return pos;
+    }
+
+    private static boolean isAsciiDigit(char c) {
+        return c >= '0' && c <= '9';
     }
 
     public static String formatDate(LocalDate date) {
@@ -127,102 +348,173 @@ public class LineParser {
     }
 
     public static LineSplitResult splitEditablePortion(String line) {
-        line = line.replaceAll("[\\u200E\\u202A\\u202C\\uFEFF]", "").trim();
+        line = normalizeForSplit(line);
 
         if (line == null || line.trim().isEmpty()) {
             return new LineSplitResult("", "");
         }
 
-        LineSplitResult result = tryProcessBracketFormat(line);
-        if (result != null) return result;
+        SplitOffsets offsets = new SplitOffsets();
+        computeSplitOffsets(line, offsets);
+        return offsets.toSplitResult(line);
+    }
+
+    /**
+     * Removes WhatsApp's invisible direction/BOM marks and trims the line.
+     * Returns the same instance when there is nothing to remove.
+     */
+    static String normalizeForSplit(String line) {
+        boolean hasMarks = false;
+        for (int i = 0; i < line.length(); i++) {
+            if (isInvisibleMark(line.charAt(i))) {
+                hasMarks = true;
+                break;
+            }
+        }
+        if (!hasMarks) {
+            return line.trim();
+        }
+
+        StringBuilder cleaned = new StringBuilder(line.length());
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (!isInvisibleMark(c)) {
+                cleaned.append(c);
+            }
+        }
+        return cleaned.toString().trim();
+    }
+
+    private static boolean isInvisibleMark(char c) {
+        return c == '\u200E' || c == '\u202A' || c == '\u202C' || c == '\uFEFF';
+    }
+
+    /**
+     * Offsets of the fixed prefix, editable suffix and sender name within a normalized line.
+     * Lets callers (see {@link LineFactsIndex}) keep the split without holding substrings.
+     */
+    static final class SplitOffsets {
+        static final String NO_TAIL = "";
+        static final String SPACE_TAIL = " ";
+        static final String COLON_TAIL = ": ";
+
+        int prefixEnd;
+        String prefixTail = NO_TAIL;
+        int suffixStart;
+        int suffixEnd;
+        int senderStart = -1;
+        int senderEnd = -1;
+
+        void set(int prefixEnd, String prefixTail, String line, int suffixFrom) {
+            this.prefixEnd = prefixEnd;
+            this.prefixTail = prefixTail;
+            int start = suffixFrom;
+            int end = line.length();
+            while (start < end && line.charAt(start) <= ' ') start++;
+            while (end > start && line.charAt(end - 1) <= ' ') end--;
+            this.suffixStart = start;
+            this.suffixEnd = end;
+        }
+
+        void setSender(String line, int from, int to) {
+            while (from < to && line.charAt(from) <= ' ') from++;
+            while (to > from && line.charAt(to - 1) <= ' ') to--;
+            this.senderStart = from;
+            this.senderEnd = to;
+        }
 
-        result = tryProcessAndroidFormat(line);
-        if (result != null) return result;
+        LineSplitResult toSplitResult(String line) {
+            return new LineSplitResult(line.substring(0, prefixEnd) + prefixTail,
+                    line.substring(suffixStart, suffixEnd));
+        }
+    }
+
+    /**
+     * Computes the split of an already normalized, non-blank line (see {@link #normalizeForSplit}).
+     */
+    static void computeSplitOffsets(String line, SplitOffsets out) {
+        out.senderStart = -1;
+        out.senderEnd = -1;
 
-        result = tryProcessDateSpaceFormat(line);
-        if (result != null) return result;
+        if (tryProcessBracketFormat(line, out)) return;
+        if (tryProcessAndroidFormat(line, out)) return;
+        if (tryProcessDateSpaceFormat(line, out)) return;
 
-        return createFallbackResult(line);
+        createFallbackResult(line, out);
     }
 
-    private static LineSplitResult tryProcessBracketFormat(String line) {
+    private static boolean tryProcessBracketFormat(String line, SplitOffsets out) {
         if (!line.startsWith("[")) {
-            return null;
+            return false;
         }
 
         int closeBracketPos = line.indexOf(']');
         if (closeBracketPos <= 0) {
-            return null;
+            return false;
         }
 
-        LineSplitResult result = tryExtractWithColon(line, closeBracketPos);
-        return result != null ? result : tryExtractWithSpace(line, closeBracketPos);
+        return tryExtractWithColon(line, closeBracketPos, out) || tryExtractWithSpace(line, closeBracketPos, out);
     }
 
-    private static LineSplitResult tryExtractWithColon(String line, int closeBracketPos) {
+    private static boolean tryExtractWithColon(String line, int closeBracketPos, SplitOffsets out) {
         int nameEnd = line.indexOf(':', closeBracketPos + 1);
         if (nameEnd > 0) {
-            String fixedPrefix = line.substring(0, nameEnd + 1) + " ";
-            String editableSuffix = line.substring(nameEnd + 1).trim();
-            return new LineSplitResult(fixedPrefix, editableSuffix);
+            out.set(nameEnd + 1, SplitOffsets.SPACE_TAIL, line, nameEnd + 1);
+            out.setSender(line, closeBracketPos + 1, nameEnd);
+            return true;
         }
-        return null;
+        return false;
     }
 
-    private static LineSplitResult tryExtractWithSpace(String line, int closeBracketPos) {
+    private static boolean tryExtractWithSpace(String line, int closeBracketPos, SplitOffsets out) {
         int spaceAfterName = line.indexOf(' ', closeBracketPos + 1);
         if (spaceAfterName > 0) {
-            String fixedPrefix = line.substring(0, spaceAfterName) + ": ";
-            String editableSuffix = line.substring(spaceAfterName).trim();
-            return new LineSplitResult(fixedPrefix, editableSuffix);
+            out.set(spaceAfterName, SplitOffsets.COLON_TAIL, line, spaceAfterName);
+            return true;
         }
-        return null;
+        return false;
     }
 
-    private static LineSplitResult tryProcessAndroidFormat(String line) {
-        Matcher androidMatcher = ANDROID_DATE_PATTERN.matcher(line);
-        if (!androidMatcher.find()) {
-            return null;
+    private static boolean tryProcessAndroidFormat(String line, SplitOffsets out) {
+        int androidMatchEnd = androidPrefixEnd(line, 0, line.length());
+        if (androidMatchEnd == -1) {
+            return false;
         }
 
-        int androidMatchEnd = androidMatcher.end();
         int nameEnd = line.indexOf(':', androidMatchEnd);
 
         if (nameEnd > 0) {
-            String fixedPrefix = line.substring(0, nameEnd + 1) + " ";
-            String editableSuffix = line.substring(nameEnd + 1).trim();
-            return new LineSplitResult(fixedPrefix, editableSuffix);
+            out.set(nameEnd + 1, SplitOffsets.SPACE_TAIL, line, nameEnd + 1);
+            out.setSender(line, androidMatchEnd, nameEnd);
+            return true;
         }
-        return null;
+        return false;
     }
 
-    private static LineSplitResult tryProcessDateSpaceFormat(String line) {
+    private static boolean tryProcessDateSpaceFormat(String line, SplitOffsets out) {
         int firstSpace = line.indexOf(" ");
         if (firstSpace <= 0 || !isValidDateFormat(line, firstSpace)) {
-            return null;
+            return false;
         }
 
         int nameEnd = findFirstNonContextColonIndex(line, firstSpace + 1);
         if (nameEnd > 0) {
-            String fixedPrefix = line.substring(0, nameEnd + 1);
-            String editableSuffix = line.substring(nameEnd + 1).trim();
-            return new LineSplitResult(fixedPrefix, editableSuffix);
+            out.set(nameEnd + 1, SplitOffsets.NO_TAIL, line, nameEnd + 1);
+            return true;
         }
-        return null;
+        return false;
     }
 
     private static boolean isValidDateFormat(String line, int firstSpace) {
         return line.substring(0, firstSpace).matches("\\d{1,2}/\\d{1,2}/\\d{2,4}");
     }
 
-    private static LineSplitResult createFallbackResult(String line) {
+    private static void createFallbackResult(String line, SplitOffsets out) {
         int fallbackColon = findFirstNonContextColonIndex(line, 0);
         if (fallbackColon > 0) {
-            String fixedPrefix = line.substring(0, fallbackColon + 1);
-            String editableSuffix = line.substring(fallbackColon + 1).trim();
-            return new LineSplitResult(fixedPrefix, editableSuffix);
+            out.set(fallbackColon + 1, SplitOffsets.NO_TAIL, line, fallbackColon + 1);
         } else {
-            return new LineSplitResult("", line);
+            out.set(0, SplitOffsets.NO_TAIL, line, 0);
         }
     }
 
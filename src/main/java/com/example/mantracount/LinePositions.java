@@ -0,0 +1,133 @@
+package com.example.mantracount;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Where each distinct line text sits in the loaded lines, so an edit that only knows the
+ * original text finds its line with a hash lookup instead of a scan of the whole file.
+ *
+ * Lines with the same text are chained in file order: a map gives the first position of
+ * each text and two arrays link every position to the next and previous one with the same
+ * text. The first position's previous is the last one, so lines join a chain at either end
+ * and leave even a long chain (empty lines, "Fiz 108") without walking it.
+ * Built once per set of lines and kept up to date by {@link MantraData#setLine}.
+ */
+public final class LinePositions {
+
+    private static final int NONE = -1;
+
+    private final Map<String, Integer> firstPositions;
+    private final int[] nextPositions;
+    private final int[] previousPositions;
+
+    private LinePositions(Map<String, Integer> firstPositions, int[] nextPositions, int[] previousPositions) {
+        this.firstPositions = firstPositions;
+        this.nextPositions = nextPositions;
+        this.previousPositions = previousPositions;
+    }
+
+    /**
+     * @param lines The loaded file lines
+     * @return The positions of every line text
+     */
+    public static LinePositions build(List<String> lines) {
+        int size = lines.size();
+        Map<String, Integer> first = new HashMap<>(Math.max(16, size * 4 / 3 + 1));
+        int[] next = new int[size];
+        int[] previous = new int[size];
+        Arrays.fill(next, NONE);
+        Arrays.fill(previous, NONE);
+
+        // Walk backwards so each text ends up pointing at its earliest line
+        for (int i = size - 1; i >= 0; i--) {
+            Integer later = first.put(lines.get(i), i);
+            if (later == null) {
+                previous[i] = i;
+            } else {
+                next[i] = later;
+                previous[i] = previous[later];
+                previous[later] = i;
+            }
+        }
+        return new LinePositions(first, next, previous);
+    }
+
+    /**
+     * @return The first line with this text, or -1 if there is none
+     */
+    public int first(String text) {
+        Integer position = firstPositions.get(text);
+        return position != null ? position : NONE;
+    }
+
+    /**
+     * @return The next line after this one with the same text, or -1 if there is none
+     */
+    public int next(int position) {
+        return nextPositions[position];
+    }
+
+    /**
+     * Moves a line from the chain of its old text to the chain of its new text.
+     */
+    void replaced(int position, String oldText, String newText) {
+        unlink(position, oldText);
+        link(position, newText);
+    }
+
+    private void unlink(int position, String text) {
+        int first = first(text);
+        int previous = previousPositions[position];
+        int next = nextPositions[position];
+        if (first == position) {
+            if (next == NONE) {
+                firstPositions.remove(text);
+            } else {
+                firstPositions.put(text, next);
+                previousPositions[next] = previous;
+            }
+        } else {
+            nextPositions[previous] = next;
+            previousPositions[next != NONE ? next : first] = previous;
+        }
+        nextPositions[position] = NONE;
+        previousPositions[position] = NONE;
+    }
+
+    private void link(int position, String text) {
+        int first = first(text);
+        if (first == NONE) {
+            firstPositions.put(text, position);
+            nextPositions[position] = NONE;
+            previousPositions[position] = position;
+            return;
+        }
+
+        int last = previousPositions[first];
+        if (position > last) {
+            nextPositions[last] = position;
+            nextPositions[position] = NONE;
+            previousPositions[position] = last;
+            previousPositions[first] = position;
+        } else if (position < first) {
+            firstPositions.put(text, position);
+            nextPositions[position] = first;
+            previousPositions[position] = last;
+            previousPositions[first] = position;
+        } else {
+            // Somewhere in the middle: only an edit into text that many other lines already have
+            int previous = first;
+            while (nextPositions[previous] < position) {
+                previous = nextPositions[previous];
+            }
+            int next = nextPositions[previous];
+            nextPositions[previous] = position;
+            nextPositions[position] = next;
+            previousPositions[position] = previous;
+            previousPositions[next] = position;
+        }
+    }
+}
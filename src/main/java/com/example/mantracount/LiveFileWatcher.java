@@ -0,0 +1,355 @@
+package com.example.mantracount;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Follows the open file while it is written by something else: entries added by
+ * {@link InserirMantraDialog}, or a fresh export saved over the old one.
+ *
+ * The file is remembered as a hash per 4 KB block. When it changes, the new content is hashed
+ * the same way: blocks that still match from the start give the unchanged head, and old blocks
+ * found at the same distance from the end give the unchanged tail. Only the lines in between
+ * are decoded and handed on, as a {@link Change} that splices them into the loaded lines; for
+ * an append that is just the new tail.
+ *
+ * Zips, UTF-16 files and files with edits still in their {@link EditJournal} are reloaded whole.
+ */
+public final class LiveFileWatcher implements AutoCloseable {
+
+    private static final int BLOCK_SIZE = 4096;
+
+    // Writers often touch a file several times in a row; wait until it has been quiet this long
+    private static final long SETTLE_MILLIS = 300;
+
+    private final Path file;
+    private final Charset charset;
+    private final Consumer<Change> listener;
+    private final WatchService watchService;
+    private final boolean wholeFileOnly;
+    private Fingerprint fingerprint;
+
+    private LiveFileWatcher(Path file, Charset charset, Consumer<Change> listener,
+                            WatchService watchService) throws IOException {
+        this.file = file;
+        this.charset = charset;
+        this.listener = listener;
+        this.watchService = watchService;
+        this.wholeFileOnly = file.getFileName().toString().toLowerCase().endsWith(StringConstants.ZIP_EXTENSION);
+        this.fingerprint = wholeFileOnly ? null : fingerprint(file);
+    }
+
+    /**
+     * Starts watching a loaded file. Its content now is taken as what the loaded lines were
+     * read from, so start right after loading.
+     *
+     * @param file The loaded .txt or .zip file
+     * @param charset The encoding the lines were read in
+     * @param listener Told about every change, on the watcher's own thread
+     * @return The running watcher; close it to stop
+     * @throws IOException If the file or its directory cannot be watched
+     */
+    public static LiveFileWatcher start(Path file, Charset charset, Consumer<Change> listener) throws IOException {
+        Path absolute = file.toAbsolutePath();
+        WatchService watchService = absolute.getFileSystem().newWatchService();
+        try {
+            // Whole-file replacements (atomic saves) show up as a create in the directory
+            absolute.getParent().register(watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            LiveFileWatcher watcher = new LiveFileWatcher(absolute, charset, listener, watchService);
+
+            Thread thread = new Thread(watcher::watch, "file-watcher-" + absolute.getFileName());
+            thread.setDaemon(true);
+            thread.start();
+            return watcher;
+        } catch (IOException | RuntimeException e) {
+            watchService.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Stops watching.
+     */
+    @Override
+    public void close() {
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            System.err.println("Error closing file watcher: " + e.getMessage());
+        }
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                if (!touchesFile(watchService.take())) {
+                    continue;
+                }
+                WatchKey more;
+                while ((more = watchService.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    touchesFile(more);
+                }
+                sync();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Closed: stop watching
+        }
+    }
+
+    private boolean touchesFile(WatchKey key) {
+        boolean touched = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            touched |= event.kind() == StandardWatchEventKinds.OVERFLOW || file.getFileName().equals(event.context());
+        }
+        key.reset();
+        return touched;
+    }
+
+    private void sync() {
+        if (!Files.isRegularFile(file)) {
+            return; // Deleted or halfway through a replace; its creation brings us back
+        }
+        try {
+            Change change = compare();
+            if (change != null) {
+                listener.accept(change);
+            }
+        } catch (IOException e) {
+            System.err.println("Could not read " + file.getFileName() + " after it changed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Works out what changed since the last look, and remembers the file as it is now.
+     *
+     * @return The change, or null if the content is the same
+     */
+    Change compare() throws IOException {
+        if (wholeFileOnly || Files.exists(EditJournal.journalFor(file.toString()))) {
+            if (!wholeFileOnly) {
+                fingerprint = fingerprint(file);
+            }
+            return Change.reload(file);
+        }
+
+        try (Arena arena = Arena.ofConfined();
+             FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MemorySegment now = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena);
+            Fingerprint old = fingerprint;
+            fingerprint = Fingerprint.of(now);
+            if (old.utf16 || fingerprint.utf16) {
+                return Change.reload(file);
+            }
+            return diff(old, now);
+        }
+    }
+
+    private Change diff(Fingerprint old, MemorySegment now) {
+        long oldSize = old.size;
+        long newSize = now.byteSize();
+        int oldBlocks = old.blockHashes.length;
+
+        // Unchanged blocks from the start
+        int headBlocks = 0;
+        while (headBlocks < oldBlocks) {
+            long start = (long) headBlocks * BLOCK_SIZE;
+            long end = Math.min(start + BLOCK_SIZE, oldSize);
+            if (end > newSize || MappedLineFile.hash(now, start, end) != old.blockHashes[headBlocks]) {
+                break;
+            }
+            headBlocks++;
+        }
+        if (headBlocks == oldBlocks && newSize == oldSize) {
+            return null;
+        }
+        long headEnd = Math.min((long) headBlocks * BLOCK_SIZE, oldSize);
+
+        // Unchanged blocks at the end: an old block kept by the change sits at the same distance
+        // from the end of the file, so it can be checked in place without searching for it
+        long shift = newSize - oldSize;
+        int tailBlock = oldBlocks;
+        while (tailBlock > headBlocks) {
+            long oldStart = (long) (tailBlock - 1) * BLOCK_SIZE;
+            long oldEnd = Math.min(oldStart + BLOCK_SIZE, oldSize);
+            long newStart = oldStart + shift;
+            if (newStart < headEnd || MappedLineFile.hash(now, newStart, oldEnd + shift) != old.blockHashes[tailBlock - 1]) {
+                break;
+            }
+            tailBlock--;
+        }
+        long newTailStart = Math.min((long) tailBlock * BLOCK_SIZE, oldSize) + shift;
+
+        // Widen the changed bytes to whole lines, using only bytes both versions share
+        long regionStart = headEnd;
+        while (regionStart > 0 && now.get(ValueLayout.JAVA_BYTE, regionStart - 1) != '\n') {
+            regionStart--;
+        }
+        long newRegionEnd = newTailStart;
+        while (newRegionEnd < newSize && now.get(ValueLayout.JAVA_BYTE, newRegionEnd) != '\n') {
+            newRegionEnd++;
+        }
+        newRegionEnd = Math.min(newRegionEnd + 1, newSize);
+
+        int firstBlock = (int) (regionStart / BLOCK_SIZE);
+        int fromLine = old.linesBefore[firstBlock] + countLines(now, (long) firstBlock * BLOCK_SIZE, regionStart);
+        int removedCount = old.lineCount - fromLine - countLines(now, newRegionEnd, newSize);
+
+        byte[] region = now.asSlice(regionStart, newRegionEnd - regionStart).toArray(ValueLayout.JAVA_BYTE);
+        try (MappedLineFile lines = MappedLineFile.wrap(region)) {
+            return new Change(file, fromLine, removedCount, lines.readAllLines(charset), old.lineCount);
+        } catch (CharacterCodingException e) {
+            // The new bytes aren't in the file's encoding any more
+            return Change.reload(file);
+        }
+    }
+
+    private static Fingerprint fingerprint(Path file) throws IOException {
+        try (Arena arena = Arena.ofConfined();
+             FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return Fingerprint.of(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena));
+        }
+    }
+
+    /**
+     * Counts the lines of {@code [from, to)} the way {@link MappedLineFile} splits them:
+     * one per "\n", "\r" or "\r\n", plus a last line without terminator.
+     */
+    private static int countLines(MemorySegment content, long from, long to) {
+        int lines = 0;
+        long size = content.byteSize();
+        for (long pos = from; pos < to; pos++) {
+            byte b = content.get(ValueLayout.JAVA_BYTE, pos);
+            if (b == '\n' || (b == '\r' && (pos + 1 >= size || content.get(ValueLayout.JAVA_BYTE, pos + 1) != '\n'))) {
+                lines++;
+            }
+        }
+        if (to == size && to > from) {
+            byte last = content.get(ValueLayout.JAVA_BYTE, to - 1);
+            if (last != '\n' && last != '\r') {
+                lines++;
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Block hashes and line counts of the file as last seen.
+     */
+    private static final class Fingerprint {
+        private final long size;
+        private final long[] blockHashes;
+        // Lines ending before each block starts, so a line number is found without reading the head
+        private final int[] linesBefore;
+        private final int lineCount;
+        private final boolean utf16;
+
+        private Fingerprint(long size, long[] blockHashes, int[] linesBefore, int lineCount, boolean utf16) {
+            this.size = size;
+            this.blockHashes = blockHashes;
+            this.linesBefore = linesBefore;
+            this.lineCount = lineCount;
+            this.utf16 = utf16;
+        }
+
+        static Fingerprint of(MemorySegment content) {
+            long size = content.byteSize();
+            int blocks = (int) ((size + BLOCK_SIZE - 1) / BLOCK_SIZE);
+            long[] hashes = new long[blocks];
+            int[] linesBefore = new int[blocks + 1];
+            int lines = 0;
+            for (int block = 0; block < blocks; block++) {
+                long start = (long) block * BLOCK_SIZE;
+                long end = Math.min(start + BLOCK_SIZE, size);
+                linesBefore[block] = lines;
+                hashes[block] = MappedLineFile.hash(content, start, end);
+                lines += countLines(content, start, end);
+            }
+            linesBefore[blocks] = lines;
+            return new Fingerprint(size, hashes, linesBefore, lines, MappedLineFile.utf16FromBom(content) != null);
+        }
+    }
+
+    /**
+     * What changed in the file: {@code removedCount} lines at {@code fromLine} became the new
+     * lines, or the whole file has to be read again.
+     */
+    public static final class Change {
+        private final Path file;
+        private final int fromLine;
+        private final int removedCount;
+        private final List<String> lines;
+        private final int expectedLineCount;
+
+        private Change(Path file, int fromLine, int removedCount, List<String> lines, int expectedLineCount) {
+            this.file = file;
+            this.fromLine = fromLine;
+            this.removedCount = removedCount;
+            this.lines = lines;
+            this.expectedLineCount = expectedLineCount;
+        }
+
+        static Change reload(Path file) {
+            return new Change(file, 0, 0, null, -1);
+        }
+
+        public boolean isReload() { return lines == null; }
+        public int getFromLine() { return fromLine; }
+        public int getRemovedCount() { return removedCount; }
+        public List<String> getLines() { return lines; }
+
+        /**
+         * Splices the changed lines into the data, counting only them if the data was processed.
+         * Does nothing for lines that already match, as after our own save. Edits not saved yet
+         * move with their lines, so they are still saved to the right line.
+         *
+         * @return false if the file has to be reloaded instead: a reload change, one that
+         *         doesn't fit the loaded lines because they came from another version of the file,
+         *         or one that replaces a line holding an edit not saved yet
+         */
+        public boolean applyTo(MantraData data) {
+            List<String> loaded = data.getLines();
+            if (isReload() || loaded == null || loaded.size() != expectedLineCount || !data.getZipChatEntries().isEmpty()) {
+                return false;
+            }
+            if (loaded.subList(fromLine, fromLine + removedCount).equals(lines)) {
+                return true; // Our own save
+            }
+
+            int endLine = fromLine + removedCount;
+            List<EditJournal.Edit> unsaved = data.getUnsavedEdits();
+            for (EditJournal.Edit edit : unsaved) {
+                if (edit.getLine() >= fromLine && edit.getLine() < endLine) {
+                    return false;
+                }
+            }
+
+            FileProcessorService.replaceLines(data, fromLine, removedCount, lines);
+            int shift = lines.size() - removedCount;
+            for (int i = 0; i < unsaved.size() && shift != 0; i++) {
+                EditJournal.Edit edit = unsaved.get(i);
+                if (edit.getLine() >= endLine) {
+                    unsaved.set(i, new EditJournal.Edit(edit.getLine() + shift, edit.getOldText(),
+                            edit.getNewText(), edit.getTimestamp()));
+                }
+            }
+            return true;
+        }
+    }
+}
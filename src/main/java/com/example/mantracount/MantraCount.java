@@ -160,9 +160,7 @@ public class MantraCount extends Application {
 
         CompletableFuture.supplyAsync(() -> {
             try {
-                List<MissingDaysDetector.MissingDayInfo> missingDays = MissingDaysDetector.detectMissingDays(
-                        mantraData.getLines(), mantraData.getTargetDate(), mantraData.getNameToCount()
-                );
+                List<MissingDaysDetector.MissingDayInfo> missingDays = MissingDaysDetector.detectMissingDays(mantraData);
                 return !missingDays.isEmpty();
             } catch (Exception ex) {
                 return false;
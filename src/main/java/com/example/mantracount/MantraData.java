@@ -1,8 +1,12 @@
 package com.example.mantracount;
 
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import javafx.scene.control.TextField;
 
 public class MantraData {
@@ -12,6 +16,13 @@ public class MantraData {
     private String mantrasKeyword = "mantras";
     private String ritosKeyword = "ritos"; // New field for ritos
     private List<String> lines = new ArrayList<>();
+    private volatile LineFactsIndex lineFacts;
+    // Built on the first edit that looks lines up by their text
+    private LinePositions linePositions;
+    // Per-line counts of the last processing, so edited lines can be re-counted on their own
+    private LineContributions lineContributions;
+    // Parse of the file as loaded, saved for next time; dropped once the lines change
+    private ParseSnapshot parseSnapshot;
 
     private long totalNameCount;
     private long totalFizCount;
@@ -24,6 +35,16 @@ public class MantraData {
     private String filePath;
     private boolean isFromZip;
     private String originalZipPath;
+    // Encoding the file was read in, so edits are written back the same way
+    private Charset fileCharset = StandardCharsets.UTF_8;
+    // The chats of a zip, in the order their lines were joined; empty for a text file
+    private List<ZipChatArchive.ChatEntry> zipChatEntries = new ArrayList<>();
+    // The folder of monthly files the lines were read from; null for a single file or zip
+    private ShardCorpus corpus;
+    // Edits applied to the lines but not yet journaled or saved
+    private final List<EditJournal.Edit> unsavedEdits = new ArrayList<>();
+    // Counts per chat of a multi-chat zip, from the last processing
+    private final Map<String, FileProcessorService.ProcessResult> entryResults = new LinkedHashMap<>();
 
     private boolean hasMismatch;
 
@@ -39,6 +60,7 @@ public class MantraData {
         this.totalRitosCount = 0; // Reset ritos count
         this.totalFizNumbersSum = 0;
         this.debugLines.clear();
+        this.entryResults.clear();
     }
     public LocalDate getEndDate() { return endDate; }
     public void setEndDate(LocalDate endDate) { this.endDate = endDate; }
@@ -59,7 +81,88 @@ public class MantraData {
     public void setRitosKeyword(String ritosKeyword) { this.ritosKeyword = ritosKeyword.toLowerCase(); }
 
     public List<String> getLines() { return lines; }
-    public void setLines(List<String> lines) { this.lines = lines != null ? lines : new ArrayList<>(); }
+    public void setLines(List<String> lines) {
+        setLines(lines, null);
+    }
+
+    /**
+     * Sets the lines with facts already parsed from them, such as those of a {@link ParseSnapshot}.
+     *
+     * @param facts Facts for exactly these lines, or null to parse them
+     */
+    public void setLines(List<String> lines, LineFactsIndex facts) {
+        this.lines = lines != null ? lines : new ArrayList<>();
+        this.lineFacts = facts != null && facts.getLines() == this.lines ? facts : LineFactsIndex.build(this.lines);
+        this.linePositions = null;
+        this.lineContributions = null;
+        this.parseSnapshot = null;
+    }
+
+    /**
+     * Replaces one line in place, re-parsing only that line's facts.
+     *
+     * @param index The line number (0 based)
+     * @param line The new line text
+     * @return The line it replaced
+     */
+    public String setLine(int index, String line) {
+        String old = lines.set(index, line);
+        parseSnapshot = null;
+        LineFactsIndex facts = lineFacts;
+        if (facts != null && facts.getLines() == lines) {
+            facts.update(index);
+        }
+        if (linePositions != null) {
+            linePositions.replaced(index, old, line);
+        }
+        return old;
+    }
+
+    /**
+     * Replaces a run of lines with a run of possibly different length, such as the part of a
+     * watched file that changed. Only the new lines' facts are parsed; the line positions are
+     * built again on next use.
+     *
+     * @param from First line to replace (0 based)
+     * @param removedCount Number of lines to take out
+     * @param newLines Lines to put in their place
+     */
+    public void replaceLines(int from, int removedCount, List<String> newLines) {
+        List<String> region = lines.subList(from, from + removedCount);
+        region.clear();
+        region.addAll(newLines);
+        parseSnapshot = null;
+        LineFactsIndex facts = lineFacts;
+        if (facts != null && facts.getLines() == lines) {
+            facts.splice(from, removedCount, newLines.size());
+        }
+        linePositions = null;
+    }
+
+    /**
+     * Positions of every line text, built on first use and kept current by {@link #setLine}.
+     */
+    public LinePositions getLinePositions() {
+        if (linePositions == null) {
+            linePositions = LinePositions.build(lines);
+        }
+        return linePositions;
+    }
+
+    /**
+     * Facts parsed once per line when the lines were set. Re-dates the index if the
+     * detected file date format changed since it was built.
+     */
+    public LineFactsIndex getLineFacts() {
+        LineFactsIndex facts = lineFacts;
+        if (facts == null || facts.getLines() != lines) {
+            facts = LineFactsIndex.build(lines);
+        } else if (!facts.isDatedWith(DateParser.getCurrentDateFormat())) {
+            facts = facts.redate();
+        }
+        lineFacts = facts;
+        return facts;
+    }
 
     public long getTotalNameCount() { return totalNameCount; }
     public void setTotalNameCount(long totalNameCount) { this.totalNameCount = totalNameCount; }
@@ -95,6 +198,41 @@ public class MantraData {
     public String getOriginalZipPath() { return originalZipPath; }
     public void setOriginalZipPath(String originalZipPath) { this.originalZipPath = originalZipPath; }
 
+    public Charset getFileCharset() { return fileCharset; }
+    public void setFileCharset(Charset fileCharset) { this.fileCharset = fileCharset; }
+
+    /**
+     * @return Edits made to the lines since the last save, in order; saving clears it
+     */
+    public List<EditJournal.Edit> getUnsavedEdits() { return unsavedEdits; }
+
+    public List<ZipChatArchive.ChatEntry> getZipChatEntries() { return zipChatEntries; }
+    public void setZipChatEntries(List<ZipChatArchive.ChatEntry> entries) {
+        this.zipChatEntries = entries != null ? entries : new ArrayList<>();
+    }
+
+    /**
+     * @return The loaded file's snapshot while the lines are still as loaded, else null
+     */
+    public ParseSnapshot getParseSnapshot() { return parseSnapshot; }
+    public void setParseSnapshot(ParseSnapshot parseSnapshot) { this.parseSnapshot = parseSnapshot; }
+
+    public ShardCorpus getCorpus() { return corpus; }
+    public void setCorpus(ShardCorpus corpus) { this.corpus = corpus; }
+    public boolean isCorpus() { return corpus != null; }
+
+    /**
+     * @return Counts per chat when a zip holds more than one, in archive order; empty otherwise
+     */
+    public Map<String, FileProcessorService.ProcessResult> getEntryResults() { return entryResults; }
+
+    public LineContributions getLineContributions() { return lineContributions; }
+    public void setLineContributions(LineContributions lineContributions) { this.lineContributions = lineContributions; }
+
+    public void putEntryResult(String entryName, FileProcessorService.ProcessResult result) {
+        this.entryResults.put(entryName, result);
+    }
+
     public void setHasMismatch(boolean mismatch) {
         this.hasMismatch = mismatch;
     }
@@ -0,0 +1,249 @@
+package com.example.mantracount;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The mantra entries of a period, one column per field instead of one object per entry:
+ * date (epoch day), file line, line text, type, count and sender. Types and senders are
+ * numbered through small dictionaries, so an entry costs a few ints plus a reference to its
+ * loaded line, which finds the line again if the file changed since. Summaries and filters
+ * are plain loops over the columns.
+ *
+ * Once sorted by date the store also keeps running totals per day (entries, and entries and
+ * counts per type), so the summary of any date range is a few array lookups and its entries
+ * a contiguous slice, without going over the entries again.
+ */
+public final class MantraEntryStore {
+
+    /** Sender id of entries whose line doesn't tell the sender. */
+    public static final int NO_SENDER = -1;
+
+    private int size;
+    private int[] epochDays = new int[16];
+    private int[] lineIds = new int[16];
+    private String[] lineTexts = new String[16];
+    private short[] typeIds = new short[16];
+    private int[] counts = new int[16];
+    private int[] senderIds = new int[16];
+
+    private final List<String> typeNames = new ArrayList<>();
+    private final Map<String, Integer> typesByName = new HashMap<>();
+    private final List<String> senderNames = new ArrayList<>();
+    private final Map<String, Integer> sendersByName = new HashMap<>();
+
+    // Running totals by day, index d holding everything dated before firstDay + d; built by sortByDate
+    private int firstDay;
+    private int[] entriesBeforeDay;
+    private long[] mantrasBeforeDay;
+    private int[][] typeEntriesBeforeDay;
+    private long[][] typeCountBeforeDay;
+
+    /**
+     * Adds an entry at the end.
+     *
+     * @param line The line's text as loaded (kept as is, not copied)
+     * @param sender The sender, or null when the line doesn't tell
+     */
+    public void add(int epochDay, int lineId, String line, String type, int count, String sender) {
+        if (size == epochDays.length) {
+            int capacity = size * 2;
+            epochDays = Arrays.copyOf(epochDays, capacity);
+            lineIds = Arrays.copyOf(lineIds, capacity);
+            lineTexts = Arrays.copyOf(lineTexts, capacity);
+            typeIds = Arrays.copyOf(typeIds, capacity);
+            counts = Arrays.copyOf(counts, capacity);
+            senderIds = Arrays.copyOf(senderIds, capacity);
+        }
+        epochDays[size] = epochDay;
+        lineIds[size] = lineId;
+        lineTexts[size] = line;
+        typeIds[size] = (short) idOf(type, typeNames, typesByName);
+        counts[size] = count;
+        senderIds[size] = sender == null ? NO_SENDER : idOf(sender, senderNames, sendersByName);
+        size++;
+        entriesBeforeDay = null;
+    }
+
+    private static int idOf(String name, List<String> names, Map<String, Integer> ids) {
+        Integer id = ids.get(name);
+        if (id == null) {
+            id = names.size();
+            names.add(name);
+            ids.put(name, id);
+        }
+        return id;
+    }
+
+    /**
+     * Orders the entries by date, keeping file order within a day, and sums them up per day
+     * for the range queries.
+     */
+    public void sortByDate() {
+        // Date in the high half, position in the low half: one primitive sort, stable by construction
+        long[] keys = new long[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = ((long) epochDays[i] << 32) | i;
+        }
+        Arrays.sort(keys);
+
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = (int) keys[i];
+        }
+        epochDays = permute(epochDays, order);
+        lineIds = permute(lineIds, order);
+        counts = permute(counts, order);
+        senderIds = permute(senderIds, order);
+        short[] sortedTypes = new short[order.length];
+        for (int i = 0; i < order.length; i++) {
+            sortedTypes[i] = typeIds[order[i]];
+        }
+        typeIds = sortedTypes;
+        String[] sortedLines = new String[order.length];
+        for (int i = 0; i < order.length; i++) {
+            sortedLines[i] = lineTexts[order[i]];
+        }
+        lineTexts = sortedLines;
+        indexDays();
+    }
+
+    private void indexDays() {
+        int types = typeNames.size();
+        firstDay = size > 0 ? epochDays[0] : 0;
+        int days = size > 0 ? epochDays[size - 1] - firstDay + 2 : 1;
+        entriesBeforeDay = new int[days];
+        mantrasBeforeDay = new long[days];
+        typeEntriesBeforeDay = new int[types][days];
+        typeCountBeforeDay = new long[types][days];
+
+        // Per day first, then running sums
+        for (int i = 0; i < size; i++) {
+            int next = epochDays[i] - firstDay + 1;
+            entriesBeforeDay[next]++;
+            mantrasBeforeDay[next] += Math.max(counts[i], 0);
+            typeEntriesBeforeDay[typeIds[i]][next]++;
+            typeCountBeforeDay[typeIds[i]][next] += counts[i];
+        }
+        for (int d = 1; d < days; d++) {
+            entriesBeforeDay[d] += entriesBeforeDay[d - 1];
+            mantrasBeforeDay[d] += mantrasBeforeDay[d - 1];
+            for (int type = 0; type < types; type++) {
+                typeEntriesBeforeDay[type][d] += typeEntriesBeforeDay[type][d - 1];
+                typeCountBeforeDay[type][d] += typeCountBeforeDay[type][d - 1];
+            }
+        }
+    }
+
+    // Index into the running totals of everything dated before this day
+    private int dayOffset(long epochDay) {
+        if (entriesBeforeDay == null) {
+            throw new IllegalStateException("Entries must be sorted by date first");
+        }
+        return (int) Math.max(0, Math.min(epochDay - firstDay, entriesBeforeDay.length - 1));
+    }
+
+    /**
+     * @return Position of the first entry dated on or after the day
+     */
+    public int firstPosition(long fromDay) {
+        return entriesBeforeDay[dayOffset(fromDay)];
+    }
+
+    /**
+     * @return Position after the last entry dated on or before the day
+     */
+    public int endPosition(long toDay) {
+        return entriesBeforeDay[endOffset(toDay)];
+    }
+
+    private int endOffset(long toDay) {
+        return dayOffset(toDay == Long.MAX_VALUE ? toDay : toDay + 1);
+    }
+
+    private static int[] permute(int[] column, int[] order) {
+        int[] sorted = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            sorted[i] = column[order[i]];
+        }
+        return sorted;
+    }
+
+    /**
+     * @return Positions of the entries of one type dated between the two days (inclusive), in store order
+     */
+    public int[] positionsOfType(String type, long fromDay, long toDay) {
+        Integer typeId = typesByName.get(type);
+        int from = firstPosition(fromDay);
+        int to = endPosition(toDay);
+        if (typeId == null || from >= to) {
+            return new int[0];
+        }
+        int[] positions = new int[to - from];
+        int found = 0;
+        for (int i = from; i < to; i++) {
+            if (typeIds[i] == typeId) {
+                positions[found++] = i;
+            }
+        }
+        return Arrays.copyOf(positions, found);
+    }
+
+    /**
+     * @return Number of entries per type id between the two days (inclusive)
+     */
+    public int[] entriesPerType(long fromDay, long toDay) {
+        int from = dayOffset(fromDay);
+        int to = Math.max(from, endOffset(toDay));
+        int[] entries = new int[typeNames.size()];
+        for (int type = 0; type < entries.length; type++) {
+            entries[type] = typeEntriesBeforeDay[type][to] - typeEntriesBeforeDay[type][from];
+        }
+        return entries;
+    }
+
+    /**
+     * @return Sum of the entries' counts per type id between the two days (inclusive)
+     */
+    public long[] countPerType(long fromDay, long toDay) {
+        int from = dayOffset(fromDay);
+        int to = Math.max(from, endOffset(toDay));
+        long[] sums = new long[typeNames.size()];
+        for (int type = 0; type < sums.length; type++) {
+            sums[type] = typeCountBeforeDay[type][to] - typeCountBeforeDay[type][from];
+        }
+        return sums;
+    }
+
+    /**
+     * @return Sum of the positive counts between the two days (inclusive): the number of mantras found
+     */
+    public long totalMantras(long fromDay, long toDay) {
+        int from = dayOffset(fromDay);
+        int to = Math.max(from, endOffset(toDay));
+        return mantrasBeforeDay[to] - mantrasBeforeDay[from];
+    }
+
+    public int size() { return size; }
+    public int getEpochDay(int position) { return epochDays[position]; }
+    public int getLineId(int position) { return lineIds[position]; }
+    public String getLine(int position) { return lineTexts[position]; }
+    public int getCount(int position) { return counts[position]; }
+    public String getType(int position) { return typeNames.get(typeIds[position]); }
+
+    /**
+     * @return The entry's sender, or null when its line doesn't tell
+     */
+    public String getSender(int position) {
+        int senderId = senderIds[position];
+        return senderId == NO_SENDER ? null : senderNames.get(senderId);
+    }
+
+    /**
+     * @return Every type name, indexed by type id
+     */
+    public List<String> getTypeNames() { return typeNames; }
+}
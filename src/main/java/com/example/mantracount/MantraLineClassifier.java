@@ -9,6 +9,18 @@ import java.util.regex.Pattern;
  */
 public class MantraLineClassifier {
 
+    // Target terms for the lenient mantra/rito matching, each prepared once for fuzzy lookups
+    private static final FuzzyVocabulary MANTRA_RITO_PRELIMINARES = new FuzzyVocabulary("mantra", "rito", "preliminares");
+    private static final FuzzyVocabulary MANTRA_RITO = new FuzzyVocabulary("mantra", "rito");
+    private static final FuzzyVocabulary PRELIMINARES = new FuzzyVocabulary("preliminares");
+    private static final FuzzyVocabulary EXPLICIT_TERMS = new FuzzyVocabulary("mantra", "mantras", "rito", "ritos", "preliminares");
+
+    private static final Set<String> COMMON_WORD_BLACKLIST = Set.of(
+            "para", "pela", "pelo", "cara", "vara", "data", "taxa",
+            "sala", "fala", "mala", "bala", "gala", "rara", "sara",
+            "area", "aria", "era", "ora", "uma", "usa", "mas"
+    );
+
     /**
      * Determines if a line is a relevant mantra count entry for main processing.
      * Requirements: numbers + keyword approximation + action words
@@ -18,7 +30,15 @@ public class MantraLineClassifier {
      * @return true if the line should be processed as a mantra entry
      */
     public static boolean isRelevantMantraEntry(String line, String mantraKeyword) {
-        if (!hasNumbersInEditablePortion(line)) {
+        return isRelevantMantraEntry(line, mantraKeyword, hasNumbersInEditablePortion(line));
+    }
+
+    /**
+     * Variant of {@link #isRelevantMantraEntry(String, String)} for callers that already know
+     * whether the editable portion has digits (see {@link LineFactsIndex}).
+     */
+    public static boolean isRelevantMantraEntry(String line, String mantraKeyword, boolean hasEditableDigits) {
+        if (!hasEditableDigits) {
             return false;
         }
 
@@ -63,56 +83,55 @@ public class MantraLineClassifier {
         return false;
     }
 
+    // Phrases that indicate discussion rather than counting, matched in one scan of the message
+    private static final PhraseMatcher DISCUSSION_PHRASES = new PhraseMatcher(
+            "como é que",
+            "me explique",
+            "professor",
+            "eu entendo",
+            "a preocupação",
+            "diagnóstico",
+            "esquizofrenia",
+            "oportunidade de ajudar",
+            "tive a oportunidade",
+            "não tenho medo",
+            "seria estranho",
+            "se explica isso",
+            "sendo que",
+            "apareceu uma",
+            "nunca vi uma",
+            "bem na hora",
+            "eu tinha a opção",
+            "todos pensam que",
+            "algo que não está",
+            "plano materialista",
+            "essas ocorrências",
+            "mais um surto",
+            "algo a ser verificado",
+            "a partir dos votos",
+            "converso com",
+            "posto no facebook",
+            "ensinar o sutra",
+            "vou poder",
+            "quando o professor",
+            "estava me falando",
+            "eu no tempo todo",
+            "estadia lá",
+            "ficar calado",
+            "eu opto por"
+    );
+
     /**
      * Check if the message has mantra counting context (not just discussion)
      */
     private static boolean hasMantraCountContext(String messageLower) {
-        // Exclude patterns that indicate discussion rather than counting
-        String[] discussionPatterns = {
-                "como é que",
-                "me explique",
-                "professor",
-                "eu entendo",
-                "a preocupação",
-                "diagnóstico",
-                "esquizofrenia",
-                "oportunidade de ajudar",
-                "tive a oportunidade",
-                "não tenho medo",
-                "seria estranho",
-                "se explica isso",
-                "sendo que",
-                "apareceu uma",
-                "nunca vi uma",
-                "bem na hora",
-                "eu tinha a opção",
-                "todos pensam que",
-                "algo que não está",
-                "plano materialista",
-                "essas ocorrências",
-                "mais um surto",
-                "algo a ser verificado",
-                "a partir dos votos",
-                "converso com",
-                "posto no facebook",
-                "ensinar o sutra",
-                "vou poder",
-                "quando o professor",
-                "estava me falando",
-                "eu no tempo todo",
-                "estadia lá",
-                "ficar calado",
-                "eu opto por"
-        };
-
-        for (String pattern : discussionPatterns) {
-            if (messageLower.contains(pattern)) {
-                return false;
-            }
+        // Also exclude very long messages (likely discussions, not counts)
+        if (messageLower.length() > 100) {  // Reduced from 200 to 100
+            return false;
         }
 
-        // Also exclude very long messages (likely discussions, not counts)
-        return messageLower.length() <= 100;  // Reduced from 200 to 100
+        // Exclude patterns that indicate discussion rather than counting
+        return !DISCUSSION_PHRASES.containsAny(messageLower);
     }
 
     /**
@@ -124,9 +143,7 @@ public class MantraLineClassifier {
         String word1 = words[startIndex].replaceAll("[^a-záàâãéêíóôõúüç]", "");
 
         // Check if first word is mantra-related (using lenient matching)
-        boolean isMantraWord = isLenientMantraMatch(word1, "mantra") ||
-                isLenientMantraMatch(word1, "rito") ||
-                isLenientMantraMatch(word1, "preliminares") ||
+        boolean isMantraWord = isLenientMantraMatch(word1, MANTRA_RITO_PRELIMINARES) ||
                 word1.equals("man") || word1.equals("rit") || word1.equals("prel");
 
         if (!isMantraWord) return false;
@@ -141,7 +158,7 @@ public class MantraLineClassifier {
         boolean isPreposition = isLenientPrepositionMatch(word2);
 
         // Pattern: mantra_word + mantra_word (e.g., "rit prel")
-        boolean isSecondMantraWord = isLenientMantraMatch(word2, "preliminares") ||
+        boolean isSecondMantraWord = isLenientMantraMatch(word2, PRELIMINARES) ||
                 word2.equals("prel");
 
         return isPreposition || isSecondMantraWord;
@@ -157,9 +174,7 @@ public class MantraLineClassifier {
         for (int i = startIndex; i < numberIndex; i++) {
             String word = words[i].replaceAll("[^a-záàâãéêíóôõúüç]", "");
 
-            if (isLenientMantraMatch(word, "mantra") ||
-                    isLenientMantraMatch(word, "rito") ||
-                    isLenientMantraMatch(word, "preliminares") ||
+            if (isLenientMantraMatch(word, MANTRA_RITO_PRELIMINARES) ||
                     word.equals("man") || word.equals("rit") || word.equals("prel")) {
                 return true;
             }
@@ -179,8 +194,20 @@ public class MantraLineClassifier {
             return false;
         }
 
+        return isRelevantForAllMantras(line, true, messageContent.toLowerCase());
+    }
+
+    /**
+     * Variant of {@link #isRelevantForAllMantras(String)} that reuses the editable-digit flag and
+     * the lower-cased message content kept by {@link LineFactsIndex}.
+     */
+    public static boolean isRelevantForAllMantras(String line, boolean hasEditableDigits, String messageLower) {
+        if (!hasEditableDigits || messageLower == null || messageLower.isEmpty()) {
+            return false;
+        }
+
         // Check context early to filter out long discussions
-        if (!hasMantraCountContext(messageContent.toLowerCase())) {
+        if (!hasMantraCountContext(messageLower)) {
             return false;
         }
 
@@ -188,9 +215,6 @@ public class MantraLineClassifier {
             return false;
         }
 
-
-        String messageLower = messageContent.toLowerCase();
-
         String[] excludePatterns = {
                 "por \\d+ minutos",
                 "durante \\d+ minutos",
@@ -254,7 +278,15 @@ public class MantraLineClassifier {
      * @return true if the line should be shown in Sem Fiz
      */
     public static boolean isRelevantForSemFiz(String line, String mantraKeyword) {
-        if (!hasNumbersInEditablePortion(line)) {
+        return isRelevantForSemFiz(line, mantraKeyword, hasNumbersInEditablePortion(line));
+    }
+
+    /**
+     * Variant of {@link #isRelevantForSemFiz(String, String)} for callers that already know
+     * whether the editable portion has digits.
+     */
+    public static boolean isRelevantForSemFiz(String line, String mantraKeyword, boolean hasEditableDigits) {
+        if (!hasEditableDigits) {
             return false;
         }
 
@@ -345,9 +377,10 @@ public class MantraLineClassifier {
         String keywordLower = keyword.toLowerCase();
 
         Set<String> allVariants = SynonymManager.getAllVariants(keywordLower);
+        FuzzyVocabulary keywordTerm = FuzzyVocabulary.forKeyword(keywordLower);
         for (String word : lineLower.split("\\s+")) {
             String cleanWord = word.replaceAll("[^a-záàâãéêíóôõúüç]", "");
-            if (allVariants.contains(cleanWord) || isApproximateWordMatch(cleanWord, keywordLower)) {
+            if (allVariants.contains(cleanWord) || isApproximateWordMatch(cleanWord, keywordTerm)) {
                 return true;
             }
         }
@@ -374,8 +407,7 @@ public class MantraLineClassifier {
 
             // Check if first word is mantra/rito abbreviation
             boolean isMantraAbbrev = word1.equals("man") || word1.equals("rit") ||
-                    isLenientMantraMatch(word1, "mantra") ||
-                    isLenientMantraMatch(word1, "rito");
+                    isLenientMantraMatch(word1, MANTRA_RITO);
 
             // Check if second word is preposition (with typos)
             boolean isPreposition = isLenientPrepositionMatch(word2);
@@ -388,16 +420,10 @@ public class MantraLineClassifier {
 
 
         // Use lenient Levenshtein matching for mantra/rito terms
-        String[] targetWords = {"mantra", "mantras", "rito", "ritos", "preliminares"};
-
         for (String word : words) {
             String cleanWord = word.replaceAll("[^a-záàâãéêíóôõúüç]", "");
-            if (cleanWord.length() >= 2) {
-                for (String target : targetWords) {
-                    if (isLenientMantraMatch(cleanWord, target)) {
-                        return true;
-                    }
-                }
+            if (cleanWord.length() >= 2 && isLenientMantraMatch(cleanWord, EXPLICIT_TERMS)) {
+                return true;
             }
         }
 
@@ -412,6 +438,11 @@ public class MantraLineClassifier {
             return false;
         }
 
+        return FuzzyMatchCache.shared().decide(FuzzyMatchCache.Rule.LENIENT_PREPOSITION, "", word,
+                () -> computeLenientPrepositionMatch(word));
+    }
+
+    private static boolean computeLenientPrepositionMatch(String word) {
         // Exact matches first
         String[] exactPrepositions = {"de", "do", "da", "dos", "das"};
         for (String prep : exactPrepositions) {
@@ -423,33 +454,40 @@ public class MantraLineClassifier {
         // Lenient matching for common typos
         String[] targetPrepositions = {"de", "do", "da"};
         for (String target : targetPrepositions) {
-            if (StringUtils.levenshteinDistance(word, target) <= 1) {
+            if (StringUtils.distanceAtMost(word, target, 1)) {
                 return true;
             }
         }
 
         return false;
     }
+
     /**
      * Very lenient matching specifically for mantra/rito terms detection
      * Much more permissive than the existing isApproximateWordMatch
+     *
+     * @return true if the word leniently matches any of the target terms
      */
-    private static boolean isLenientMantraMatch(String word, String target) {
-        if (word.equals(target)) {
-            return true;
-        }
-
+    private static boolean isLenientMantraMatch(String word, FuzzyVocabulary targets) {
         if (word.length() < 2) {
+            // Every target is longer than this, so it can't be an exact match either
             return false;
         }
 
-        if (isCommonAbbreviation(word, target)) {
-            return true;
+        return FuzzyMatchCache.shared().decide(FuzzyMatchCache.Rule.LENIENT_MANTRA, targets, word,
+                () -> computeLenientMantraMatch(word, targets));
+    }
+
+    private static boolean computeLenientMantraMatch(String word, FuzzyVocabulary targets) {
+        for (int id = 0; id < targets.size(); id++) {
+            if (isCommonAbbreviation(word, targets.getTerm(id))) {
+                return true;
+            }
         }
 
+        // Distance 0 covers the exact match
         int maxDistance = calculateMaxDistance(word);
-        int distance = StringUtils.levenshteinDistance(word, target);
-        return distance <= maxDistance;
+        return targets.anyWithin(word, maxDistance);
     }
 
     private static boolean isCommonAbbreviation(String word, String target) {
@@ -485,13 +523,18 @@ public class MantraLineClassifier {
     }
 
     public static boolean isApproximateWordMatch(String word, String keyword) {
-        Set<String> commonWordBlacklist = Set.of(
-                "para", "pela", "pelo", "cara", "vara", "data", "taxa",
-                "sala", "fala", "mala", "bala", "gala", "rara", "sara",
-                "area", "aria", "era", "ora", "uma", "usa", "mas"
-        );
+        return isApproximateWordMatch(word, FuzzyVocabulary.forKeyword(keyword));
+    }
+
+    private static boolean isApproximateWordMatch(String word, FuzzyVocabulary keywordTerm) {
+        return FuzzyMatchCache.shared().decide(FuzzyMatchCache.Rule.APPROXIMATE_KEYWORD, keywordTerm.getTerm(0), word,
+                () -> computeApproximateWordMatch(word, keywordTerm));
+    }
+
+    private static boolean computeApproximateWordMatch(String word, FuzzyVocabulary keywordTerm) {
+        String keyword = keywordTerm.getTerm(0);
 
-        if (commonWordBlacklist.contains(word.toLowerCase())) {
+        if (COMMON_WORD_BLACKLIST.contains(word.toLowerCase())) {
             return false;
         }
 
@@ -510,7 +553,7 @@ public class MantraLineClassifier {
         else if (keywordLength <= 5) threshold = 1;
         else threshold = 2;
 
-        int distance = StringUtils.levenshteinDistance(word, keyword);
+        int distance = keywordTerm.boundedDistance(word, 0, threshold);
         if (distance > threshold) {
             return false;
         }
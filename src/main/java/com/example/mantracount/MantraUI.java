@@ -19,6 +19,7 @@ import javafx.geometry.Rectangle2D;
 import javafx.stage.Screen;
 import java.io.InputStream;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 
 public class MantraUI extends Application {
@@ -40,6 +41,9 @@ public class MantraUI extends Application {
     private Button updateButton;
     private Button semFizButton;
     private TextField mantraField;
+    // Set while the shown results were streamed instead of loaded: nothing to edit or save
+    private StreamingAnalyzer.Result streamedResult;
+    private static final int MAX_LISTED_RANGES = 40;
 
     public static void main(String[] args) {
         launch(args);
@@ -79,6 +83,7 @@ public class MantraUI extends Application {
         primaryStage.setOnCloseRequest(event -> {
             AutoUpdater.shutdown();
             displayController.shutdown();
+            fileController.shutdown();
         });
     }
 
@@ -102,6 +107,8 @@ public class MantraUI extends Application {
                 displayController.getMismatchesScrollPane()
         );
 
+        fileController.setOnFileChanged(this::refreshAfterFileChange);
+
         setupMismatchPanelListener();
         setupWindowStateListeners();
     }
@@ -194,13 +201,20 @@ public class MantraUI extends Application {
 
             setMantraData();
 
+            if (fileController.isLowMemoryMode()) {
+                processStreamed();
+                return;
+            }
+            streamedResult = null;
+
             if (!fileController.ensureFileLoaded()) return;
 
             mantraData.resetCounts();
             FileProcessorService.processFile(mantraData);
 
             displayController.displayResults();
-            displayController.displayMismatchedLines(mantraData.getDebugLines());
+            // A copy: edits saved later update the data's list while these editors still show the old one
+            displayController.displayMismatchedLines(new ArrayList<>(mantraData.getDebugLines()));
 
             boolean hasMismatches = mantraData.getDebugLines() != null && !mantraData.getDebugLines().isEmpty();
             adjustWindowSize(hasMismatches);
@@ -214,6 +228,22 @@ public class MantraUI extends Application {
         }
     }
 
+    /**
+     * Counts the file without loading it. Only the totals, mismatches and missing days are
+     * known afterwards, so the views that need the lines stay disabled.
+     */
+    private void processStreamed() throws Exception {
+        streamedResult = fileController.streamFile();
+
+        displayController.displayResults();
+        displayController.displayMismatchedLines(new ArrayList<>(mantraData.getDebugLines()));
+        adjustWindowSize(!mantraData.getDebugLines().isEmpty());
+
+        checkMissingDaysButton.setDisable(streamedResult.getMissingDays().isEmpty());
+        allMantrasButton.setDisable(true);
+        semFizButton.setDisable(true);
+    }
+
     private boolean validateInputs() {
         if (!dateRangeController.validateStartDate()) return false;
 
@@ -236,17 +266,13 @@ public class MantraUI extends Application {
     private void updateButtonStates() {
         try {
             List<MissingDaysDetector.MissingDayInfo> missingDays =
-                    MissingDaysDetector.detectMissingDays(
-                            mantraData.getLines(),
-                            mantraData.getTargetDate(),
-                            mantraData.getNameToCount()
-                    );
+                    MissingDaysDetector.detectMissingDays(mantraData);
 
             checkMissingDaysButton.setDisable(missingDays.isEmpty());
             allMantrasButton.setDisable(false);
 
             boolean hasMissingFiz = MissingFizAnalyzer.hasMissingFizLines(
-                    mantraData.getLines(),
+                    mantraData.getLineFacts(),
                     mantraData.getTargetDate(),
                     mantraData.getNameToCount()
             );
@@ -268,6 +294,10 @@ public class MantraUI extends Application {
     }
 
     private void saveChanges() {
+        if (streamedResult != null) {
+            UIUtils.showWarning(StringConstants.STREAMED_READ_ONLY_EN, StringConstants.STREAMED_READ_ONLY_PT);
+            return;
+        }
         if (mantraData.getLines() == null || displayController.getMismatchedLines() == null) {
             UIUtils.showError("No file loaded or processed", "Nenhum arquivo carregado ou processado");
             return;
@@ -275,17 +305,43 @@ public class MantraUI extends Application {
 
         boolean success = fileController.saveChanges(displayController.extractUpdatedContentFromUI());
         if (success) {
+            // The edited lines were already counted again, show the new totals and mismatches
+            if (FileProcessorService.hasCurrentCounts(mantraData)) {
+                displayController.displayResults();
+                displayController.displayMismatchedLines(new ArrayList<>(mantraData.getDebugLines()));
+                updateButtonStates();
+            }
             displayController.backupOriginalLines();
             searchController.resetSearchState();
         }
     }
 
+    /**
+     * The watched file changed and its new lines were counted: show the new totals, and the new
+     * mismatches unless the user is in the middle of fixing the old ones.
+     */
+    private void refreshAfterFileChange() {
+        if (!FileProcessorService.hasCurrentCounts(mantraData)) {
+            return;
+        }
+        displayController.displayResults();
+        if (!displayController.hasPendingEdits()) {
+            displayController.displayMismatchedLines(new ArrayList<>(mantraData.getDebugLines()));
+            displayController.backupOriginalLines();
+        }
+        updateButtonStates();
+    }
+
     private void cancelChanges() {
         displayController.revertToOriginalLines();
         searchController.resetSearchState();
     }
 
     private void showMissingDays() {
+        if (streamedResult != null) {
+            showStreamedMissingDays();
+            return;
+        }
         try {
             MissingDaysUI missingDaysUI = new MissingDaysUI();
             Runnable updateButtonCallback = this::updateMissingDaysButtonState;
@@ -297,6 +353,21 @@ public class MantraUI extends Application {
         }
     }
 
+    /**
+     * Lists the missing days found while streaming; there are no lines to show or fix them with.
+     */
+    private void showStreamedMissingDays() {
+        List<MissingDaysDetector.MissingDayRange> missingDays = streamedResult.getMissingDays();
+        StringBuilder ranges = new StringBuilder();
+        for (MissingDaysDetector.MissingDayRange range : missingDays.subList(0, Math.min(missingDays.size(), MAX_LISTED_RANGES))) {
+            ranges.append("\n").append(MissingDaysUI.formatMissingRange(range));
+        }
+        if (missingDays.size() > MAX_LISTED_RANGES) {
+            ranges.append("\n...");
+        }
+        UIUtils.showInfo("Missing days:" + ranges, "Dias faltantes:" + ranges);
+    }
+
     private void showAllMantras() {
         try {
             if (mantraData.getLines() == null || mantraData.getLines().isEmpty()) {
@@ -338,11 +409,7 @@ public class MantraUI extends Application {
     private void updateMissingDaysButtonState() {
         try {
             List<MissingDaysDetector.MissingDayInfo> missingDays =
-                    MissingDaysDetector.detectMissingDays(
-                            mantraData.getLines(),
-                            mantraData.getTargetDate(),
-                            mantraData.getNameToCount()
-                    );
+                    MissingDaysDetector.detectMissingDays(mantraData);
             Platform.runLater(() -> checkMissingDaysButton.setDisable(missingDays.isEmpty()));
         } catch (Exception ex) {
             Platform.runLater(() -> checkMissingDaysButton.setDisable(true));
@@ -352,7 +419,7 @@ public class MantraUI extends Application {
     private void updateSemFizButtonState() {
         try {
             boolean hasMissingFiz = MissingFizAnalyzer.hasMissingFizLines(
-                    mantraData.getLines(),
+                    mantraData.getLineFacts(),
                     mantraData.getTargetDate(),
                     mantraData.getNameToCount()
             );
@@ -363,14 +430,7 @@ public class MantraUI extends Application {
     }
 
     private LocalDate findEarliestDateInFile() {
-        LocalDate earliestDate = null;
-        for (String line : mantraData.getLines()) {
-            LocalDate lineDate = LineParser.extractDate(line);
-            if (lineDate != null && (earliestDate == null || lineDate.isBefore(earliestDate))) {
-                earliestDate = lineDate;
-            }
-        }
-        return earliestDate;
+        return mantraData.getLineFacts().getEarliestDate();
     }
 
     private void setupMismatchPanelListener() {
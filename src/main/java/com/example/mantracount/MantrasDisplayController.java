@@ -106,6 +106,7 @@ public class MantrasDisplayController {
         results.append("Total 'Fiz': ").append(mantraData.getTotalFizCount()).append("\n");
         results.append("Total 'Mantra(s)/Rito(s)': ").append(mantraData.getTotalGenericCount()).append("\n");
         results.append("Total 📿: ").append(mantraData.getTotalFizNumbersSum());
+        UIUtils.appendEntryResults(results, mantraData);
 
         // FIXED: Use UIComponentFactory method to maintain blue background
         UIComponentFactory.setTextAreaState(resultsArea, UIComponentFactory.TextAreaState.NORMAL, results.toString());
@@ -251,6 +252,17 @@ public class MantrasDisplayController {
         return updatedMismatchMap;
     }
 
+    /**
+     * @return true if any mismatched line was edited and not saved yet
+     */
+    public boolean hasPendingEdits() {
+        if (mismatchedLines == null) return false;
+        for (Map.Entry<String, String> edit : extractUpdatedContentFromUI().entrySet()) {
+            if (!edit.getKey().equals(edit.getValue())) return true;
+        }
+        return false;
+    }
+
     private String extractUpdatedLineFromNode(Node node) {
         if (node instanceof HBox lineContainer) {
             if (lineContainer.getChildren().size() >= 2) {
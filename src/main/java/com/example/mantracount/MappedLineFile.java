@@ -0,0 +1,425 @@
+package com.example.mantracount;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * A text file memory-mapped for reading, with its line boundaries indexed in parallel.
+ * The file is cut into newline-aligned chunks that are scanned on separate cores; lines are
+ * decoded on demand with {@link #getLine}, or all at once (again in parallel) with {@link #readAllLines}.
+ *
+ * Lines end at "\n", "\r" or "\r\n", exactly like {@link java.nio.file.Files#readAllLines}.
+ * The mapping is released by {@link #close()}, so the file can be rewritten right after loading.
+ *
+ * The same scan that finds the lines also works out the file's encoding (see
+ * {@link #getDetectedCharset()}), so the bytes are decoded exactly once.
+ */
+public final class MappedLineFile implements AutoCloseable {
+
+    // Chunks smaller than this aren't worth a separate task
+    private static final long MIN_CHUNK_BYTES = 1L << 20;
+
+    // Lines decoded per task by readAllLines
+    private static final int DECODE_BATCH = 8_192;
+
+    private static final Charset WINDOWS_1252 = Charset.forName("windows-1252");
+
+    private final Arena arena;
+    private final MemorySegment segment;
+    private final long[] lineStarts;
+    private final long[] lineEnds;
+    private final Charset detectedCharset;
+
+    private MappedLineFile(Arena arena, MemorySegment segment, long[] lineStarts, long[] lineEnds,
+                           Charset detectedCharset) {
+        this.arena = arena;
+        this.segment = segment;
+        this.lineStarts = lineStarts;
+        this.lineEnds = lineEnds;
+        this.detectedCharset = detectedCharset;
+    }
+
+    /**
+     * Maps the file and indexes its lines.
+     *
+     * @param file The file to open
+     * @return The opened file; close it when done
+     * @throws IOException If the file cannot be opened or mapped
+     */
+    public static MappedLineFile open(Path file) throws IOException {
+        Arena arena = Arena.ofShared();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MemorySegment segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena);
+            return index(arena, segment);
+        } catch (IOException | RuntimeException e) {
+            arena.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Indexes bytes already in memory, such as a chat read out of a zip entry.
+     *
+     * @param bytes The file's content; not copied, so don't modify it while in use
+     * @return The indexed content; closing it does nothing
+     */
+    public static MappedLineFile wrap(byte[] bytes) {
+        return index(null, MemorySegment.ofArray(bytes));
+    }
+
+    private static MappedLineFile index(Arena arena, MemorySegment segment) {
+        // UTF-16 exports are rare and the '\n' byte means nothing in them: index them in one pass
+        Charset utf16 = utf16FromBom(segment);
+        if (utf16 != null) {
+            LineOffsets lines = indexUtf16(segment, utf16 == StandardCharsets.UTF_16BE);
+            return new MappedLineFile(arena, segment, Arrays.copyOf(lines.starts, lines.size),
+                    Arrays.copyOf(lines.ends, lines.size), utf16);
+        }
+
+        long[] bounds = chunkBounds(segment);
+        LineOffsets[] perChunk = new LineOffsets[bounds.length - 1];
+        IntStream.range(0, perChunk.length).parallel()
+                .forEach(c -> perChunk[c] = indexChunk(segment, bounds[c], bounds[c + 1]));
+
+        int total = 0;
+        for (LineOffsets chunk : perChunk) {
+            total += chunk.size;
+        }
+        long[] starts = new long[total];
+        long[] ends = new long[total];
+        int at = 0;
+        for (LineOffsets chunk : perChunk) {
+            System.arraycopy(chunk.starts, 0, starts, at, chunk.size);
+            System.arraycopy(chunk.ends, 0, ends, at, chunk.size);
+            at += chunk.size;
+        }
+        return new MappedLineFile(arena, segment, starts, ends, chooseCharset(perChunk));
+    }
+
+    /**
+     * Reads every line of a file through a mapping, in the encoding found while indexing it.
+     *
+     * @param file The file to read
+     * @return The file's lines, in a mutable list
+     * @throws IOException If the file cannot be read
+     */
+    public static List<String> readLines(Path file) throws IOException {
+        try (MappedLineFile mapped = open(file)) {
+            return mapped.readAllLines();
+        }
+    }
+
+    /**
+     * A fast 64-bit hash of {@code [from, to)}, for telling whether content changed. Not cryptographic.
+     */
+    static long hash(MemorySegment content, long from, long to) {
+        long h = 0x9E3779B97F4A7C15L ^ (to - from);
+        long pos = from;
+        for (; pos + Long.BYTES <= to; pos += Long.BYTES) {
+            h = mix(h ^ content.get(ValueLayout.JAVA_LONG_UNALIGNED, pos));
+        }
+        for (; pos < to; pos++) {
+            h = mix(h ^ content.get(ValueLayout.JAVA_BYTE, pos));
+        }
+        return h;
+    }
+
+    private static long mix(long h) {
+        h *= 0xFF51AFD7ED558CCDL;
+        return h ^ (h >>> 33);
+    }
+
+    /**
+     * A UTF-8 byte order mark needs nothing special: it is valid UTF-8 and stays at the
+     * start of the first line, so it is written back on save.
+     */
+    static Charset utf16FromBom(MemorySegment segment) {
+        if (segment.byteSize() < 2) {
+            return null;
+        }
+        int first = segment.get(ValueLayout.JAVA_BYTE, 0) & 0xFF;
+        int second = segment.get(ValueLayout.JAVA_BYTE, 1) & 0xFF;
+        if (first == 0xFF && second == 0xFE) {
+            return StandardCharsets.UTF_16LE;
+        }
+        if (first == 0xFE && second == 0xFF) {
+            return StandardCharsets.UTF_16BE;
+        }
+        return null;
+    }
+
+    /**
+     * Valid UTF-8 wins. Otherwise it's a single-byte export: Windows-1252 when it uses the
+     * 0x80-0x9F range for curly quotes and dashes, ISO-8859-1 (which takes any byte) when not.
+     */
+    private static Charset chooseCharset(LineOffsets[] perChunk) {
+        boolean utf8 = true;
+        boolean c1 = false;
+        boolean undefinedIn1252 = false;
+        for (LineOffsets chunk : perChunk) {
+            utf8 &= chunk.utf8Valid;
+            c1 |= chunk.hasC1;
+            undefinedIn1252 |= chunk.hasUndefinedIn1252;
+        }
+        if (utf8) {
+            return StandardCharsets.UTF_8;
+        }
+        return c1 && !undefinedIn1252 ? WINDOWS_1252 : StandardCharsets.ISO_8859_1;
+    }
+
+    /**
+     * Splits the file into roughly equal chunks, each starting right after a '\n'.
+     */
+    private static long[] chunkBounds(MemorySegment segment) {
+        long size = segment.byteSize();
+        int chunks = (int) Math.max(1, Math.min(size / MIN_CHUNK_BYTES,
+                Runtime.getRuntime().availableProcessors() * 4L));
+
+        long[] bounds = new long[chunks + 1];
+        int count = 1;
+        for (int c = 1; c < chunks; c++) {
+            long pos = Math.max(size * c / chunks, bounds[count - 1]);
+            while (pos < size && segment.get(ValueLayout.JAVA_BYTE, pos) != '\n') {
+                pos++;
+            }
+            pos = Math.min(pos + 1, size);
+            if (pos > bounds[count - 1] && pos < size) {
+                bounds[count++] = pos;
+            }
+        }
+        bounds[count++] = size;
+        return Arrays.copyOf(bounds, count);
+    }
+
+    /**
+     * Finds the lines of {@code [from, to)}. A '\r' followed by '\n' is one terminator; the
+     * pair never straddles chunks since every chunk but the last ends with '\n'.
+     *
+     * Also checks the bytes are well-formed UTF-8 (same rules as the JDK decoder: no overlong
+     * forms, surrogates or code points past U+10FFFF) and notes which high bytes appear.
+     * A multi-byte sequence can't straddle chunks either, as '\n' can't be inside one.
+     */
+    private static LineOffsets indexChunk(MemorySegment segment, long from, long to) {
+        LineOffsets lines = new LineOffsets();
+        long lineStart = from;
+        // Continuation bytes still expected, and the allowed range of the next one
+        int pending = 0;
+        int low = 0x80;
+        int high = 0xBF;
+        for (long pos = from; pos < to; pos++) {
+            byte b = segment.get(ValueLayout.JAVA_BYTE, pos);
+            if (b < 0) {
+                int u = b & 0xFF;
+                if (u <= 0x9F) {
+                    lines.hasC1 = true;
+                    if (u == 0x81 || u == 0x8D || u == 0x8F || u == 0x90 || u == 0x9D) {
+                        lines.hasUndefinedIn1252 = true;
+                    }
+                }
+                if (pending > 0) {
+                    if (u < low || u > high) {
+                        lines.utf8Valid = false;
+                        pending = 0;
+                        low = 0x80;
+                        high = 0xBF;
+                    } else {
+                        pending--;
+                        low = 0x80;
+                        high = 0xBF;
+                    }
+                } else if (u >= 0xC2 && u <= 0xDF) {
+                    pending = 1;
+                } else if (u >= 0xE0 && u <= 0xEF) {
+                    pending = 2;
+                    if (u == 0xE0) low = 0xA0;
+                    if (u == 0xED) high = 0x9F;
+                } else if (u >= 0xF0 && u <= 0xF4) {
+                    pending = 3;
+                    if (u == 0xF0) low = 0x90;
+                    if (u == 0xF4) high = 0x8F;
+                } else {
+                    lines.utf8Valid = false;
+                }
+                continue;
+            }
+            if (pending > 0) {
+                // Sequence cut short by an ASCII byte
+                lines.utf8Valid = false;
+                pending = 0;
+                low = 0x80;
+                high = 0xBF;
+            }
+            if (b == '\n' || b == '\r') {
+                lines.add(lineStart, pos);
+                if (b == '\r' && pos + 1 < to && segment.get(ValueLayout.JAVA_BYTE, pos + 1) == '\n') {
+                    pos++;
+                }
+                lineStart = pos + 1;
+            }
+        }
+        // A last line without terminator
+        if (lineStart < to) {
+            lines.add(lineStart, to);
+        }
+        if (pending > 0) {
+            lines.utf8Valid = false;
+        }
+        return lines;
+    }
+
+    /**
+     * Finds the lines of a UTF-16 file, looking at whole two-byte code units after the
+     * byte order mark. The mark itself stays in the first line, as with UTF-8.
+     */
+    private static LineOffsets indexUtf16(MemorySegment segment, boolean bigEndian) {
+        LineOffsets lines = new LineOffsets();
+        long size = segment.byteSize();
+        long lineStart = 0;
+        for (long pos = 0; pos + 1 < size; pos += 2) {
+            int first = segment.get(ValueLayout.JAVA_BYTE, pos) & 0xFF;
+            int second = segment.get(ValueLayout.JAVA_BYTE, pos + 1) & 0xFF;
+            int unit = bigEndian ? (first << 8) | second : (second << 8) | first;
+            if (unit == '\n' || unit == '\r') {
+                lines.add(lineStart, pos);
+                if (unit == '\r' && pos + 3 < size) {
+                    int n1 = segment.get(ValueLayout.JAVA_BYTE, pos + 2) & 0xFF;
+                    int n2 = segment.get(ValueLayout.JAVA_BYTE, pos + 3) & 0xFF;
+                    if ((bigEndian ? (n1 << 8) | n2 : (n2 << 8) | n1) == '\n') {
+                        pos += 2;
+                    }
+                }
+                lineStart = pos + 2;
+            }
+        }
+        if (lineStart < size) {
+            lines.add(lineStart, size);
+        }
+        return lines;
+    }
+
+    /**
+     * @return The encoding the file's bytes were found to be in
+     */
+    public Charset getDetectedCharset() {
+        return detectedCharset;
+    }
+
+    public int lineCount() {
+        return lineStarts.length;
+    }
+
+    /**
+     * @return Byte offset of the start of the line in the file
+     */
+    public long getLineOffset(int index) {
+        return lineStarts[index];
+    }
+
+    /**
+     * Decodes one line.
+     *
+     * @param index The line number (0 based)
+     * @param charset The file's character set
+     * @return The line without its terminator
+     * @throws CharacterCodingException If the bytes aren't valid in the character set
+     */
+    public String getLine(int index, Charset charset) throws CharacterCodingException {
+        return decode(charset.newDecoder(), index);
+    }
+
+    /**
+     * Decodes every line in the detected encoding.
+     *
+     * @return The lines, in a mutable list
+     * @throws CharacterCodingException Only for a UTF-16 file with broken surrogate pairs;
+     *         the other encodings are checked while indexing
+     */
+    public List<String> readAllLines() throws CharacterCodingException {
+        return readAllLines(detectedCharset);
+    }
+
+    /**
+     * Decodes every line, in parallel batches.
+     *
+     * @param charset The file's character set
+     * @return The lines, in a mutable list
+     * @throws CharacterCodingException If any line isn't valid in the character set
+     */
+    public List<String> readAllLines(Charset charset) throws CharacterCodingException {
+        String[] lines = new String[lineStarts.length];
+        int batches = (lines.length + DECODE_BATCH - 1) / DECODE_BATCH;
+        try {
+            IntStream.range(0, batches).parallel().forEach(batch -> {
+                CharsetDecoder decoder = charset.newDecoder();
+                int end = Math.min(lines.length, (batch + 1) * DECODE_BATCH);
+                for (int i = batch * DECODE_BATCH; i < end; i++) {
+                    try {
+                        lines[i] = decode(decoder, i);
+                    } catch (CharacterCodingException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw (CharacterCodingException) e.getCause();
+        }
+        return new ArrayList<>(Arrays.asList(lines));
+    }
+
+    private String decode(CharsetDecoder decoder, int index) throws CharacterCodingException {
+        long start = lineStarts[index];
+        long length = lineEnds[index] - start;
+        if (length == 0) {
+            return "";
+        }
+        ByteBuffer bytes = segment.asSlice(start, length).asByteBuffer();
+        return decoder.decode(bytes).toString();
+    }
+
+    /**
+     * Unmaps the file.
+     */
+    @Override
+    public void close() {
+        if (arena != null) {
+            arena.close();
+        }
+    }
+
+    /**
+     * Growable start/end offset pairs for one chunk.
+     */
+    private static final class LineOffsets {
+        long[] starts = new long[1024];
+        long[] ends = new long[1024];
+        int size;
+        boolean utf8Valid = true;
+        boolean hasC1;
+        boolean hasUndefinedIn1252;
+
+        void add(long start, long end) {
+            if (size == starts.length) {
+                starts = Arrays.copyOf(starts, size * 2);
+                ends = Arrays.copyOf(ends, size * 2);
+            }
+            starts[size] = start;
+            ends[size] = end;
+            size++;
+        }
+    }
+}
@@ -34,59 +34,171 @@ public class MissingDaysDetector {
         }
     }
 
-    public static List<MissingDayInfo> detectMissingDays(List<String> lines, LocalDate targetDate, String mantraKeyword) {
-        List<MissingDayInfo> missingDays = new ArrayList<>();
-        Set<LocalDate> relevantDates = new TreeSet<>();
+    /**
+     * A run of consecutive missing days between two active days. A long break is one range;
+     * its days are only made into {@link MissingDayInfo}s when asked for.
+     */
+    public static class MissingDayRange {
+        private final LocalDate start;
+        private final LocalDate end;
+        private final LocalDate previousDate;
+        private final LocalDate nextDate;
 
-        // Find all dates with relevant mantra entries
-        for (String line : lines) {
-            if (LineAnalyzer.hasApproximateMatch(line, mantraKeyword)) {
-                LocalDate date = LineParser.extractDate(line);
-                if (date != null) {
-                    relevantDates.add(date);
+        public MissingDayRange(LocalDate start, LocalDate end, LocalDate previousDate, LocalDate nextDate) {
+            this.start = start;
+            this.end = end;
+            this.previousDate = previousDate;
+            this.nextDate = nextDate;
+        }
+
+        public LocalDate getStart() { return start; }
+        public LocalDate getEnd() { return end; }
+        public LocalDate getPreviousDate() { return previousDate; }
+        public LocalDate getNextDate() { return nextDate; }
+
+        public int getDayCount() {
+            return (int) (end.toEpochDay() - start.toEpochDay() + 1);
+        }
+
+        /**
+         * @return The missing days of the range, each made when it is read
+         */
+        public List<MissingDayInfo> getDays() {
+            return new AbstractList<>() {
+                @Override
+                public MissingDayInfo get(int index) {
+                    Objects.checkIndex(index, getDayCount());
+                    return new MissingDayInfo(start.plusDays(index), previousDate, nextDate);
                 }
-            }
+
+                @Override
+                public int size() {
+                    return getDayCount();
+                }
+            };
+        }
+
+        @Override
+        public String toString() {
+            return "Missing Days: " + start + " to " + end;
+        }
+    }
+
+    public static List<MissingDayInfo> detectMissingDays(List<String> lines, LocalDate targetDate, String mantraKeyword) {
+        return detectMissingDays(LineFactsIndex.build(lines), targetDate, mantraKeyword);
+    }
+
+    /**
+     * Detects missing days for the data's start date and keyword. The relevant dates kept by
+     * the last processing are used when they still apply; edits keep them up to date.
+     */
+    public static List<MissingDayInfo> detectMissingDays(MantraData data) {
+        return expand(detectMissingDayRanges(data));
+    }
+
+    /**
+     * Detects the runs of missing days for the data's start date and keyword, see {@link #detectMissingDays(MantraData)}.
+     */
+    public static List<MissingDayRange> detectMissingDayRanges(MantraData data) {
+        LineContributions contributions = data.getLineContributions();
+        if (contributions != null && contributions.isCurrent(data)) {
+            return detectMissingDayRanges(contributions.getRelevantDates(), data.getTargetDate());
         }
+        return detectMissingDayRanges(findRelevantDates(data.getLineFacts(), data.getNameToCount()), data.getTargetDate());
+    }
 
-        if (relevantDates.isEmpty()) return missingDays;
+    /**
+     * Detects missing days reading line dates from an already built index.
+     */
+    public static List<MissingDayInfo> detectMissingDays(LineFactsIndex facts, LocalDate targetDate, String mantraKeyword) {
+        return detectMissingDays(findRelevantDates(facts, mantraKeyword), targetDate);
+    }
 
-        List<LocalDate> sortedDates = new ArrayList<>(relevantDates);
-        LocalDate startDate = targetDate != null ? targetDate : sortedDates.get(0);
-        LocalDate endDate = sortedDates.get(sortedDates.size() - 1);
+    private static SortedSet<LocalDate> findRelevantDates(LineFactsIndex facts, String mantraKeyword) {
+        SortedSet<LocalDate> relevantDates = new TreeSet<>();
 
-        // Check each day in the range for missing entries
-        LocalDate current = startDate;
-        while (!current.isAfter(endDate)) {
-            if (!relevantDates.contains(current)) {
-                LocalDate prev = findClosestPreviousDate(sortedDates, current);
-                LocalDate next = findClosestNextDate(sortedDates, current);
-                missingDays.add(new MissingDayInfo(current, prev, next));
+        // Find all dates with relevant mantra entries (date check first, it is free from the index)
+        for (int i = 0; i < facts.size(); i++) {
+            if (facts.hasDate(i) && LineAnalyzer.hasApproximateMatch(facts.getLine(i), mantraKeyword)) {
+                relevantDates.add(facts.getDate(i));
             }
-            current = current.plusDays(1);
         }
+        return relevantDates;
+    }
 
-        return missingDays;
+    /**
+     * Detects missing days from the dates that have relevant entries.
+     *
+     * @param relevantDates Dates with at least one relevant entry
+     * @param targetDate First day to check, or null to start at the earliest relevant date
+     * @return Every missing day in date order, made as it is read
+     */
+    public static List<MissingDayInfo> detectMissingDays(SortedSet<LocalDate> relevantDates, LocalDate targetDate) {
+        return expand(detectMissingDayRanges(relevantDates, targetDate));
     }
 
-    private static LocalDate findClosestPreviousDate(List<LocalDate> sortedDates, LocalDate targetDate) {
-        LocalDate prev = null;
-        for (LocalDate date : sortedDates) {
-            if (date.isBefore(targetDate)) {
-                prev = date;
-            } else {
-                break;
-            }
+    /**
+     * Detects the runs of missing days from the dates that have relevant entries.
+     *
+     * @param relevantDates Dates with at least one relevant entry
+     * @param targetDate First day to check, or null to start at the earliest relevant date
+     * @return One range per break, in date order
+     */
+    public static List<MissingDayRange> detectMissingDayRanges(SortedSet<LocalDate> relevantDates, LocalDate targetDate) {
+        List<MissingDayRange> ranges = new ArrayList<>();
+        if (relevantDates.isEmpty()) return ranges;
+
+        long firstActiveDay = relevantDates.first().toEpochDay();
+        long startDay = targetDate != null ? targetDate.toEpochDay() : firstActiveDay;
+        long endDay = relevantDates.last().toEpochDay();
+        if (startDay > endDay) return ranges;
+
+        // One bit per day from the earliest day of interest, so neighbours are a bit search away
+        long baseDay = Math.min(startDay, firstActiveDay);
+        BitSet activeDays = new BitSet((int) (endDay - baseDay + 1));
+        for (LocalDate date : relevantDates) {
+            activeDays.set((int) (date.toEpochDay() - baseDay));
+        }
+
+        // Gap by gap, the last day is active
+        int last = (int) (endDay - baseDay);
+        for (int gapStart = activeDays.nextClearBit((int) (startDay - baseDay)); gapStart < last; ) {
+            int nextActive = activeDays.nextSetBit(gapStart);
+            int previousActive = activeDays.previousSetBit(gapStart - 1);
+            LocalDate prev = previousActive >= 0 ? LocalDate.ofEpochDay(baseDay + previousActive) : null;
+            ranges.add(new MissingDayRange(LocalDate.ofEpochDay(baseDay + gapStart),
+                    LocalDate.ofEpochDay(baseDay + nextActive - 1), prev, LocalDate.ofEpochDay(baseDay + nextActive)));
+            gapStart = activeDays.nextClearBit(nextActive);
         }
-        return prev;
+
+        return ranges;
     }
 
-    private static LocalDate findClosestNextDate(List<LocalDate> sortedDates, LocalDate targetDate) {
-        for (LocalDate date : sortedDates) {
-            if (date.isAfter(targetDate)) {
-                return date;
-            }
+    /**
+     * @return The days of the ranges one after the other, each made when it is read
+     */
+    public static List<MissingDayInfo> expand(List<MissingDayRange> ranges) {
+        // Days before each range, to find a day's range with a binary search
+        int[] daysBefore = new int[ranges.size() + 1];
+        for (int i = 0; i < ranges.size(); i++) {
+            daysBefore[i + 1] = daysBefore[i] + ranges.get(i).getDayCount();
         }
-        return null;
+
+        return new AbstractList<>() {
+            @Override
+            public MissingDayInfo get(int index) {
+                Objects.checkIndex(index, size());
+                int range = Arrays.binarySearch(daysBefore, index);
+                // Between two range starts: it is in the range before
+                range = range >= 0 ? range : -range - 2;
+                return ranges.get(range).getDays().get(index - daysBefore[range]);
+            }
+
+            @Override
+            public int size() {
+                return daysBefore[ranges.size()];
+            }
+        };
     }
 
     public static List<String> findPotentialIssues(List<String> lines, LocalDate missingDate, String mantraKeyword) {
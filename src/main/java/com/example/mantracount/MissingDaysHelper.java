@@ -1,6 +1,7 @@
 package com.example.mantracount;
 
 import java.io.File;
+import java.io.IOException;
 import java.nio.file.Paths;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
@@ -28,12 +29,14 @@ public class MissingDaysHelper {
 
             setBasicMantraData(mantraData, targetDate, mantraKeyword, filePath);
 
-            File processedFile = handleZipFileIfNeeded(file, filePath, mantraData);
-            if (processedFile == null) {
+            FileLoader.LoadedText text = filePath.toLowerCase().endsWith(".zip")
+                    ? readZipFile(file, filePath, mantraData)
+                    : readTextFile(file, mantraData);
+            if (text == null) {
                 return false;
             }
 
-            return loadFileLines(processedFile, mantraData);
+            return applyFileLines(text, mantraData);
 
         } catch (Exception ex) {
             ex.printStackTrace();
@@ -90,22 +93,17 @@ public class MissingDaysHelper {
         mantraData.setFilePath(filePath);
     }
 
-    private static File handleZipFileIfNeeded(File file, String filePath, MantraData mantraData) {
-        if (!filePath.toLowerCase().endsWith(".zip")) {
-            return file;
-        }
-
+    /**
+     * Reads the chat of a zip in memory; the data's file path stays the zip, which is what gets saved.
+     */
+    private static FileLoader.LoadedText readZipFile(File file, String filePath, MantraData mantraData) {
         try {
-            FileLoader.ExtractedFileInfo extractInfo = FileLoader.extractFirstTxtFromZip(file);
-            File extracted = extractInfo.getExtractedFile();
-            String originalEntryName = extractInfo.getOriginalEntryName();
+            List<FileLoader.ZipTextEntry> entries = FileLoader.readTxtEntriesFromZip(file);
 
             mantraData.setFromZip(true);
             mantraData.setOriginalZipPath(filePath);
-            mantraData.setOriginalZipEntryName(originalEntryName);
-            mantraData.setFilePath(extracted.getAbsolutePath());
-            
-            return extracted;
+
+            return FileLoader.joinZipEntries(entries, mantraData);
         } catch (Exception ex) {
             ex.printStackTrace();
             UIUtils.showError("❌ Failed to extract .zip file. / Falha ao extrair arquivo .zip",
@@ -114,24 +112,31 @@ public class MissingDaysHelper {
         }
     }
 
-    private static boolean loadFileLines(File file, MantraData mantraData) {
+    private static FileLoader.LoadedText readTextFile(File file, MantraData mantraData) {
         try {
-            List<String> lines = FileLoader.robustReadLines(file.toPath());
-            mantraData.setLines(lines);
-
-            if (lines == null || lines.isEmpty()) {
-                UIUtils.showError("Empty file / Arquivo vazio",
-                        "The selected file is empty. / O arquivo selecionado está vazio.");
-                return false;
-            }
-
-            return true;
+            mantraData.setZipChatEntries(null);
+            return FileLoader.loadText(file.toPath());
         } catch (Exception e) {
             e.printStackTrace();
             UIUtils.showError("File error / Erro de arquivo",
                     "Failed to read the file: " + e.getMessage() +
                             " / Falha ao ler o arquivo: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static boolean applyFileLines(FileLoader.LoadedText text, MantraData mantraData) throws IOException {
+        List<String> lines = text.getLines();
+        FileLoader.replayJournal(mantraData.getFilePath(), lines, mantraData);
+        mantraData.setFileCharset(text.getCharset());
+        mantraData.setLines(lines);
+
+        if (lines == null || lines.isEmpty()) {
+            UIUtils.showError("Empty file / Arquivo vazio",
+                    "The selected file is empty. / O arquivo selecionado está vazio.");
             return false;
         }
+
+        return true;
     }
 }
\ No newline at end of file
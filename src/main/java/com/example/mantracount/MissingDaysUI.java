@@ -29,13 +29,13 @@ public class MissingDaysUI {
     private final Deque<UndoOperation> undoStack = new ArrayDeque<>();
     private final Map<Integer, Integer> originalPositions = new HashMap<>();
     private final Map<Integer, Integer> contextToActualLineMap = new HashMap<>();
+    private final Map<Integer, String> contextOriginalLines = new HashMap<>();
 
     private VBox issuesEditContainer;
     private Button undoButton;
     private ProgressIndicator progressIndicator;
     private ScrollPane scroll;
     private int missingDaysCount = 0;
-    private List<String> allLines;
     private MissingDaysDetector.MissingDayInfo currentMissingInfo;
     private Runnable onCloseCallback;
 
@@ -137,7 +137,7 @@ public class MissingDaysUI {
         ListView<String> missingList = new ListView<>();
         missingList.setStyle(UIColorScheme.getResultsAreaStyle());
         UIComponentFactory.addTooltip(missingList,
-                "Missing Days List - Click on a date to see surrounding entries for editing");
+                "Missing Days List - Click on a date to see surrounding entries for editing, double-click a range to list its days");
 
         missingList.getSelectionModel().selectedItemProperty().addListener((obs, ov, nv) -> {
             int idx = missingList.getSelectionModel().getSelectedIndex();
@@ -171,14 +171,16 @@ public class MissingDaysUI {
      * Loads missing days asynchronously
      */
     private void loadMissingDaysAsync(MantraData data) {
-        this.allLines = new ArrayList<>(data.getLines());
         progressIndicator.setVisible(true);
 
         CompletableFuture.supplyAsync(() ->
-                MissingDaysDetector.detectMissingDays(allLines, data.getTargetDate(), data.getNameToCount())
+                MissingDaysDetector.detectMissingDayRanges(data)
         ).thenAccept(result -> Platform.runLater(() -> {
-            List<MissingDaysDetector.MissingDayInfo> missingDays = new ArrayList<>(result);
-            missingDaysCount = missingDays.size();
+            List<MissingDaysDetector.MissingDayRange> missingDays = new ArrayList<>(result);
+            missingDaysCount = 0;
+            for (MissingDaysDetector.MissingDayRange range : missingDays) {
+                missingDaysCount += range.getDayCount();
+            }
 
             if (missingDaysCount == 0) {
                 UIUtils.showNoMissingDaysSuccess();
@@ -192,15 +194,16 @@ public class MissingDaysUI {
     }
 
     /**
-     * Populates the missing days list
+     * Populates the missing days list, one item per break. A break of several days is listed
+     * as its first and last day; double-clicking it lists its days one by one.
      */
-    private void populateMissingDaysList(List<MissingDaysDetector.MissingDayInfo> missingDays, MantraData data) {
+    private void populateMissingDaysList(List<MissingDaysDetector.MissingDayRange> missingDays, MantraData data) {
         ListView<String> missingList = findMissingListView();
         if (missingList == null) return;
 
         List<String> items = new ArrayList<>();
-        for (MissingDaysDetector.MissingDayInfo info : missingDays) {
-            items.add(StringConstants.MISSING_DAY_PT + " " + DateFormatUtils.formatShortDate(info.getDate()));
+        for (MissingDaysDetector.MissingDayRange range : missingDays) {
+            items.add(formatMissingRange(range));
         }
 
         missingList.setItems(FXCollections.observableArrayList(items));
@@ -208,14 +211,51 @@ public class MissingDaysUI {
         missingList.getSelectionModel().selectedItemProperty().addListener((obs, ov, nv) -> {
             int idx = missingList.getSelectionModel().getSelectedIndex();
             if (idx >= 0) {
-                currentMissingInfo = missingDays.get(idx);
+                // A break's first day: the lines around it show where the practice stopped
+                currentMissingInfo = missingDays.get(idx).getDays().get(0);
                 showEditableLinesAround(data, currentMissingInfo.getDate());
             }
         });
 
+        missingList.setOnMouseClicked(e -> {
+            int idx = missingList.getSelectionModel().getSelectedIndex();
+            if (e.getClickCount() == 2 && idx >= 0 && missingDays.get(idx).getDayCount() > 1) {
+                expandMissingRange(missingList, missingDays, idx);
+            }
+        });
+
         missingList.getSelectionModel().selectFirst();
     }
 
+    /**
+     * Replaces a break's item with one item per day
+     */
+    private void expandMissingRange(ListView<String> missingList, List<MissingDaysDetector.MissingDayRange> missingDays, int idx) {
+        MissingDaysDetector.MissingDayRange range = missingDays.get(idx);
+        List<MissingDaysDetector.MissingDayRange> days = new ArrayList<>();
+        List<String> items = new ArrayList<>();
+        for (MissingDaysDetector.MissingDayInfo day : range.getDays()) {
+            days.add(new MissingDaysDetector.MissingDayRange(day.getDate(), day.getDate(),
+                    day.getPreviousDate(), day.getNextDate()));
+            items.add(formatMissingRange(days.get(days.size() - 1)));
+        }
+
+        missingDays.remove(idx);
+        missingDays.addAll(idx, days);
+        missingList.getItems().remove(idx);
+        missingList.getItems().addAll(idx, items);
+        missingList.getSelectionModel().select(idx);
+    }
+
+    static String formatMissingRange(MissingDaysDetector.MissingDayRange range) {
+        if (range.getDayCount() == 1) {
+            return StringConstants.MISSING_DAY_PT + " " + DateFormatUtils.formatShortDate(range.getStart());
+        }
+        return String.format(StringConstants.MISSING_DAYS_RANGE_FORMAT_PT,
+                DateFormatUtils.formatShortDate(range.getStart()), DateFormatUtils.formatShortDate(range.getEnd()),
+                range.getDayCount());
+    }
+
     /**
      * Finds the missing list view in the scene graph
      */
@@ -241,10 +281,11 @@ public class MissingDaysUI {
         undoStack.clear();
         originalPositions.clear();
         contextToActualLineMap.clear();
+        contextOriginalLines.clear();
         issuesEditContainer.getChildren().clear();
         undoButton.setDisable(true);
 
-        List<Integer> actualLineIndices = findActualLineIndices(data.getLines(), centerDate);
+        List<Integer> actualLineIndices = findActualLineIndices(data.getLineFacts(), centerDate);
         List<String> contextLines = new ArrayList<>();
 
         for (int i = 0; i < actualLineIndices.size(); i++) {
@@ -253,6 +294,7 @@ public class MissingDaysUI {
                 String line = data.getLines().get(actualIndex);
                 contextLines.add(line);
                 contextToActualLineMap.put(i, actualIndex);
+                contextOriginalLines.put(i, line);
             }
         }
 
@@ -265,25 +307,20 @@ public class MissingDaysUI {
     /**
      * Finds actual line indices in the file
      */
-    private List<Integer> findActualLineIndices(List<String> allLines, LocalDate centerDate) {
+    private List<Integer> findActualLineIndices(LineFactsIndex facts, LocalDate centerDate) {
         List<Integer> actualIndices = new ArrayList<>();
 
-        List<LocalDate> datesToInclude = Arrays.asList(
-                centerDate.minusDays(1),
-                centerDate,
-                centerDate.plusDays(1),
-                centerDate.plusDays(2)
-        );
+        // From the day before up to two days after the missing date
+        long firstDay = centerDate.toEpochDay() - 1;
+        long lastDay = centerDate.toEpochDay() + 2;
 
-        for (int i = 0; i < allLines.size(); i++) {
-            String line = allLines.get(i);
-            LocalDate date = LineParser.extractDate(line);
-            if (date != null && datesToInclude.contains(date)) {
+        for (int i = 0; i < facts.size(); i++) {
+            int lineDay = facts.getEpochDay(i);
+            if (lineDay != LineFactsIndex.NO_DATE && lineDay >= firstDay && lineDay <= lastDay) {
                 actualIndices.add(i);
             }
         }
 
-        actualIndices.sort(Comparator.naturalOrder());
         return actualIndices;
     }
 
@@ -401,20 +438,21 @@ public class MissingDaysUI {
 
         CompletableFuture.runAsync(() -> {
             try {
-                List<String> originalLines = new ArrayList<>(data.getLines());
-                List<String> updatedLines = new ArrayList<>(originalLines);
-
+                Map<Integer, String> updatesByIndex = new LinkedHashMap<>();
                 for (Map.Entry<Integer, String> edit : editedLineIndexes.entrySet()) {
-                    int contextIndex = edit.getKey();
-                    String editedContent = edit.getValue();
-
-                    Integer actualLineIndex = contextToActualLineMap.get(contextIndex);
-                    if (actualLineIndex != null && actualLineIndex >= 0 && actualLineIndex < updatedLines.size()) {
-                        updatedLines.set(actualLineIndex, editedContent);
+                    Integer actualLineIndex = contextToActualLineMap.get(edit.getKey());
+                    if (actualLineIndex == null) {
+                        continue;
+                    }
+                    // The file may have been followed (and its lines moved) while the dialog was open
+                    int lineIndex = FileUtils.resolveLineIndex(data, actualLineIndex, contextOriginalLines.get(edit.getKey()));
+                    if (lineIndex >= 0) {
+                        updatesByIndex.put(lineIndex, edit.getValue());
                     }
                 }
 
-                if (isContentUnchanged(updatedLines, originalLines)) {
+                // Only the edited lines are replaced (and re-parsed), not the whole file
+                if (FileUtils.updateLines(data, updatesByIndex) == 0) {
                     Platform.runLater(() -> {
                         progressIndicator.setVisible(false);
                         UIUtils.showNoChangesInfo();
@@ -422,7 +460,7 @@ public class MissingDaysUI {
                     return;
                 }
 
-                saveChangesToFile(data, updatedLines);
+                saveChangesToFile(data);
 
             } catch (Exception e) {
                 Platform.runLater(() -> {
@@ -434,40 +472,14 @@ public class MissingDaysUI {
     }
 
     /**
-     * Checks if content has changed
-     */
-    private boolean isContentUnchanged(List<String> updatedLines, List<String> originalLines) {
-        if (updatedLines.size() != originalLines.size()) {
-            return false;
-        }
-
-        for (int i = 0; i < updatedLines.size(); i++) {
-            if (!updatedLines.get(i).equals(originalLines.get(i))) {
-                return false;
-            }
-        }
-
-        return true;
-    }
-
-    /**
-     * Saves changes to file
+     * Saves changes to file (journaled, see {@link FileUtils#saveToFileWithZipHandling})
      */
-    private void saveChangesToFile(MantraData data, List<String> updatedLines) {
+    private void saveChangesToFile(MantraData data) {
         try {
-            FileEditSaver.saveToFile(updatedLines, data.getFilePath());
-
-            if (data.isFromZip()) {
-                FileEditSaver.updateZipFile(
-                        data.getOriginalZipPath(),
-                        data.getFilePath(),
-                        updatedLines,
-                        data.getOriginalZipEntryName()
-                );
+            if (!FileUtils.saveToFileWithZipHandling(data)) {
+                throw new IOException("Failed to save changes");
             }
 
-            data.setLines(updatedLines);
-
             Platform.runLater(() -> {
                 progressIndicator.setVisible(false);
                 UIUtils.showFileSavedSuccess();
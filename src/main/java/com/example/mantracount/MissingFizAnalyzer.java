@@ -41,17 +41,15 @@ public class MissingFizAnalyzer {
      * Quick check to see if there are any missing fiz lines (for button state)
      */
     public static boolean hasMissingFizLines(List<String> allLines, LocalDate startDate, String mantraKeyword) {
-        for (String line : allLines) {
-            LocalDate lineDate = LineParser.extractDate(line);
-            if (lineDate == null || lineDate.isBefore(startDate)) {
-                continue;
-            }
-
-            if (ContentClassificationUtils.shouldExcludeFromCounting(line)) {
-                continue;
-            }
+        return hasMissingFizLines(LineFactsIndex.build(allLines), startDate, mantraKeyword);
+    }
 
-            if (MantraLineClassifier.isRelevantForSemFiz(line, mantraKeyword)) {
+    /**
+     * Same as {@link #hasMissingFizLines(List, LocalDate, String)} over an already built index.
+     */
+    public static boolean hasMissingFizLines(LineFactsIndex facts, LocalDate startDate, String mantraKeyword) {
+        for (int i = 0; i < facts.size(); i++) {
+            if (isSemFizCandidate(facts, i, startDate, mantraKeyword)) {
                 return true;
             }
         }
@@ -61,19 +59,21 @@ public class MissingFizAnalyzer {
     public static List<MissingFizResult> findMissingFizLines(List<String> allLines,
                                                              LocalDate startDate,
                                                              String mantraKeyword) {
-        List<MissingFizResult> results = new ArrayList<>();
-
-        for (String line : allLines) {
-            LocalDate lineDate = LineParser.extractDate(line);
-            if (lineDate == null || lineDate.isBefore(startDate)) {
-                continue;
-            }
+        return findMissingFizLines(LineFactsIndex.build(allLines), startDate, mantraKeyword);
+    }
 
-            if (ContentClassificationUtils.shouldExcludeFromCounting(line)) {
-                continue;
-            }
+    /**
+     * Same as {@link #findMissingFizLines(List, LocalDate, String)} over an already built index.
+     */
+    public static List<MissingFizResult> findMissingFizLines(LineFactsIndex facts,
+                                                             LocalDate startDate,
+                                                             String mantraKeyword) {
+        List<MissingFizResult> results = new ArrayList<>();
 
-            if (MantraLineClassifier.isRelevantForSemFiz(line, mantraKeyword)) {
+        for (int i = 0; i < facts.size(); i++) {
+            if (isSemFizCandidate(facts, i, startDate, mantraKeyword)) {
+                String line = facts.getLine(i);
+                LocalDate lineDate = facts.getDate(i);
                 int mantraKeywordCount = LineAnalyzer.countOccurrencesWithWordBoundary(line, mantraKeyword);
                 int mantraWordsCount = LineAnalyzer.countMantraOrMantras(line);
                 int ritosWordsCount = LineAnalyzer.countRitoOrRitos(line);
@@ -90,6 +90,20 @@ public class MissingFizAnalyzer {
         return results;
     }
 
+    private static boolean isSemFizCandidate(LineFactsIndex facts, int index, LocalDate startDate, String mantraKeyword) {
+        int lineDay = facts.getEpochDay(index);
+        if (lineDay == LineFactsIndex.NO_DATE || lineDay < startDate.toEpochDay()) {
+            return false;
+        }
+
+        String line = facts.getLine(index);
+        if (ContentClassificationUtils.shouldExcludeFromCounting(line, facts.getEditableSuffix(index))) {
+            return false;
+        }
+
+        return MantraLineClassifier.isRelevantForSemFiz(line, mantraKeyword, facts.hasDigitsInEditablePortion(index));
+    }
+
 
     /**
      * Generate a summary of missing fiz analysis
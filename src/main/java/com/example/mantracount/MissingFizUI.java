@@ -219,7 +219,7 @@ public class MissingFizUI {
 
         CompletableFuture.supplyAsync(() ->
                 MissingFizAnalyzer.findMissingFizLines(
-                        mantraData.getLines(),
+                        mantraData.getLineFacts(),
                         mantraData.getTargetDate(),
                         mantraData.getNameToCount()
                 )
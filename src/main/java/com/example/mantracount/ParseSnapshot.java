@@ -0,0 +1,221 @@
+package com.example.mantracount;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * What parsing and counting an export found, kept on disk so opening the same export again
+ * skips both: the {@link LineFactsIndex} facts and the {@link LineContributions} counts of
+ * every line, in Documents/MantraCount/snapshots.
+ *
+ * A snapshot is used only for the file it was made from, unchanged: same size, modification
+ * time and content hash, same line count and date format, and written by the same
+ * {@link #ENGINE_VERSION}. The counts are used only for the same keyword and a start date on
+ * or after the one they were counted from. Anything else falls back to a full parse, whose
+ * result is then written as the new snapshot.
+ *
+ * The snapshot is memory-mapped when read. Text files only; zips and folders are parsed as usual,
+ * and so are files with journaled edits not yet folded in.
+ */
+public final class ParseSnapshot {
+
+    private static final String SUFFIX = ".mcsnap";
+    private static final int MAGIC = 0x4D43534E; // "MCSN"
+
+    // Bump whenever line parsing or counting changes, so snapshots made by older code are ignored
+    static final int ENGINE_VERSION = 1;
+
+    private static final ExecutorService WRITER = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "parse-snapshot-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Path file;
+    private final long size;
+    private final long modified;
+    private final long contentHash;
+
+    // What was read back from the existing snapshot, if it matched
+    private LineFactsIndex facts;
+    private ByteBuffer counts;
+    private String countsKeyword;
+    private long countsFromDay;
+
+    private ParseSnapshot(Path file, long size, long modified, long contentHash) {
+        this.file = file;
+        this.size = size;
+        this.modified = modified;
+        this.contentHash = contentHash;
+    }
+
+    /**
+     * Looks for a snapshot of a freshly loaded text file and reads back its facts if it matches.
+     * Call after the file's date format was detected.
+     *
+     * @param file The loaded file
+     * @param lines Its lines, exactly as read from disk
+     * @return The file's snapshot, with {@link #getFacts} null if there was nothing to reuse
+     * @throws IOException If the file cannot be read
+     */
+    public static ParseSnapshot open(Path file, List<String> lines) throws IOException {
+        ParseSnapshot snapshot = identify(file);
+        Path stored = snapshotFor(file);
+        if (!Files.isRegularFile(stored)) {
+            return snapshot;
+        }
+
+        // Unmapped before returning, so the snapshot can be replaced later (Windows won't while mapped)
+        try (Arena arena = Arena.ofConfined();
+             FileChannel channel = FileChannel.open(stored, StandardOpenOption.READ)) {
+            ByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena)
+                    .asByteBuffer().order(ByteOrder.nativeOrder());
+            DateParser.DateFormat format = DateParser.getCurrentDateFormat();
+            if (in.getInt() != MAGIC || in.getInt() != ENGINE_VERSION
+                    || in.getLong() != snapshot.size || in.getLong() != snapshot.modified
+                    || in.getLong() != snapshot.contentHash || in.get() != (byte) format.ordinal()) {
+                return snapshot;
+            }
+            byte[] keyword = new byte[in.getInt()];
+            in.get(keyword);
+            long fromDay = in.getLong();
+
+            LineFactsIndex restored = LineFactsIndex.restore(lines, format, in);
+            if (restored == null) {
+                return snapshot;
+            }
+            snapshot.facts = restored;
+            // Only the lines with counts are in there, a small copy
+            snapshot.counts = ByteBuffer.allocate(in.remaining()).put(in).flip();
+            snapshot.countsKeyword = new String(keyword, StandardCharsets.UTF_8);
+            snapshot.countsFromDay = fromDay;
+        } catch (IOException | RuntimeException e) {
+            // A damaged snapshot is only a slower open
+            System.err.println("Could not read snapshot of " + file.getFileName() + ": " + e.getMessage());
+            snapshot.facts = null;
+            snapshot.counts = null;
+        }
+        return snapshot;
+    }
+
+    private static ParseSnapshot identify(Path file) throws IOException {
+        try (Arena arena = Arena.ofConfined();
+             FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MemorySegment content = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena);
+            return new ParseSnapshot(file, content.byteSize(), Files.getLastModifiedTime(file).toMillis(),
+                    MappedLineFile.hash(content, 0, content.byteSize()));
+        }
+    }
+
+    /**
+     * @return Where the snapshot of a file is kept, named after the file and a hash of its full path
+     */
+    public static Path snapshotFor(Path file) {
+        String userHome = System.getProperty("user.home");
+        Path directory = Paths.get(userHome, "Documents", "MantraCount", "snapshots");
+        String absolute = file.toAbsolutePath().toString();
+        byte[] pathBytes = absolute.getBytes(StandardCharsets.UTF_8);
+        long pathHash = MappedLineFile.hash(MemorySegment.ofArray(pathBytes), 0, pathBytes.length);
+        return directory.resolve(file.getFileName() + "-" + Long.toHexString(pathHash) + SUFFIX);
+    }
+
+    /**
+     * @return The facts read back from the snapshot, or null if the file has to be parsed
+     */
+    public LineFactsIndex getFacts() {
+        return facts;
+    }
+
+    /**
+     * Reads back the counts for a keyword and start date, if the snapshot has them.
+     *
+     * @param facts The data's line facts, which must be the ones read from this snapshot
+     * @return The counts, or null if the lines have to be counted
+     */
+    LineContributions restoreCounts(LineFactsIndex facts, long targetDay, String mantraKeyword) {
+        if (counts == null || facts != this.facts || !mantraKeyword.equals(countsKeyword) || targetDay < countsFromDay) {
+            return null;
+        }
+        return LineContributions.restore(facts, countsFromDay, targetDay, mantraKeyword,
+                counts.duplicate().order(ByteOrder.nativeOrder()));
+    }
+
+    /**
+     * Writes the snapshot in the background, replacing the old one. The bytes are gathered
+     * right away, so later edits of the lines don't leak into it.
+     *
+     * @param facts The facts of the file's lines, as loaded
+     * @param contributions The counts of those lines
+     */
+    void save(LineFactsIndex facts, LineContributions contributions) {
+        byte[] keyword = contributions.getMantraKeyword().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer out = ByteBuffer.allocate(2 * Integer.BYTES + 3 * Long.BYTES + 1 + Integer.BYTES + keyword.length
+                + Long.BYTES + facts.snapshotSize() + contributions.snapshotSize()).order(ByteOrder.nativeOrder());
+        out.putInt(MAGIC).putInt(ENGINE_VERSION).putLong(size).putLong(modified).putLong(contentHash);
+        out.put((byte) DateParser.getCurrentDateFormat().ordinal());
+        out.putInt(keyword.length).put(keyword).putLong(contributions.getCountedFromDay());
+        facts.writeTo(out);
+        contributions.writeTo(out);
+        out.flip();
+
+        Path target = snapshotFor(file);
+        WRITER.execute(() -> {
+            try {
+                Files.createDirectories(target.getParent());
+                Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+                try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                    while (out.hasRemaining()) {
+                        channel.write(out);
+                    }
+                }
+                EditJournal.moveAtomically(temp, target);
+            } catch (IOException e) {
+                System.err.println("Could not save snapshot of " + file.getFileName() + ": " + e.getMessage());
+            }
+        });
+    }
+
+    static int bitsSize(BitSet bits) {
+        return Integer.BYTES + bits.toLongArray().length * Long.BYTES;
+    }
+
+    static void putBits(ByteBuffer out, BitSet bits) {
+        long[] words = bits.toLongArray();
+        out.putInt(words.length);
+        out.asLongBuffer().put(words);
+        out.position(out.position() + words.length * Long.BYTES);
+    }
+
+    static BitSet getBits(ByteBuffer in) {
+        long[] words = new long[in.getInt()];
+        in.asLongBuffer().get(words);
+        in.position(in.position() + words.length * Long.BYTES);
+        return BitSet.valueOf(words);
+    }
+
+    static void putInts(ByteBuffer out, int[] values) {
+        out.asIntBuffer().put(values);
+        out.position(out.position() + values.length * Integer.BYTES);
+    }
+
+    static int[] getInts(ByteBuffer in, int count) {
+        int[] values = new int[count];
+        in.asIntBuffer().get(values);
+        in.position(in.position() + count * Integer.BYTES);
+        return values;
+    }
+}
@@ -0,0 +1,216 @@
+package com.example.mantracount;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+
+/**
+ * Aho-Corasick automaton over a fixed list of phrases.
+ * Finds every phrase contained in a text (same answers as {@code text.contains(phrase)}
+ * for each phrase) in a single left-to-right scan, so the cost does not grow with the
+ * number of phrases in the list.
+ *
+ * Matching is case sensitive; pass lower-cased text for lower-case phrase lists.
+ * Instances are immutable and safe to share between threads.
+ */
+public final class PhraseMatcher {
+
+    private static final int ROOT = 0;
+
+    private final String[] phrases;
+
+    // Per state: sorted transition chars and their target states
+    private final char[][] edgeChars;
+    private final int[][] edgeTargets;
+    private final int[] failure;
+    // Phrase ids ending at each state, including those reached through failure links
+    private final int[][] outputs;
+
+    /**
+     * @param phrases The phrases to look for; a phrase's id is its position in this list
+     */
+    public PhraseMatcher(String... phrases) {
+        this.phrases = phrases.clone();
+
+        List<TreeMap<Character, Integer>> gotoMap = new ArrayList<>();
+        List<List<Integer>> ends = new ArrayList<>();
+        gotoMap.add(new TreeMap<>());
+        ends.add(new ArrayList<>());
+
+        for (int id = 0; id < phrases.length; id++) {
+            String phrase = phrases[id];
+            if (phrase.isEmpty()) {
+                throw new IllegalArgumentException("Empty phrase at position " + id);
+            }
+            int state = ROOT;
+            for (int i = 0; i < phrase.length(); i++) {
+                Integer next = gotoMap.get(state).get(phrase.charAt(i));
+                if (next == null) {
+                    next = gotoMap.size();
+                    gotoMap.get(state).put(phrase.charAt(i), next);
+                    gotoMap.add(new TreeMap<>());
+                    ends.add(new ArrayList<>());
+                }
+                state = next;
+            }
+            ends.get(state).add(id);
+        }
+
+        int stateCount = gotoMap.size();
+        edgeChars = new char[stateCount][];
+        edgeTargets = new int[stateCount][];
+        for (int s = 0; s < stateCount; s++) {
+            TreeMap<Character, Integer> edges = gotoMap.get(s);
+            edgeChars[s] = new char[edges.size()];
+            edgeTargets[s] = new int[edges.size()];
+            int e = 0;
+            for (Map.Entry<Character, Integer> edge : edges.entrySet()) {
+                edgeChars[s][e] = edge.getKey();
+                edgeTargets[s][e] = edge.getValue();
+                e++;
+            }
+        }
+
+        // Breadth-first so a state's failure target is finished before the state itself
+        failure = new int[stateCount];
+        outputs = new int[stateCount][];
+        outputs[ROOT] = toArray(ends.get(ROOT));
+        Queue<Integer> queue = new ArrayDeque<>();
+        for (int child : edgeTargets[ROOT]) {
+            failure[child] = ROOT;
+            outputs[child] = toArray(ends.get(child));
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            for (int e = 0; e < edgeChars[state].length; e++) {
+                char c = edgeChars[state][e];
+                int child = edgeTargets[state][e];
+
+                int fallback = failure[state];
+                while (fallback != ROOT && next(fallback, c) < 0) {
+                    fallback = failure[fallback];
+                }
+                int target = next(fallback, c);
+                failure[child] = target >= 0 ? target : ROOT;
+
+                outputs[child] = merge(toArray(ends.get(child)), outputs[failure[child]]);
+                queue.add(child);
+            }
+        }
+    }
+
+    /**
+     * @return Number of phrases in the automaton
+     */
+    public int size() {
+        return phrases.length;
+    }
+
+    /**
+     * @return The phrase with the given id
+     */
+    public String getPhrase(int id) {
+        return phrases[id];
+    }
+
+    /**
+     * @return true if the text contains at least one of the phrases
+     */
+    public boolean containsAny(String text) {
+        int state = ROOT;
+        for (int i = 0; i < text.length(); i++) {
+            state = step(state, text.charAt(i));
+            if (outputs[state].length > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Counts how many different phrases occur in the text, stopping early once
+     * {@code enough} distinct phrases have been seen.
+     *
+     * @param text The text to scan
+     * @param enough Stop scanning at this many distinct phrases
+     * @return Number of distinct phrases found, at most {@code enough}
+     */
+    public int countDistinct(String text, int enough) {
+        if (enough <= 0) {
+            return 0;
+        }
+        BitSet seen = null;
+        int found = 0;
+        int state = ROOT;
+        for (int i = 0; i < text.length(); i++) {
+            state = step(state, text.charAt(i));
+            for (int id : outputs[state]) {
+                if (seen == null) {
+                    seen = new BitSet(phrases.length);
+                }
+                if (!seen.get(id)) {
+                    seen.set(id);
+                    if (++found >= enough) {
+                        return found;
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * @return Ids of every phrase contained in the text
+     */
+    public BitSet findAll(String text) {
+        BitSet matched = new BitSet(phrases.length);
+        int state = ROOT;
+        for (int i = 0; i < text.length(); i++) {
+            state = step(state, text.charAt(i));
+            for (int id : outputs[state]) {
+                matched.set(id);
+            }
+        }
+        return matched;
+    }
+
+    private int step(int state, char c) {
+        while (true) {
+            int target = next(state, c);
+            if (target >= 0) {
+                return target;
+            }
+            if (state == ROOT) {
+                return ROOT;
+            }
+            state = failure[state];
+        }
+    }
+
+    private int next(int state, char c) {
+        int e = Arrays.binarySearch(edgeChars[state], c);
+        return e >= 0 ? edgeTargets[state][e] : -1;
+    }
+
+    private static int[] toArray(List<Integer> ids) {
+        int[] result = new int[ids.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = ids.get(i);
+        }
+        return result;
+    }
+
+    private static int[] merge(int[] own, int[] inherited) {
+        if (inherited.length == 0) return own;
+        if (own.length == 0) return inherited;
+        int[] result = Arrays.copyOf(own, own.length + inherited.length);
+        System.arraycopy(inherited, 0, result, own.length, inherited.length);
+        return result;
+    }
+}
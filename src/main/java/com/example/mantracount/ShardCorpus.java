@@ -0,0 +1,249 @@
+package com.example.mantracount;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A folder of chat files read as one timeline: the monthly files {@link InserirMantraDialog}
+ * writes (yyyy-MM.txt) plus any exports saved beside them.
+ *
+ * Monthly files whose month is outside the requested dates are not read at all, so a report
+ * over a few months touches only those months however many years the folder holds. The files
+ * that are read are read concurrently, one virtual thread each, and their lines joined in
+ * name order (monthly files in month order). Each file's range in the joined lines is kept,
+ * so an edit is saved back by rewriting only the file it belongs to.
+ */
+public final class ShardCorpus {
+
+    private static final Pattern MONTH_SHARD = Pattern.compile("(\\d{4})-(\\d{2})\\.txt", Pattern.CASE_INSENSITIVE);
+
+    private final Path directory;
+    private final LocalDate from;
+    private final LocalDate to;
+    private final List<Shard> shards;
+    private final int skippedShards;
+
+    private ShardCorpus(Path directory, LocalDate from, LocalDate to, List<Shard> shards, int skippedShards) {
+        this.directory = directory;
+        this.from = from;
+        this.to = to;
+        this.shards = shards;
+        this.skippedShards = skippedShards;
+    }
+
+    /**
+     * Reads the files of a folder that can hold lines between two dates.
+     *
+     * @param directory The folder
+     * @param from First date wanted, or null for no limit
+     * @param to Last date wanted, or null for no limit
+     * @param lines Receives the lines of every file read, one file after the other
+     * @return Where each file's lines went
+     * @throws IOException If the folder or one of its files cannot be read
+     */
+    public static ShardCorpus read(Path directory, LocalDate from, LocalDate to, List<String> lines) throws IOException {
+        List<Path> selected = new ArrayList<>();
+        int skipped = 0;
+        for (Path file : listShards(directory)) {
+            if (isInRange(monthOf(file), from, to)) {
+                selected.add(file);
+            } else {
+                skipped++;
+            }
+        }
+
+        List<ShardText> texts = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<ShardText>> pending = new ArrayList<>();
+            for (Path file : selected) {
+                pending.add(executor.submit(() -> readShard(file)));
+            }
+            for (Future<ShardText> future : pending) {
+                texts.add(future.get());
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof IOException ? (IOException) cause : new IOException(cause.getMessage(), cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while reading the folder", e);
+        }
+
+        List<Shard> shards = new ArrayList<>();
+        for (int i = 0; i < selected.size(); i++) {
+            List<String> shardLines = texts.get(i).lines;
+            shards.add(new Shard(selected.get(i), texts.get(i).charset, lines.size(), shardLines.size()));
+            lines.addAll(shardLines);
+        }
+        return new ShardCorpus(directory, from, to, shards, skipped);
+    }
+
+    private static ShardText readShard(Path file) throws IOException {
+        try (MappedLineFile mapped = MappedLineFile.open(file)) {
+            return new ShardText(mapped.readAllLines(), mapped.getDetectedCharset());
+        } catch (IOException e) {
+            throw new IOException("Failed to read file " + file.getFileName() + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @return The .txt files of the folder, sorted by name
+     * @throws IOException If the folder cannot be listed
+     */
+    public static List<Path> listShards(Path directory) throws IOException {
+        TreeSet<Path> files = new TreeSet<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path file : stream) {
+                if (Files.isRegularFile(file)
+                        && file.getFileName().toString().toLowerCase().endsWith(StringConstants.TXT_EXTENSION)) {
+                    files.add(file);
+                }
+            }
+        }
+        return new ArrayList<>(files);
+    }
+
+    /**
+     * @return The month of a monthly file (yyyy-MM.txt), or null for any other file
+     */
+    public static YearMonth monthOf(Path file) {
+        Matcher matcher = MONTH_SHARD.matcher(file.getFileName().toString());
+        if (!matcher.matches()) {
+            return null;
+        }
+        int month = Integer.parseInt(matcher.group(2));
+        return month >= 1 && month <= 12 ? YearMonth.of(Integer.parseInt(matcher.group(1)), month) : null;
+    }
+
+    /**
+     * @return false only for a monthly file whose month lies outside the dates; other files may hold any date
+     */
+    public static boolean isInRange(YearMonth month, LocalDate from, LocalDate to) {
+        if (month == null) {
+            return true;
+        }
+        return (from == null || !month.isBefore(YearMonth.from(from)))
+                && (to == null || !month.isAfter(YearMonth.from(to)));
+    }
+
+    /**
+     * @return true if the files read hold every line between the two dates (null for no limit)
+     */
+    public boolean covers(LocalDate wantedFrom, LocalDate wantedTo) {
+        if (skippedShards == 0) {
+            return true;
+        }
+        boolean fromCovered = from == null || (wantedFrom != null && !YearMonth.from(wantedFrom).isBefore(YearMonth.from(from)));
+        boolean toCovered = to == null || (wantedTo != null && !YearMonth.from(wantedTo).isAfter(YearMonth.from(to)));
+        return fromCovered && toCovered;
+    }
+
+    /**
+     * @return The file the line at this index was read from
+     */
+    public Shard shardOf(int line) {
+        return shards.get(shardIndexOf(line));
+    }
+
+    private int shardIndexOf(int line) {
+        int low = 0;
+        int high = shards.size() - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (shards.get(mid).getFirstLine() <= line) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Writes back the files that hold edited lines, each atomically; the other files are not touched.
+     * Each file is read again first and the edits applied to what is on disk now, so lines added
+     * since the folder was loaded (by {@link InserirMantraDialog}) are kept. An edit whose line moved
+     * is found by the text it replaced; one whose text is gone is skipped.
+     *
+     * @param edits The edits, in the order they were made, indexed in the joined lines
+     * @return How many files were written
+     * @throws IOException If a file cannot be read or written
+     */
+    public int saveShards(List<EditJournal.Edit> edits) throws IOException {
+        Map<Integer, List<EditJournal.Edit>> editsByShard = new TreeMap<>();
+        for (EditJournal.Edit edit : edits) {
+            editsByShard.computeIfAbsent(shardIndexOf(edit.getLine()), index -> new ArrayList<>()).add(edit);
+        }
+        for (Map.Entry<Integer, List<EditJournal.Edit>> entry : editsByShard.entrySet()) {
+            Shard shard = shards.get(entry.getKey());
+            ShardText current = readShard(shard.getPath());
+            List<String> shardLines = current.lines;
+            for (EditJournal.Edit edit : entry.getValue()) {
+                int line = edit.getLine() - shard.getFirstLine();
+                if (line < 0 || line >= shardLines.size() || !shardLines.get(line).equals(edit.getOldText())) {
+                    line = shardLines.indexOf(edit.getOldText());
+                }
+                if (line == -1) {
+                    System.err.println("Edit skipped, line no longer in " + shard.getPath().getFileName() + ": " + edit.getOldText());
+                    continue;
+                }
+                shardLines.set(line, edit.getNewText());
+            }
+            FileEditSaver.saveToFileAtomically(shardLines, shard.getPath().toString(), current.charset);
+        }
+        return editsByShard.size();
+    }
+
+    public Path getDirectory() { return directory; }
+    public List<Shard> getShards() { return shards; }
+    public int getSkippedShards() { return skippedShards; }
+
+    private static final class ShardText {
+        private final List<String> lines;
+        private final Charset charset;
+
+        private ShardText(List<String> lines, Charset charset) {
+            this.lines = lines;
+            this.charset = charset;
+        }
+    }
+
+    /**
+     * One file of the folder and where its lines sit in the joined lines.
+     */
+    public static final class Shard {
+        private final Path path;
+        private final Charset charset;
+        private final int firstLine;
+        private final int lineCount;
+
+        public Shard(Path path, Charset charset, int firstLine, int lineCount) {
+            this.path = path;
+            this.charset = charset;
+            this.firstLine = firstLine;
+            this.lineCount = lineCount;
+        }
+
+        public Path getPath() { return path; }
+        public Charset getCharset() { return charset; }
+        public int getFirstLine() { return firstLine; }
+        public int getLineCount() { return lineCount; }
+        public int getEndLine() { return firstLine + lineCount; }
+    }
+}
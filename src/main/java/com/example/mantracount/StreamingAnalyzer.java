@@ -0,0 +1,247 @@
+package com.example.mantracount;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Counts mantras, mismatches and missing days while reading a file line by line,
+ * without loading the whole export into memory like {@link FileLoader#loadInto}.
+ *
+ * Only the lines the user may want to look at are kept: mismatched lines and the counted
+ * entries from the start date on. Memory grows with those and with the number of distinct
+ * days, not with the size of the file, so multi-gigabyte archives can be counted.
+ *
+ * Each run reads dates in its own format, detected from the first dates of the file (of every
+ * chat, for a zip), and leaves the detected format of the loaded file alone. The counts are the
+ * same as {@link FileProcessorService#processFile} and {@link MissingDaysDetector} give for the
+ * fully loaded file.
+ */
+public class StreamingAnalyzer {
+
+    private static final int READ_BUFFER_CHARS = 64 * 1024;
+
+    // Upper bound on lines read for date format detection when a chat has few dates
+    private static final int MAX_DETECTION_LINES = 10_000;
+
+    private static final Charset WINDOWS_1252 = Charset.forName("windows-1252");
+
+    /** Opens one chat's bytes from the start, as often as needed. */
+    interface ChatSource {
+        InputStream open() throws IOException;
+    }
+
+    /**
+     * Results of a streaming analysis.
+     */
+    public static class Result {
+        private final FileProcessorService.ProcessResult totals = new FileProcessorService.ProcessResult();
+        private final List<String> retainedLines = new ArrayList<>();
+        private final SortedSet<LocalDate> relevantDates = new TreeSet<>();
+        private List<MissingDaysDetector.MissingDayRange> missingDays = new ArrayList<>();
+        private final DateParser.DateFormat dateFormat;
+        private int lastRelevantDay = LineParser.NO_DATE;
+        private long linesRead;
+
+        private Result(DateParser.DateFormat dateFormat) {
+            this.dateFormat = dateFormat;
+        }
+
+        public FileProcessorService.ProcessResult getTotals() { return totals; }
+
+        /**
+         * @return Counted entries and mismatched lines from the start date on, in file order
+         */
+        public List<String> getRetainedLines() { return retainedLines; }
+
+        public List<MissingDaysDetector.MissingDayRange> getMissingDays() { return missingDays; }
+
+        /**
+         * @return The date format this run read the file's dates with
+         */
+        public DateParser.DateFormat getDateFormat() { return dateFormat; }
+
+        public long getLinesRead() { return linesRead; }
+
+        /**
+         * Copies the counts and mismatched lines into the mantra data. The data's lines are
+         * dropped: a streamed file is never loaded, so there is nothing to edit or save until it
+         * is loaded the usual way.
+         */
+        public void applyTo(MantraData data) {
+            data.getUnsavedEdits().clear();
+            data.setZipChatEntries(null);
+            data.setCorpus(null);
+            data.setLines(new ArrayList<>());
+            totals.applyTo(data);
+        }
+
+        private void add(Result chat) {
+            totals.merge(chat.totals);
+            retainedLines.addAll(chat.retainedLines);
+            relevantDates.addAll(chat.relevantDates);
+            linesRead += chat.linesRead;
+        }
+    }
+
+    /**
+     * Analyzes a .txt file, or every .txt entry of a .zip file one after the other.
+     * Each is decoded as UTF-8, or Windows-1252 / ISO-8859-1 if it isn't valid UTF-8,
+     * like {@link FileLoader#loadText}.
+     *
+     * @param file The file to analyze
+     * @param targetDate Count entries from this date on
+     * @param mantraKeyword The keyword being searched for
+     * @return The analysis results
+     * @throws IOException If the file cannot be read
+     */
+    public static Result analyze(Path file, LocalDate targetDate, String mantraKeyword) throws IOException {
+        boolean isZipFile = file.getFileName().toString().toLowerCase().endsWith(StringConstants.ZIP_EXTENSION);
+        if (!isZipFile) {
+            return analyze(List.of(() -> Files.newInputStream(file)), targetDate, mantraKeyword);
+        }
+
+        try (ZipFile zip = new ZipFile(file.toFile())) {
+            List<ChatSource> chats = new ArrayList<>();
+            for (ZipEntry entry : ZipChatArchive.findTxtEntries(zip)) {
+                chats.add(() -> zip.getInputStream(entry));
+            }
+            return analyze(chats, targetDate, mantraKeyword);
+        }
+    }
+
+    /**
+     * Analyzes chats read together, in order.
+     */
+    static Result analyze(List<ChatSource> chats, LocalDate targetDate, String mantraKeyword) throws IOException {
+        List<List<Charset>> charsets = new ArrayList<>();
+        List<List<String>> heads = new ArrayList<>();
+        for (ChatSource chat : chats) {
+            List<Charset> candidates = candidateCharsets(chat);
+            charsets.add(candidates);
+            heads.add(readHead(chat, candidates.get(0)));
+        }
+        // This run's own format, from the first dates of every chat like a loaded zip's
+        DateParser.DateFormat format = DateParser.inferFormatOfChats(heads);
+        heads = null;
+
+        Result result = new Result(format);
+        long targetDay = targetDate.toEpochDay();
+        for (int i = 0; i < chats.size(); i++) {
+            result.add(analyzeChat(chats.get(i), charsets.get(i), format, targetDay, mantraKeyword));
+        }
+
+        result.missingDays = MissingDaysDetector.detectMissingDayRanges(result.relevantDates, targetDate);
+        System.out.println("Streamed " + result.linesRead + " lines (" + format + "), kept " + result.retainedLines.size());
+        return result;
+    }
+
+    /**
+     * @return The encodings to try in order: the byte order mark's, or UTF-8 then the single-byte ones
+     */
+    private static List<Charset> candidateCharsets(ChatSource chat) throws IOException {
+        byte[] bom;
+        try (InputStream in = chat.open()) {
+            bom = in.readNBytes(2);
+        }
+        if (bom.length == 2 && (bom[0] & 0xFF) == 0xFF && (bom[1] & 0xFF) == 0xFE) {
+            return List.of(StandardCharsets.UTF_16LE);
+        }
+        if (bom.length == 2 && (bom[0] & 0xFF) == 0xFE && (bom[1] & 0xFF) == 0xFF) {
+            return List.of(StandardCharsets.UTF_16BE);
+        }
+        return List.of(StandardCharsets.UTF_8, WINDOWS_1252, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Reads a chat's first lines, until the format detection has seen enough dates.
+     */
+    private static List<String> readHead(ChatSource chat, Charset charset) throws IOException {
+        // Dates are ASCII, so any single-byte reading of UTF-8 or Windows-1252 text finds them
+        Charset headCharset = charset == StandardCharsets.UTF_8 ? StandardCharsets.ISO_8859_1 : charset;
+        List<String> head = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(chat.open(), headCharset), READ_BUFFER_CHARS)) {
+            int dateTokens = 0;
+            String line;
+            while (dateTokens < DateParser.FORMAT_DETECTION_SAMPLE && head.size() < MAX_DETECTION_LINES
+                    && (line = reader.readLine()) != null) {
+                head.add(line);
+                dateTokens += DateParser.countDateTokens(line);
+            }
+        }
+        return head;
+    }
+
+    private static Result analyzeChat(ChatSource chat, List<Charset> charsets, DateParser.DateFormat format,
+                                      long targetDay, String mantraKeyword) throws IOException {
+        for (int i = 0; ; i++) {
+            // newDecoder() reports bytes the charset can't decode instead of silently replacing them
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(chat.open(), charsets.get(i).newDecoder()), READ_BUFFER_CHARS)) {
+                Result counted = new Result(format);
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    accept(counted, line, format, targetDay, mantraKeyword);
+                }
+                return counted;
+            } catch (CharacterCodingException e) {
+                if (i == charsets.size() - 1) {
+                    throw e;
+                }
+                // Not this encoding: count the chat again with the next one
+            }
+        }
+    }
+
+    /**
+     * Feeds one line to the counting and missing-day logic.
+     */
+    private static void accept(Result result, String line, DateParser.DateFormat format,
+                               long targetDay, String mantraKeyword) {
+        result.linesRead++;
+
+        // Missing days look at every dated line, not just the ones from the start date on
+        int rawDay = LineParser.extractEpochDay(line, 0, line.length(), format);
+        if (rawDay != LineParser.NO_DATE && rawDay != result.lastRelevantDay
+                && LineAnalyzer.hasApproximateMatch(line, mantraKeyword)) {
+            result.relevantDates.add(LocalDate.ofEpochDay(rawDay));
+            result.lastRelevantDay = rawDay;
+        }
+
+        // Counting reads the trimmed line, like processFile
+        int start = 0;
+        int end = line.length();
+        while (start < end && line.charAt(start) <= ' ') start++;
+        while (end > start && line.charAt(end - 1) <= ' ') end--;
+        if (start == end) {
+            return;
+        }
+
+        int lineDay = start == 0 && end == line.length() ? rawDay : LineParser.extractEpochDay(line, start, end, format);
+        if (lineDay == LineParser.NO_DATE || lineDay < targetDay) {
+            return;
+        }
+
+        LineParser.LineData parsed = LineParser.parseLine(line, lineDay, mantraKeyword);
+        result.totals.add(parsed, line);
+
+        boolean counted = parsed.getMantraKeywordCount() > 0 || parsed.getMantraWordsCount() > 0
+                || parsed.getRitosWordsCount() > 0 || parsed.getFizCount() > 0;
+        if (counted || parsed.hasMismatch()) {
+            result.retainedLines.add(line);
+        }
+    }
+}
@@ -47,6 +47,8 @@ public class StringConstants {
 
     public static final String OPEN_FILE_PT = "Abrir Arquivo";
     public static final String OPEN_FILE_EN = "Open File - Browse and select your journal/diary file";
+    public static final String OPEN_FOLDER_PT = "Abrir Pasta";
+    public static final String OPEN_FOLDER_EN = "Open Folder - Read the monthly files (yyyy-MM.txt) and exports of a folder as one timeline";
 
     public static final String SEARCH_PT = "Buscar";
     public static final String SEARCH_EN = "Search - Execute the search";
@@ -115,6 +117,18 @@ public class StringConstants {
     public static final String EXTRACT_ZIP_ERROR_EN = "Failed to extract .zip file";
     public static final String EXTRACT_ZIP_ERROR_PT = "Falha ao extrair arquivo .zip";
 
+    public static final String MIXED_DATE_FORMATS_EN = "The chats in this .zip write dates in different orders (day/month and month/day). All of them are read as the majority does, so some dates may show day and month swapped";
+    public static final String MIXED_DATE_FORMATS_PT = "As conversas deste .zip escrevem as datas em ordens diferentes (dia/mês e mês/dia). Todas são lidas como a maioria, então algumas datas podem aparecer com dia e mês trocados";
+
+    public static final String JOURNAL_EDITS_SKIPPED_EN = "%d saved edits were not applied: the lines they changed are no longer in the file. They are kept in the journal; redo them if still needed:";
+    public static final String JOURNAL_EDITS_SKIPPED_PT = "%d edições salvas não foram aplicadas: as linhas que alteravam não estão mais no arquivo. Elas continuam no diário; refaça-as se ainda forem necessárias:";
+
+    public static final String WATCH_STOPPED_UNSAVED_EN = "The file changed on disk, but there are edits not saved yet. Stopped following the file: save or discard the edits, then check \"Acompanhar arquivo\" again";
+    public static final String WATCH_STOPPED_UNSAVED_PT = "O arquivo mudou no disco, mas há edições ainda não salvas. O arquivo deixou de ser acompanhado: salve ou descarte as edições e ative \"acompanhar arquivo\" de novo";
+
+    public static final String STREAMED_READ_ONLY_EN = "These results were counted without loading the file, so there is nothing to edit or save. Uncheck \"Economizar memória\" and process again to fix lines";
+    public static final String STREAMED_READ_ONLY_PT = "Estes resultados foram contados sem carregar o arquivo, então não há o que editar ou salvar. Desmarque \"Economizar memória\" e processe de novo para corrigir linhas";
+
     // Analysis results
     public static final String NO_MISMATCHES_EN = "No mismatches found";
     public static final String NO_MISMATCHES_PT = "Nenhuma discrepância encontrada";
@@ -147,6 +161,8 @@ public class StringConstants {
     public static final String REMOVE_TOOLTIP = "Remove - Remove this line (can be undone)";
     public static final String UNDO_TOOLTIP = "Undo Last Removal - Restore the last entry that was removed";
     public static final String EXACT_WORD_TOOLTIP = "Exact word - Check to search for exact word matches only";
+    public static final String WATCH_FILE_TOOLTIP = "Watch file - Follow new entries and a newer export saved over this file without reloading";
+    public static final String LOW_MEMORY_TOOLTIP = "Save memory - Count a very large file or .zip while reading it, without loading it (results can't be edited)";
 
     // Window titles
     public static final String MISSING_DAYS_TITLE = "Análise de Saltos de Dias";
@@ -183,6 +199,7 @@ public class StringConstants {
 
     public static final String FOUND_LINES_PT = "Linhas encontradas";
     public static final String MISSING_DAY_PT = "Faltante:";
+    public static final String MISSING_DAYS_RANGE_FORMAT_PT = "Faltantes: %s a %s (%d dias)";
 
     // Update messages
     public static final String UPDATE_LABEL_PT = "Atualizar";
@@ -321,6 +338,7 @@ public class StringConstants {
     public static final String TOTAL_MANTRA_RITO_FORMAT = "Total 'Mantra(s)/Rito(s)': %d";
     public static final String TOTAL_EMOJI_FORMAT = "Total 📿: %d";
     public static final String RESULTS_SEPARATOR = "\n--\n";
+    public static final String ENTRY_RESULT_FORMAT = "📁 %s: '%s' %d | Fiz %d | Mantra(s)/Rito(s) %d | 📿 %d";
     
     // Header Formats
     public static final String ALL_MANTRAS_HEADER_PT = "Todos os Mantras de %s a %s";
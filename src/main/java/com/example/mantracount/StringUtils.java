@@ -1,5 +1,7 @@
 package com.example.mantracount;
 
+import java.util.Arrays;
+
 /**
  * Utility class for common string operations.
  * Consolidates duplicated string processing methods across the application.
@@ -42,6 +44,181 @@ public class StringUtils {
         return dp[a.length()][b.length()];
     }
 
+    /**
+     * Checks whether the Levenshtein distance between two strings is at most {@code k}.
+     * Cheaper than {@link #levenshteinDistance(String, String)} when only a threshold matters:
+     * it allocates nothing for words up to 64 characters and stops as soon as k is exceeded.
+     *
+     * @param a the first string
+     * @param b the second string
+     * @param k the largest distance still accepted
+     * @return true if {@code levenshteinDistance(a, b) <= k}
+     */
+    public static boolean distanceAtMost(String a, String b, int k) {
+        return boundedLevenshteinDistance(a, b, k) <= k;
+    }
+
+    /**
+     * Calculates the Levenshtein distance between two strings, giving up once it exceeds {@code k}.
+     *
+     * @param a the first string
+     * @param b the second string
+     * @param k the largest distance of interest (must not be negative)
+     * @return the Levenshtein distance if it is at most k, otherwise k + 1
+     */
+    public static int boundedLevenshteinDistance(String a, String b, int k) {
+        if (a == null || b == null) {
+            throw new IllegalArgumentException("Strings cannot be null");
+        }
+        if (k < 0) {
+            throw new IllegalArgumentException("Bound cannot be negative");
+        }
+
+        // Use the shorter string as the pattern so it fits in the bit vector more often
+        String pattern = a.length() <= b.length() ? a : b;
+        String text = pattern == a ? b : a;
+        if (text.length() - pattern.length() > k) {
+            return k + 1;
+        }
+        if (pattern.isEmpty()) {
+            return text.length();
+        }
+
+        int distance = pattern.length() <= Long.SIZE
+                ? bitParallelDistance(PatternMasks.of(pattern), text, k)
+                : bandedDistance(pattern, text, k);
+        return Math.min(distance, k + 1);
+    }
+
+    /**
+     * Myers/Hyyrö bit-parallel edit distance: one column of the DP matrix per text character,
+     * held as vertical +1/-1 delta bit vectors.
+     *
+     * @param pattern The pattern's character table, see {@link PatternMasks#of}
+     * @return The edit distance if it is at most k, otherwise a value above k
+     */
+    static int bitParallelDistance(PatternMasks pattern, String text, int k) {
+        int m = pattern.length;
+        int n = text.length();
+        long lastBit = 1L << (m - 1);
+        long pv = -1L;
+        long mv = 0L;
+        int score = m;
+
+        for (int j = 0; j < n; j++) {
+            long eq = pattern.maskOf(text.charAt(j));
+
+            long xv = eq | mv;
+            long xh = (((eq & pv) + pv) ^ pv) | eq;
+            long ph = mv | ~(xh | pv);
+            long mh = pv & xh;
+
+            if ((ph & lastBit) != 0) {
+                score++;
+            } else if ((mh & lastBit) != 0) {
+                score--;
+            }
+
+            // The top row of the matrix grows by one per column
+            ph = (ph << 1) | 1L;
+            mh = mh << 1;
+            pv = mh | ~(xv | ph);
+            mv = ph & xv;
+
+            // Each remaining column can lower the score by at most one
+            if (score - (n - j - 1) > k) {
+                return k + 1;
+            }
+        }
+        return score;
+    }
+
+    /**
+     * A pattern's character table for {@link #bitParallelDistance}: its distinct characters,
+     * sorted, and for each the bit mask of the positions holding it. Built once, it can be
+     * matched against any number of texts.
+     */
+    static final class PatternMasks {
+        private final int length;
+        private final char[] chars;
+        private final long[] masks;
+
+        private PatternMasks(int length, char[] chars, long[] masks) {
+            this.length = length;
+            this.chars = chars;
+            this.masks = masks;
+        }
+
+        /**
+         * @param pattern 1 to 64 characters
+         */
+        static PatternMasks of(String pattern) {
+            char[] chars = pattern.toCharArray();
+            Arrays.sort(chars);
+            int distinct = 0;
+            for (int i = 0; i < chars.length; i++) {
+                if (i == 0 || chars[i] != chars[i - 1]) {
+                    chars[distinct++] = chars[i];
+                }
+            }
+            chars = Arrays.copyOf(chars, distinct);
+
+            long[] masks = new long[distinct];
+            for (int i = 0; i < pattern.length(); i++) {
+                masks[Arrays.binarySearch(chars, pattern.charAt(i))] |= 1L << i;
+            }
+            return new PatternMasks(pattern.length(), chars, masks);
+        }
+
+        long maskOf(char c) {
+            int slot = Arrays.binarySearch(chars, c);
+            return slot >= 0 ? masks[slot] : 0L;
+        }
+    }
+
+    /**
+     * Two-row DP restricted to the diagonal band |i - j| <= k, for patterns too long for a bit vector.
+     */
+    private static int bandedDistance(String pattern, String text, int k) {
+        int m = pattern.length();
+        int n = text.length();
+        int outside = k + 1;
+        int[] previous = new int[n + 1];
+        int[] current = new int[n + 1];
+
+        for (int j = 0; j <= n; j++) {
+            previous[j] = j <= k ? j : outside;
+        }
+
+        for (int i = 1; i <= m; i++) {
+            int from = Math.max(1, i - k);
+            int to = Math.min(n, i + k);
+            current[0] = i <= k ? i : outside;
+            if (from > 1) {
+                current[from - 1] = outside;
+            }
+
+            int rowMin = current[0];
+            for (int j = from; j <= to; j++) {
+                int cost = pattern.charAt(i - 1) == text.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(previous[j - 1] + cost, Math.min(previous[j], current[j - 1]) + 1);
+                current[j] = Math.min(value, outside);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (to < n) {
+                current[to + 1] = outside;
+            }
+            if (rowMin > k) {
+                return outside;
+            }
+
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[n];
+    }
+
     /**
      * Extracts the first number found in a text string.
      * Scans the text character by character and builds the first complete number encountered.
@@ -163,6 +163,12 @@ public class UIComponentFactory {
                     StringConstants.OPEN_FILE_EN,
                     NAVIGATION_COLOR, null);
         }
+
+        public static Button createOpenFolderButton() {
+            return createStyledButton(StringConstants.OPEN_FOLDER_PT,
+                    StringConstants.OPEN_FOLDER_EN,
+                    NAVIGATION_COLOR, null);
+        }
     }
 
     public static class TextFields {
@@ -412,6 +418,20 @@ public class UIComponentFactory {
         return checkBox;
     }
 
+    public static CheckBox createWatchFileCheckBox() {
+        CheckBox checkBox = new CheckBox("Acompanhar arquivo");
+        checkBox.setStyle(UIColorScheme.getCheckboxStyle());
+        addTooltip(checkBox, StringConstants.WATCH_FILE_TOOLTIP);
+        return checkBox;
+    }
+
+    public static CheckBox createLowMemoryCheckBox() {
+        CheckBox checkBox = new CheckBox("Economizar memória");
+        checkBox.setStyle(UIColorScheme.getCheckboxStyle());
+        addTooltip(checkBox, StringConstants.LOW_MEMORY_TOOLTIP);
+        return checkBox;
+    }
+
     public static Label createInfoBadge(String text, String englishTooltip) {
         Label badge = new Label(text);
         badge.setPadding(new javafx.geometry.Insets(2, 8, 2, 8));
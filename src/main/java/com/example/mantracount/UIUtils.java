@@ -6,6 +6,8 @@ import javafx.scene.control.ButtonType;
 import javafx.scene.control.TextArea;
 import javafx.scene.control.TextField;
 
+import java.util.Map;
+
 /**
  * Enhanced UIUtils with consistent error handling and bilingual message formatting.
  * All messages follow the format: emoji + English text on line 1, emoji + Portuguese text on line 2.
@@ -274,11 +276,31 @@ public class UIUtils {
         sb.append(String.format(StringConstants.TOTAL_FIZ_FORMAT, mantraData.getTotalFizCount())).append("\n");
         sb.append(String.format(StringConstants.TOTAL_MANTRA_RITO_FORMAT, mantraData.getTotalGenericCount())).append("\n");
         sb.append(String.format(StringConstants.TOTAL_EMOJI_FORMAT, mantraData.getTotalFizNumbersSum()));
+        appendEntryResults(sb, mantraData);
 
         resultTextArea.setText(sb.toString());
         resultTextArea.setStyle(StringConstants.BLACK_TEXT_STYLE);
     }
 
+    /**
+     * Appends one line per chat when the results came from a zip bundling several chats.
+     */
+    public static void appendEntryResults(StringBuilder sb, MantraData mantraData) {
+        if (mantraData.getEntryResults().size() < 2) {
+            return;
+        }
+        String capitalized = capitalizeFirst(mantraData.getNameToCount());
+        sb.append(StringConstants.RESULTS_SEPARATOR);
+        for (Map.Entry<String, FileProcessorService.ProcessResult> entry : mantraData.getEntryResults().entrySet()) {
+            FileProcessorService.ProcessResult result = entry.getValue();
+            String chatName = entry.getKey().substring(entry.getKey().lastIndexOf('/') + 1);
+            sb.append(String.format(StringConstants.ENTRY_RESULT_FORMAT, chatName, capitalized,
+                    result.getTotalMantraKeywordCount(), result.getTotalFizCount(),
+                    result.getTotalGenericCount(), result.getTotalFizNumbersSum())).append("\n");
+        }
+        sb.setLength(sb.length() - 1);
+    }
+
     /**
      * Shows success with callback
      */
@@ -0,0 +1,186 @@
+package com.example.mantracount;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Precompiled, case-insensitive matcher for a fixed list of lowercase ASCII words.
+ * Gives the same answers as {@code Pattern.compile("\\b" + word + "\\b")} run on
+ * {@code line.toLowerCase()} for every word in the list, but walks the line once,
+ * left to right, through a small trie and allocates nothing.
+ *
+ * A match must be a whole word: the regex {@code \b} sees ASCII letters, digits and '_'
+ * (plus combining marks sitting on a letter or digit) as word characters, so a match is
+ * exactly a maximal run of those characters.
+ */
+public final class WholeWordMatcher {
+
+    private static final int ALPHABET = 26;
+    private static final int DEAD = -1;
+
+    private final int[][] transitions;
+    private final boolean[] terminal;
+
+    /**
+     * @param words The words to match, lowercase a-z only
+     */
+    public WholeWordMatcher(String... words) {
+        List<int[]> states = new ArrayList<>();
+        List<Boolean> ends = new ArrayList<>();
+        states.add(newState());
+        ends.add(false);
+
+        for (String word : words) {
+            int state = 0;
+            for (int i = 0; i < word.length(); i++) {
+                char c = word.charAt(i);
+                if (c < 'a' || c > 'z') {
+                    throw new IllegalArgumentException("Only lowercase a-z words are supported: " + word);
+                }
+                int next = states.get(state)[c - 'a'];
+                if (next == DEAD) {
+                    next = states.size();
+                    states.get(state)[c - 'a'] = next;
+                    states.add(newState());
+                    ends.add(false);
+                }
+                state = next;
+            }
+            if (state != 0) {
+                ends.set(state, true);
+            }
+        }
+
+        this.transitions = states.toArray(new int[0][]);
+        this.terminal = new boolean[ends.size()];
+        for (int i = 0; i < terminal.length; i++) {
+            terminal[i] = ends.get(i);
+        }
+    }
+
+    private static int[] newState() {
+        int[] state = new int[ALPHABET];
+        Arrays.fill(state, DEAD);
+        return state;
+    }
+
+    /**
+     * @return true if any of the words appears as a whole word in the text
+     */
+    public boolean containsAny(String text) {
+        return scan(lowerIfLocaleSensitive(text), 0, false) >= 0;
+    }
+
+    /**
+     * @return Number of whole-word occurrences of any of the words in the text
+     */
+    public int count(String text) {
+        return scan(lowerIfLocaleSensitive(text), 0, true);
+    }
+
+    /**
+     * Finds the next whole-word occurrence of any of the words at or after {@code fromIndex}.
+     * Under Turkish, Azeri or Lithuanian default locales the positions refer to
+     * {@code text.toLowerCase()}, which is what the regex version used to scan.
+     *
+     * @param text The text to scan
+     * @param fromIndex Where to resume, e.g. one past the previous match start
+     * @return Start index of the match, or -1 if there is none
+     */
+    public int indexOf(String text, int fromIndex) {
+        return scan(lowerIfLocaleSensitive(text), Math.max(0, fromIndex), false);
+    }
+
+    /**
+     * Walks the text once, splitting it into words the way {@code \b} does.
+     *
+     * @return The match count when {@code countAll}, else the first match start or -1
+     */
+    private int scan(String text, int fromIndex, boolean countAll) {
+        int count = 0;
+        int wordStart = fromIndex;
+        // Resuming inside a word: its remainder can never be a whole-word match
+        int state = fromIndex > 0 && isWordCharAt(text, fromIndex - 1) ? DEAD : 0;
+        boolean baseIsLetterOrDigit = false;
+
+        for (int i = fromIndex; i < text.length(); i++) {
+            char original = text.charAt(i);
+            char c;
+            boolean word;
+
+            if (original < 0x80) {
+                c = Character.toLowerCase(original);
+                word = isAsciiWordChar(c);
+                baseIsLetterOrDigit = Character.isLetterOrDigit(c);
+            } else if (Character.getType(original) == Character.NON_SPACING_MARK) {
+                // Regex \b treats combining marks on a letter or digit as part of the word
+                c = original;
+                word = baseIsLetterOrDigit;
+            } else if (original == '\u0130') {
+                // Lower-cases to "i" plus a combining dot, so it never spells an ASCII word
+                c = original;
+                word = true;
+                baseIsLetterOrDigit = true;
+            } else {
+                c = Character.toLowerCase(original);
+                word = isAsciiWordChar(c);
+                baseIsLetterOrDigit = Character.isLetterOrDigit(c);
+            }
+
+            if (word) {
+                if (state != DEAD) {
+                    state = c >= 'a' && c <= 'z' ? transitions[state][c - 'a'] : DEAD;
+                }
+                continue;
+            }
+
+            if (state != DEAD && terminal[state]) {
+                if (!countAll) return wordStart;
+                count++;
+            }
+            state = 0;
+            wordStart = i + 1;
+        }
+
+        if (state != DEAD && terminal[state]) {
+            if (!countAll) return wordStart;
+            count++;
+        }
+        return countAll ? count : -1;
+    }
+
+    private static boolean isWordCharAt(String text, int index) {
+        char c = text.charAt(index);
+        if (c == '\u0130') {
+            return true;
+        }
+        if (Character.getType(c) != Character.NON_SPACING_MARK) {
+            return isAsciiWordChar(Character.toLowerCase(c));
+        }
+        for (int i = index - 1; i >= 0; i--) {
+            char base = text.charAt(i);
+            if (Character.getType(base) != Character.NON_SPACING_MARK) {
+                return base == '\u0130' || Character.isLetterOrDigit(base);
+            }
+        }
+        return false;
+    }
+
+    private static boolean isAsciiWordChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '_';
+    }
+
+    /**
+     * These locales lower-case 'I' (and accented I's) differently from
+     * {@link Character#toLowerCase(char)}; keep the old behaviour of scanning the lowered line.
+     */
+    private static String lowerIfLocaleSensitive(String text) {
+        String language = Locale.getDefault().getLanguage();
+        if ("tr".equals(language) || "az".equals(language) || "lt".equals(language)) {
+            return text.toLowerCase();
+        }
+        return text;
+    }
+}
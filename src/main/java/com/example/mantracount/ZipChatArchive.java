@@ -0,0 +1,96 @@
+package com.example.mantracount;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Finds and reads the chats inside a WhatsApp export zip (one, or several bundled exports).
+ * Entries are looked up in the archive's central directory, so the photos and voice notes
+ * of a media export are never read; only the chat entries are decompressed, into memory.
+ */
+public final class ZipChatArchive {
+
+    private ZipChatArchive() {
+        // Utility class - prevent instantiation
+    }
+
+    /**
+     * @return The first .txt entry of the archive, in central directory order
+     * @throws FileNotFoundException If the archive has no .txt entry
+     */
+    public static ZipEntry findFirstTxtEntry(ZipFile zip) throws FileNotFoundException {
+        Enumeration<? extends ZipEntry> entries = zip.entries();
+        while (entries.hasMoreElements()) {
+            ZipEntry entry = entries.nextElement();
+            if (isChatEntry(entry)) {
+                return entry;
+            }
+        }
+        throw new FileNotFoundException("No .txt file found in the zip archive.\n(Não há arquivo .txt no arquivo zip.)");
+    }
+
+    /**
+     * @return Every .txt entry of the archive, in central directory order
+     * @throws FileNotFoundException If the archive has no .txt entry
+     */
+    public static List<ZipEntry> findTxtEntries(ZipFile zip) throws FileNotFoundException {
+        List<ZipEntry> chats = new ArrayList<>();
+        Enumeration<? extends ZipEntry> entries = zip.entries();
+        while (entries.hasMoreElements()) {
+            ZipEntry entry = entries.nextElement();
+            if (isChatEntry(entry)) {
+                chats.add(entry);
+            }
+        }
+        if (chats.isEmpty()) {
+            throw new FileNotFoundException("No .txt file found in the zip archive.\n(Não há arquivo .txt no arquivo zip.)");
+        }
+        return chats;
+    }
+
+    public static boolean isChatEntry(ZipEntry entry) {
+        return !entry.isDirectory() && entry.getName().toLowerCase().endsWith(StringConstants.TXT_EXTENSION);
+    }
+
+    /**
+     * Decompresses one entry into memory.
+     *
+     * @throws IOException If the entry cannot be read or is too large for an array
+     */
+    public static byte[] readEntry(ZipFile zip, ZipEntry entry) throws IOException {
+        try (InputStream in = zip.getInputStream(entry)) {
+            return in.readAllBytes();
+        }
+    }
+
+    /**
+     * Where one chat of the archive sits in the loaded lines, which hold every chat one
+     * after the other. Edits replace lines one for one, so the ranges stay valid until reload.
+     */
+    public static final class ChatEntry {
+        private final String name;
+        private final Charset charset;
+        private final int firstLine;
+        private final int lineCount;
+
+        public ChatEntry(String name, Charset charset, int firstLine, int lineCount) {
+            this.name = name;
+            this.charset = charset;
+            this.firstLine = firstLine;
+            this.lineCount = lineCount;
+        }
+
+        public String getName() { return name; }
+        public Charset getCharset() { return charset; }
+        public int getFirstLine() { return firstLine; }
+        public int getLineCount() { return lineCount; }
+        public int getEndLine() { return firstLine + lineCount; }
+    }
+}
@@ -7,6 +7,7 @@ module com.example.mantracount {
     requires java.base;
     requires org.json;
     requires java.net.http;
+    requires jdk.zipfs;
 
     opens com.example.mantracount to javafx.fxml;
     exports com.example.mantracount;
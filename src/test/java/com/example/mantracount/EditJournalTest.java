@@ -0,0 +1,100 @@
+package com.example.mantracount;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class EditJournalTest {
+
+    @TempDir
+    Path dir;
+
+    private static List<String> chat() {
+        return new ArrayList<>(List.of(
+                "[01/03/2024, 10:00:00] Ana: fiz 108 mantras de Tara",
+                "[02/03/2024, 10:00:00] Ana: fiz 54 mantras de Tara"));
+    }
+
+    private static EditJournal.Edit edit(int line, String oldText, String newText) {
+        return new EditJournal.Edit(line, oldText, newText, System.currentTimeMillis());
+    }
+
+    @Test
+    void replaysAppendedEdits() throws IOException {
+        Path journal = EditJournal.journalFor(dir.resolve("chat.txt").toString());
+        List<String> lines = chat();
+        EditJournal.append(journal, List.of(edit(1, lines.get(1), "[02/03/2024, 10:00:00] Ana: fiz 108 mantras de Tara")));
+
+        List<String> reloaded = chat();
+        assertEquals(1, EditJournal.replay(journal, reloaded));
+        assertEquals("[02/03/2024, 10:00:00] Ana: fiz 108 mantras de Tara", reloaded.get(1));
+    }
+
+    @Test
+    void dropsTornLastRecordAndKeepsTheOthers() throws IOException {
+        Path journal = EditJournal.journalFor(dir.resolve("chat.txt").toString());
+        List<String> lines = chat();
+        EditJournal.append(journal, List.of(edit(0, lines.get(0), "[01/03/2024, 10:00:00] Ana: fiz 216 mantras de Tara")));
+        long intact = Files.size(journal);
+        Files.write(journal, new byte[] {0, 0, 0, 40, 1, 2}, StandardOpenOption.APPEND);
+
+        List<String> reloaded = chat();
+        assertEquals(1, EditJournal.replay(journal, reloaded));
+        assertEquals(intact, Files.size(journal));
+    }
+
+    @Test
+    void dropsTornHeaderSoLaterAppendsReplay() throws IOException {
+        Path journal = EditJournal.journalFor(dir.resolve("chat.txt").toString());
+        // The first save crashed after writing half of the header
+        Files.write(journal, new byte[] {0x4D, 0x43});
+
+        assertEquals(0, EditJournal.replay(journal, chat()));
+        assertEquals(0, Files.size(journal));
+
+        List<String> lines = chat();
+        EditJournal.append(journal, List.of(edit(1, lines.get(1), "[02/03/2024, 10:00:00] Ana: fiz 27 mantras de Tara")));
+        List<String> reloaded = chat();
+        assertEquals(1, EditJournal.replay(journal, reloaded));
+        assertEquals("[02/03/2024, 10:00:00] Ana: fiz 27 mantras de Tara", reloaded.get(1));
+    }
+
+    @Test
+    void findsALineThatMovedByItsOldText() throws IOException {
+        Path journal = EditJournal.journalFor(dir.resolve("chat.txt").toString());
+        List<String> lines = chat();
+        EditJournal.append(journal, List.of(edit(1, lines.get(1), "[02/03/2024, 10:00:00] Ana: fiz 27 mantras de Tara")));
+
+        // A newer export with a line above the edited one
+        List<String> reloaded = chat();
+        reloaded.add(0, "[29/02/2024, 10:00:00] Ana: fiz 9 mantras de Tara");
+        assertEquals(1, EditJournal.replay(journal, reloaded));
+        assertEquals("[02/03/2024, 10:00:00] Ana: fiz 27 mantras de Tara", reloaded.get(2));
+    }
+
+    @Test
+    void compactionKeepsEditsThatMatchNoLine() throws IOException {
+        Path base = dir.resolve("chat.txt");
+        Files.write(base, chat());
+        Path journal = EditJournal.journalFor(base.toString());
+        EditJournal.append(journal, List.of(
+                edit(0, "[01/03/2024, 10:00:00] Ana: fiz 7 mantras de Tara", "[01/03/2024, 10:00:00] Ana: fiz 70 mantras de Tara"),
+                edit(1, chat().get(1), "[02/03/2024, 10:00:00] Ana: fiz 27 mantras de Tara")));
+
+        EditJournal.compact(base);
+        assertEquals("[02/03/2024, 10:00:00] Ana: fiz 27 mantras de Tara", Files.readAllLines(base).get(1));
+
+        List<EditJournal.Edit> skipped = new ArrayList<>();
+        assertEquals(0, EditJournal.replay(journal, Files.readAllLines(base), skipped));
+        assertEquals(1, skipped.size());
+        assertEquals("[01/03/2024, 10:00:00] Ana: fiz 70 mantras de Tara", skipped.get(0).getNewText());
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.mantracount;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class FileProcessorServiceTest {
+
+    private static final String[] MESSAGES = {
+            "fiz %d mantras de Tara",
+            "fiz %d ritos de Tara",
+            "fiz %d mantras de Tara Tara",
+            "fiz %d mantras de tar",
+            "fiz %d mantras e %d ritos de Tara",
+            "%d mantras de Tara",
+            "bom dia a todos",
+            ""};
+
+    // A day every 200 lines or so, one line in ten a continuation without a date
+    private static List<String> chat(Random random, int size) {
+        List<String> lines = new ArrayList<>(size);
+        LocalDate day = LocalDate.of(2023, 1, 1);
+        for (int i = 0; i < size; i++) {
+            if (random.nextInt(200) == 0) {
+                day = day.plusDays(1);
+            }
+            String message = String.format(MESSAGES[random.nextInt(MESSAGES.length)],
+                    1 + random.nextInt(50_000), 1 + random.nextInt(100));
+            lines.add(random.nextInt(10) == 0 ? message
+                    : String.format("[%02d/%02d/%d, 10:%02d:00] Ana: %s",
+                            day.getDayOfMonth(), day.getMonthValue(), day.getYear(), random.nextInt(60), message));
+        }
+        return lines;
+    }
+
+    private static MantraData process(List<String> lines, LocalDate targetDate, boolean parallel) throws Exception {
+        MantraData data = new MantraData();
+        data.setLines(new ArrayList<>(lines));
+        data.setNameToCount("Tara");
+        data.setTargetDate(targetDate);
+        FileProcessorService.processFile(data, parallel);
+        return data;
+    }
+
+    @Test
+    void parallelModeCountsLikeTheSequentialWalk() throws Exception {
+        // More lines than the parallel threshold, so they are split into many chunks
+        List<String> lines = chat(new Random(9), 60_000);
+        DateParser.detectDateFormat(lines);
+        for (LocalDate targetDate : List.of(LocalDate.of(2023, 1, 1), LocalDate.of(2023, 6, 15))) {
+            MantraData sequential = process(lines, targetDate, false);
+            MantraData parallel = process(lines, targetDate, true);
+
+            assertEquals(sequential.getTotalNameCount(), parallel.getTotalNameCount());
+            assertEquals(sequential.getTotalMantrasCount(), parallel.getTotalMantrasCount());
+            assertEquals(sequential.getTotalRitosCount(), parallel.getTotalRitosCount());
+            assertEquals(sequential.getTotalFizCount(), parallel.getTotalFizCount());
+            assertEquals(sequential.getTotalFizNumbersSum(), parallel.getTotalFizNumbersSum());
+            // Same mismatched lines in the same file order
+            assertEquals(sequential.getDebugLines(), parallel.getDebugLines());
+            assertFalse(sequential.getDebugLines().isEmpty());
+        }
+    }
+
+    @Test
+    void fizNumberSumsPastTheIntRange() throws Exception {
+        // ProcessResult totals are long, like the MantraData totals they feed
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 60_000; i++) {
+            lines.add("[01/03/2024, 10:00:00] Ana: fiz 50000 mantras de Tara");
+        }
+        long expected = 60_000L * 50_000;
+        assertEquals(expected, process(lines, LocalDate.of(2024, 1, 1), true).getTotalFizNumbersSum());
+        assertEquals(expected, process(lines, LocalDate.of(2024, 1, 1), false).getTotalFizNumbersSum());
+    }
+}
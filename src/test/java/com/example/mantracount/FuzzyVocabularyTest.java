@@ -0,0 +1,61 @@
+package com.example.mantracount;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FuzzyVocabularyTest {
+
+    private static final String[] TERMS = {
+            "mantra", "mantras", "rito", "ritos", "tara", "", "vajrasattva",
+            "om mani padme hum om mani padme hum om mani padme hum om mani padme hum"};
+
+    private static String typo(Random random, String word) {
+        StringBuilder typo = new StringBuilder(word);
+        for (int e = random.nextInt(4); e > 0; e--) {
+            int at = random.nextInt(typo.length() + 1);
+            char c = "amnortsuv ".charAt(random.nextInt(10));
+            if (random.nextBoolean() || at == typo.length()) {
+                typo.insert(at, c);
+            } else {
+                typo.setCharAt(at, c);
+            }
+        }
+        return typo.toString();
+    }
+
+    @Test
+    void answersLikeTheFullDistance() {
+        FuzzyVocabulary vocabulary = new FuzzyVocabulary(TERMS);
+        Random random = new Random(5);
+        for (int i = 0; i < 3000; i++) {
+            String token = typo(random, TERMS[random.nextInt(TERMS.length)]);
+            int k = random.nextInt(4);
+            int firstExpected = -1;
+            for (int id = 0; id < TERMS.length; id++) {
+                int distance = StringUtils.levenshteinDistance(token, TERMS[id]);
+                String what = token + " / " + TERMS[id] + " k=" + k;
+                assertEquals(Math.min(distance, k + 1), vocabulary.boundedDistance(token, id, k), what);
+                assertEquals(distance <= k, vocabulary.isWithin(token, id, k), what);
+                if (firstExpected < 0 && distance <= k) {
+                    firstExpected = id;
+                }
+            }
+            assertEquals(firstExpected, vocabulary.firstWithin(token, k), token);
+            assertEquals(firstExpected >= 0, vocabulary.anyWithin(token, k), token);
+        }
+    }
+
+    @Test
+    void keywordVocabulariesAreReused() {
+        FuzzyVocabulary tara = FuzzyVocabulary.forKeyword("tara");
+        assertSame(tara, FuzzyVocabulary.forKeyword("tara"));
+        assertEquals(1, tara.size());
+        assertEquals("tara", tara.getTerm(0));
+        assertTrue(tara.anyWithin("tare", 1));
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.mantracount;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LineParserTest {
+
+    // The regex parsing LineParser.extractDate did before the scanner
+    private static final Pattern ANDROID_DATE_PATTERN = Pattern.compile("^(\\d{1,2}/\\d{1,2}/\\d{2,4})\\s+\\d{1,2}:\\d{1,2}\\s+-\\s+");
+    private static final String DATE = "\\d{1,2}/\\d{1,2}/\\d{2,4}";
+
+    private static int regexEpochDay(String line, DateParser.DateFormat format) {
+        int startBracket = line.indexOf('[');
+        int comma = line.indexOf(',');
+        if (startBracket != -1 && comma != -1 && comma > startBracket + 1) {
+            String datePart = line.substring(startBracket + 1, comma).trim();
+            if (datePart.matches(DATE)) {
+                return regexDateParts(datePart, format);
+            }
+        }
+        Matcher androidMatcher = ANDROID_DATE_PATTERN.matcher(line);
+        if (androidMatcher.find()) {
+            return regexDateParts(androidMatcher.group(1).trim(), format);
+        }
+        return LineParser.NO_DATE;
+    }
+
+    private static int regexDateParts(String datePart, DateParser.DateFormat format) {
+        String[] parts = datePart.split("/");
+        int first = Integer.parseInt(parts[0]);
+        int second = Integer.parseInt(parts[1]);
+        int year = Integer.parseInt(parts[2]);
+        if (year < 100) {
+            year += 2000;
+        }
+        try {
+            LocalDate date = format == DateParser.DateFormat.BR_FORMAT
+                    ? LocalDate.of(year, second, first) : LocalDate.of(year, first, second);
+            return (int) date.toEpochDay();
+        } catch (DateTimeException e) {
+            return LineParser.NO_DATE;
+        }
+    }
+
+    private static int scannedEpochDay(String line, DateParser.DateFormat format) {
+        return LineParser.extractEpochDay(line, 0, line.length(), format);
+    }
+
+    private static void assertScansLikeRegex(String line) {
+        for (DateParser.DateFormat format : DateParser.DateFormat.values()) {
+            assertEquals(regexEpochDay(line, format), scannedEpochDay(line, format), line + " " + format);
+        }
+    }
+
+    private static String digits(Random random, int count) {
+        StringBuilder digits = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            digits.append((char) ('0' + random.nextInt(10)));
+        }
+        return digits.toString();
+    }
+
+    private static String randomDate(Random random) {
+        // Mostly plausible parts, sometimes too many or too few digits
+        String first = random.nextInt(8) == 0 ? digits(random, random.nextInt(4)) : String.valueOf(random.nextInt(33));
+        String second = random.nextInt(8) == 0 ? digits(random, random.nextInt(4)) : String.valueOf(random.nextInt(14));
+        String year = switch (random.nextInt(6)) {
+            case 0 -> digits(random, 2);
+            case 1 -> digits(random, 1 + random.nextInt(5));
+            case 2 -> "00" + digits(random, 2);
+            default -> String.valueOf(2020 + random.nextInt(10));
+        };
+        return first + "/" + second + "/" + year;
+    }
+
+    private static String randomBlanks(Random random) {
+        return " \t ".substring(0, random.nextInt(4));
+    }
+
+    @Test
+    void scannerMatchesTheRegexOnRandomLines() {
+        Random random = new Random(7);
+        for (int i = 0; i < 20000; i++) {
+            String date = randomDate(random);
+            String hour = random.nextInt(24) + ":" + digits(random, 1 + random.nextInt(2));
+            String line = switch (random.nextInt(4)) {
+                // iPhone
+                case 0 -> "[" + randomBlanks(random) + date + randomBlanks(random) + ", " + hour + ":00] Ana: fiz 108 mantras";
+                // Android
+                case 1 -> date + randomBlanks(random) + " " + hour + randomBlanks(random) + " -" + randomBlanks(random) + " Ana: fiz 108 mantras";
+                // Date and text separated by a space, not a chat prefix
+                case 2 -> date + " fiz 108 mantras";
+                default -> randomBlanks(random) + (random.nextBoolean() ? "[" : "") + date
+                        + (random.nextBoolean() ? "," : " ") + hour + (random.nextBoolean() ? " - " : "] ") + "Ana: om";
+            };
+            assertScansLikeRegex(line);
+        }
+    }
+
+    @Test
+    void readsBothChatFormatsAndYearLengths() {
+        int march5 = (int) LocalDate.of(2024, 3, 5).toEpochDay();
+        assertEquals(march5, scannedEpochDay("[05/03/2024, 10:00:00] Ana: fiz 108 mantras", DateParser.DateFormat.BR_FORMAT));
+        assertEquals(march5, scannedEpochDay("[5/3/24, 10:00:00] Ana: fiz 108 mantras", DateParser.DateFormat.BR_FORMAT));
+        assertEquals(march5, scannedEpochDay("3/5/24 10:00 - Ana: fiz 108 mantras", DateParser.DateFormat.US_FORMAT));
+        assertEquals(march5, scannedEpochDay("03/05/2024 10:00 - Ana: fiz 108 mantras", DateParser.DateFormat.US_FORMAT));
+        assertEquals(LineParser.NO_DATE, scannedEpochDay("05/03/2024 fiz 108 mantras", DateParser.DateFormat.BR_FORMAT));
+        assertEquals(LineParser.NO_DATE, scannedEpochDay("Ana: fiz 108 mantras", DateParser.DateFormat.BR_FORMAT));
+    }
+
+    @Test
+    void impossibleDatesGiveNoDate() {
+        assertEquals(LineParser.NO_DATE, scannedEpochDay("[31/02/2024, 10:00:00] Ana: om", DateParser.DateFormat.BR_FORMAT));
+        assertEquals(LineParser.NO_DATE, scannedEpochDay("[13/05/2024, 10:00:00] Ana: om", DateParser.DateFormat.US_FORMAT));
+        assertEquals(LineParser.NO_DATE, scannedEpochDay("29/02/23 10:00 - Ana: om", DateParser.DateFormat.BR_FORMAT));
+        assertEquals(LineParser.NO_DATE, scannedEpochDay("0/5/24 10:00 - Ana: om", DateParser.DateFormat.US_FORMAT));
+        assertEquals((int) LocalDate.of(2024, 2, 29).toEpochDay(),
+                scannedEpochDay("29/02/24 10:00 - Ana: om", DateParser.DateFormat.BR_FORMAT));
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.mantracount;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class StreamingAnalyzerTest {
+
+    private static final String[] MESSAGES = {
+            "fiz %d mantras de Tara",
+            "fiz %d ritos de Tara",
+            "fiz %d mantras de Tara Tara",
+            "fiz %d mantras de tar",
+            "%d mantras de Tara é bom",
+            "bom dia a todos",
+            ""};
+
+    // Day 13 and later, so only the day/month reading gives valid dates
+    private static List<String> chat(Random random, int size) {
+        List<String> lines = new ArrayList<>(size);
+        LocalDate day = LocalDate.of(2023, 1, 13);
+        for (int i = 0; i < size; i++) {
+            if (random.nextInt(50) == 0) {
+                day = day.plusDays(1 + random.nextInt(3));
+                day = day.getDayOfMonth() < 13 ? day.withDayOfMonth(13) : day;
+            }
+            String message = String.format(MESSAGES[random.nextInt(MESSAGES.length)], 1 + random.nextInt(1000));
+            lines.add(random.nextInt(10) == 0 ? message
+                    : String.format("[%02d/%02d/%d, 10:%02d:00] Ana: %s",
+                            day.getDayOfMonth(), day.getMonthValue(), day.getYear(), random.nextInt(60), message));
+        }
+        return lines;
+    }
+
+    private static StreamingAnalyzer.ChatSource source(List<String> lines, Charset charset) {
+        byte[] bytes = String.join("\n", lines).getBytes(charset);
+        return () -> new ByteArrayInputStream(bytes);
+    }
+
+    private static MantraData load(List<String> lines, LocalDate targetDate) throws Exception {
+        // Detected afresh before the lines are set, like loading a file does: their facts are parsed then
+        DateParser.resetDetectedFormat();
+        DateParser.detectDateFormat(lines);
+        MantraData data = new MantraData();
+        data.setLines(new ArrayList<>(lines));
+        data.setNameToCount("Tara");
+        data.setTargetDate(targetDate);
+        FileProcessorService.processFile(data);
+        return data;
+    }
+
+    private static void assertCountsLike(MantraData loaded, StreamingAnalyzer.Result streamed) {
+        MantraData data = new MantraData();
+        data.setNameToCount("Tara");
+        streamed.applyTo(data);
+        assertEquals(loaded.getTotalNameCount(), data.getTotalNameCount());
+        assertEquals(loaded.getTotalMantrasCount(), data.getTotalMantrasCount());
+        assertEquals(loaded.getTotalRitosCount(), data.getTotalRitosCount());
+        assertEquals(loaded.getTotalFizCount(), data.getTotalFizCount());
+        assertEquals(loaded.getTotalFizNumbersSum(), data.getTotalFizNumbersSum());
+        assertEquals(loaded.getDebugLines(), data.getDebugLines());
+    }
+
+    @Test
+    void countsLikeTheLoadedFileWithItsOwnDateFormat() throws Exception {
+        List<String> lines = chat(new Random(10), 20_000);
+        LocalDate targetDate = LocalDate.of(2023, 4, 13);
+
+        // Another file loaded with month/day dates: the streamed run must not read or change its format
+        DateParser.resetDetectedFormat();
+        DateParser.detectDateFormat(List.of("[01/25/2024, 10:00:00] Ana: om", "[02/25/2024, 10:00:00] Ana: om"));
+        StreamingAnalyzer.Result streamed = StreamingAnalyzer.analyze(
+                List.of(source(lines, StandardCharsets.UTF_8)), targetDate, "Tara");
+        assertEquals(DateParser.DateFormat.US_FORMAT, DateParser.getCurrentDateFormat());
+        assertEquals(DateParser.DateFormat.BR_FORMAT, streamed.getDateFormat());
+        assertEquals(lines.size(), streamed.getLinesRead());
+
+        MantraData loaded = load(lines, targetDate);
+        assertCountsLike(loaded, streamed);
+        assertFalse(loaded.getDebugLines().isEmpty());
+        assertEquals(MissingDaysDetector.detectMissingDayRanges(loaded).size(), streamed.getMissingDays().size());
+    }
+
+    @Test
+    void readsWindows1252AndEveryChatInOrder() throws Exception {
+        Random random = new Random(11);
+        List<String> first = chat(random, 5_000);
+        List<String> second = chat(random, 5_000);
+        List<String> both = new ArrayList<>(first);
+        both.addAll(second);
+        LocalDate targetDate = LocalDate.of(2023, 1, 13);
+
+        StreamingAnalyzer.Result streamed = StreamingAnalyzer.analyze(
+                List.of(source(first, Charset.forName("windows-1252")), source(second, StandardCharsets.UTF_8)),
+                targetDate, "Tara");
+        assertCountsLike(load(both, targetDate), streamed);
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.mantracount;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StringUtilsTest {
+
+    private static final String ALPHABET = "aeimnorstuçã ";
+
+    // Short alphabet so random pairs come out close as often as far apart
+    private static String randomWord(Random random, int maxLength) {
+        StringBuilder word = new StringBuilder();
+        int length = random.nextInt(maxLength + 1);
+        for (int i = 0; i < length; i++) {
+            word.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return word.toString();
+    }
+
+    private static String typo(Random random, String word, int edits) {
+        StringBuilder typo = new StringBuilder(word);
+        for (int e = 0; e < edits; e++) {
+            int at = random.nextInt(typo.length() + 1);
+            char c = ALPHABET.charAt(random.nextInt(ALPHABET.length()));
+            int kind = random.nextInt(3);
+            if (kind == 0 || at == typo.length()) {
+                typo.insert(at, c);
+            } else if (kind == 1) {
+                typo.deleteCharAt(at);
+            } else {
+                typo.setCharAt(at, c);
+            }
+        }
+        return typo.toString();
+    }
+
+    private static void assertBoundedLikeFullDistance(String a, String b) {
+        int distance = StringUtils.levenshteinDistance(a, b);
+        for (int k = 0; k <= 4; k++) {
+            assertEquals(Math.min(distance, k + 1), StringUtils.boundedLevenshteinDistance(a, b, k), a + " / " + b + " k=" + k);
+            assertEquals(distance <= k, StringUtils.distanceAtMost(a, b, k), a + " / " + b + " k=" + k);
+        }
+    }
+
+    @Test
+    void boundedDistanceMatchesFullDistanceOnRandomWords() {
+        Random random = new Random(4);
+        for (int i = 0; i < 3000; i++) {
+            String a = randomWord(random, 12);
+            String b = random.nextBoolean() ? randomWord(random, 12) : typo(random, a, random.nextInt(4));
+            assertBoundedLikeFullDistance(a, b);
+        }
+    }
+
+    @Test
+    void bitParallelDistanceIsExactUpToTheBound() {
+        Random random = new Random(44);
+        for (int i = 0; i < 2000; i++) {
+            String pattern = randomWord(random, 64);
+            if (pattern.isEmpty()) {
+                continue;
+            }
+            String text = typo(random, pattern, random.nextInt(6));
+            int distance = StringUtils.levenshteinDistance(pattern, text);
+            int k = random.nextInt(6);
+            int bounded = StringUtils.bitParallelDistance(StringUtils.PatternMasks.of(pattern), text, k);
+            if (distance <= k) {
+                assertEquals(distance, bounded, pattern + " / " + text);
+            } else {
+                assertTrue(bounded > k, pattern + " / " + text);
+            }
+        }
+    }
+
+    @Test
+    void patternsLongerThan64CharactersUseTheBand() {
+        Random random = new Random(444);
+        for (int i = 0; i < 500; i++) {
+            String a = randomWord(random, 40) + "fiz 108 mantras de tara verde hoje de manhã" + randomWord(random, 60);
+            assertBoundedLikeFullDistance(a, typo(random, a, random.nextInt(6)));
+        }
+        String sixtyFive = "a".repeat(65);
+        assertEquals(0, StringUtils.boundedLevenshteinDistance(sixtyFive, sixtyFive, 0));
+        assertEquals(1, StringUtils.boundedLevenshteinDistance(sixtyFive, "a".repeat(64), 2));
+        assertEquals(2, StringUtils.boundedLevenshteinDistance(sixtyFive, "b" + "a".repeat(63), 1));
+    }
+
+    @Test
+    void lengthGapAndEmptyStrings() {
+        assertEquals(0, StringUtils.boundedLevenshteinDistance("", "", 0));
+        assertEquals(3, StringUtils.boundedLevenshteinDistance("", "tara", 2));
+        assertEquals(4, StringUtils.boundedLevenshteinDistance("tara", "", 4));
+        assertEquals(2, StringUtils.boundedLevenshteinDistance("om", "mantra", 1));
+        assertEquals(1, StringUtils.boundedLevenshteinDistance("mantra", "mantras", 1));
+    }
+}